@@ -1,8 +1,10 @@
 package org.example;
 
 import org.example.config.AppConfig;
+import org.example.dto.DriverDTO;
 import org.example.models.Ride;
 import org.example.repository.Database;
+import org.example.exceptions.DuplicatePaymentException;
 import org.example.exceptions.InvalidDriverIDException;
 import org.example.services.admin.AdminService;
 import org.example.services.admin.AdminServiceImpl;
@@ -10,7 +12,6 @@ import org.example.services.driver.DriverService;
 import org.example.services.driver.DriverServiceImpl;
 import org.example.services.payment.PaymentMethodType;
 import org.example.services.payment.PaymentService;
-import org.example.services.payment.impl.WalletPayment;
 import org.example.exceptions.InvalidRideException;
 import org.example.services.ride.RideService;
 import org.example.services.ride.RideServiceImpl;
@@ -18,7 +19,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class RiderApp {
@@ -84,6 +88,14 @@ public class RiderApp {
                     driverService.addDriver(driverID, x_coordinate, y_coordinate);
                     break;
 
+                case "UPDATE_LOCATION":
+                    driverID = parts[1];
+                    x_coordinate = Integer.parseInt(parts[2]);
+                    y_coordinate = Integer.parseInt(parts[3]);
+
+                    driverService.updateLocation(driverID, x_coordinate, y_coordinate);
+                    break;
+
                 case "ADD_RIDER":
                     riderID = parts[1];
                     x_coordinate = Integer.parseInt(parts[2]);
@@ -99,6 +111,21 @@ public class RiderApp {
                     System.out.println(output);
                     break;
 
+                case "MATCH_BATCH":
+                    List<String> riderIDs = Arrays.asList(parts).subList(1, parts.length);
+
+                    Map<String, String> assignment = rideService.matchRiders(riderIDs);
+                    for (String batchRiderID : riderIDs) {
+                        String assignedDriverID = assignment.get(batchRiderID);
+
+                        if (assignedDriverID != null) {
+                            System.out.println("DRIVER_ASSIGNED " + batchRiderID + " " + assignedDriverID);
+                        } else {
+                            System.out.println("NO_DRIVERS_AVAILABLE " + batchRiderID);
+                        }
+                    }
+                    break;
+
                 case "START_RIDE":
                     rideID = parts[1];
                     N = Integer.parseInt(parts[2]);
@@ -122,16 +149,15 @@ public class RiderApp {
                     driverID = parts[1];
                     float rating = Float.parseFloat(parts[2]);
 
-                    output = driverService.rateDriver(driverID, rating);
-                    System.out.print(output);
+                    Map<String, Object> rated = driverService.rateDriver(driverID, rating);
+                    System.out.println("CURRENT_RATING " + driverID + " " + rated.get("rating"));
                     break;
 
                 case "BILL":
                     rideID = parts[1];
 
-                    double bill = rideService.billRide(rideID);
-                    Ride currentRide = db.getRideDetails().get(rideID);
-                    System.out.printf("BILL %s %s %.1f\n", rideID, currentRide.getDriverID(), bill);
+                    Ride currentRide = rideService.billedRide(rideID);
+                    System.out.printf("BILL %s %s %.1f\n", rideID, currentRide.getDriverID(), currentRide.getBill());
                     break;
 
                 case "PAY":
@@ -139,9 +165,7 @@ public class RiderApp {
                     String type = parts[2];
 
                     PaymentMethodType paymentMethodType = PaymentMethodType.valueOf(type.toUpperCase());
-                    paymentService.setPaymentMethod(paymentMethodType);
-
-                    output = paymentService.processPayment(rideID);
+                    output = paymentService.processPayment(rideID, paymentMethodType);
                     System.out.println(output);
                     break;
 
@@ -149,40 +173,38 @@ public class RiderApp {
                     riderID = parts[1];
                     float amount = Float.parseFloat(parts[2]);
 
-                    paymentService.setPaymentMethod(PaymentMethodType.WALLET);
-                    WalletPayment wallet = (WalletPayment) paymentService.getPaymentMethod();
-
-                    float balance = wallet.addMoney(riderID, amount);
+                    float balance = paymentService.getWallet().addMoney(riderID, amount);
                     System.out.println("CURRENT_BALANCE " + riderID + " " + balance);
                     break;
 
                 case "ADMIN_REMOVE_DRIVER":
                     driverID = parts[1];
 
-                    output = adminService.removeDriver(driverID);
-                    System.out.println(output);
+                    adminService.removeDriver(driverID);
+                    System.out.println("REMOVED_DRIVER " + driverID);
                     break;
 
                 case "ADMIN_LIST_DRIVERS":
                     N = Integer.parseInt(parts[1]);
 
-                    List<String> driverDetails = adminService.listNDriverDetails(N);
-                    for (String detail : driverDetails) {
-                        System.out.println(detail);
+                    List<DriverDTO> driverDetails = adminService.listNDriverDetails(N);
+                    for (DriverDTO detail : driverDetails) {
+                        System.out.printf("DRIVER_%s (X=%d, Y=%d) RATING %.1f\n",
+                                detail.driverId(), detail.x(), detail.y(), detail.rating());
                     }
                     break;
 
                 case "ADMIN_VIEW_DRIVER_EARNINGS":
                     driverID = parts[1];
 
-                    float earnings = adminService.getDriverEarnings(driverID);
+                    BigDecimal earnings = adminService.getDriverEarnings(driverID).earnings();
                     System.out.printf("DRIVER_EARNINGS %s %.1f\n", driverID, earnings);
                     break;
 
                 default:
                     break;
             }
-        } catch (InvalidRideException | InvalidDriverIDException e) {
+        } catch (InvalidRideException | InvalidDriverIDException | DuplicatePaymentException e) {
             System.out.println(e.getMessage());
         }
     }
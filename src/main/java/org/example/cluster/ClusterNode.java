@@ -0,0 +1,350 @@
+package org.example.cluster;
+
+import org.example.exceptions.DuplicatePaymentException;
+import org.example.exceptions.InvalidDriverIDException;
+import org.example.exceptions.InvalidRideException;
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.repository.Database;
+import org.example.repository.NearestDrivers;
+import org.example.repository.PaymentLedger;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.example.services.ride.surge.SurgeEngine;
+import org.example.services.ride.tariff.TariffEngine;
+import org.example.utilities.DistanceUtility;
+import org.example.utilities.Money;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// One RiderApp process in a sharded deployment. It keeps the drivers, riders and rides of the regions that
+// ShardRouter sends it in its own ConcurrentInMemoryDB and answers one-line commands over a loopback socket.
+// A ride lives on its rider's node, while its driver may live on another; the router ties the two together.
+public class ClusterNode implements AutoCloseable {
+    private static final int MAX_MATCHED_DRIVERS = 5;
+
+    private final ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+    private final DriverServiceImpl driverService = new DriverServiceImpl(db);
+    private final TariffEngine tariffs = new TariffEngine();
+    private final RideServiceImpl rideService = new RideServiceImpl(db, tariffs, SurgeEngine.NONE);
+    private final ServerSocket server;
+    private volatile boolean closed;
+
+    public ClusterNode(int port) {
+        this(port, true);
+    }
+
+    // An embedded node accepts on a daemon thread; a standalone one accepts on the caller's thread instead
+    private ClusterNode(int port, boolean acceptInBackground) {
+        try {
+            server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (acceptInBackground) {
+            Thread acceptor = new Thread(this::acceptLoop, "cluster-node-" + server.getLocalPort());
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+    }
+
+    // Serves until the process is killed
+    public static void main(String[] args) {
+        ClusterNode node = new ClusterNode(Integer.parseInt(args[0]), false);
+        System.out.println("NODE_LISTENING " + node.getAddress().getPort());
+        node.acceptLoop();
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+    }
+
+    public Database getDatabase() {
+        return db;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> serve(socket), "cluster-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            for (String command = in.readLine(); command != null; command = in.readLine()) {
+                String reply;
+                try {
+                    reply = handle(command.split(" "));
+                } catch (InvalidRideException | InvalidDriverIDException | DuplicatePaymentException e) {
+                    reply = e.getMessage();
+                } catch (RuntimeException e) {
+                    reply = "INVALID_COMMAND";
+                }
+
+                out.write(reply);
+                out.newLine();
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The router went away; its next connection starts over
+        }
+    }
+
+    String handle(String[] parts) {
+        switch (parts[0]) {
+            case "ADD_DRIVER":
+                driverService.addDriver(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                return "OK";
+
+            case "MOVE_DRIVER":
+                driverService.updateLocation(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                return "OK";
+
+            case "TAKE_DRIVER":
+                return takeDriver(parts[1]);
+
+            case "PUT_DRIVER":
+                putDriver(parts);
+                return "OK";
+
+            case "NEAREST":
+                return nearest(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+
+            case "CLAIM":
+                return claim(parts[1]);
+
+            case "RELEASE":
+                release(parts[1]);
+                return "OK";
+
+            case "EARN":
+                earn(parts[1], Float.parseFloat(parts[2]));
+                return "OK";
+
+            case "RATE":
+                driverService.rateDriver(parts[1], Float.parseFloat(parts[2]));
+                return "OK";
+
+            case "ADD_RIDER":
+                rideService.addRider(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                return "OK";
+
+            case "ADD_MONEY":
+                return String.valueOf(rider(parts[1]).addMoney(Float.parseFloat(parts[2])));
+
+            case "SET_MATCH":
+                setMatch(parts);
+                return "OK";
+
+            case "MATCHED":
+                return matched(parts[1], Integer.parseInt(parts[2]));
+
+            case "OPEN_RIDE":
+                openRide(parts[1], parts[2], parts[3]);
+                return "OK";
+
+            case "STOP_RIDE":
+                return stopRide(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Integer.parseInt(parts[4]));
+
+            case "BILL":
+                return bill(parts[1]);
+
+            case "CHARGE":
+                return charge(parts[1], parts[2]);
+
+            default:
+                return "UNKNOWN_COMMAND";
+        }
+    }
+
+    // Removes a driver that moved to another node's region and hands over everything about them
+    private String takeDriver(String driverID) {
+        Driver driver = driver(driverID);
+        synchronized (driver) {
+            if (driver.isRemoved()) {
+                throw new InvalidDriverIDException();
+            }
+
+            driver.markRemoved();
+            db.getDriverDetails().remove(driverID);
+            db.getDriverIndex().remove(driverID);
+            db.getDriverRanking().remove(driverID);
+            Driver.Version v = driver.getVersion();
+            return v.x() + " " + v.y() + " " + v.available() + " " + v.rating() + " " + v.ratingSum() + " "
+                    + v.ridesDone() + " " + driver.getEarningsPaise();
+        }
+    }
+
+    private void putDriver(String[] parts) {
+        String driverID = parts[1];
+        Driver driver = new Driver(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        driver.setAvailable(Boolean.parseBoolean(parts[4]));
+        driver.setRating(Float.parseFloat(parts[5]));
+        driver.setRatingSum(Float.parseFloat(parts[6]));
+        driver.setRidesDone(Integer.parseInt(parts[7]));
+        driver.setEarningsPaise(Long.parseLong(parts[8]));
+
+        db.getDriverDetails().put(driverID, driver);
+        db.getDriverRanking().put(driverID, driver.getRating());
+        if (driver.isAvailable()) {
+            db.getDriverIndex().insert(driverID, driver.getX(), driver.getY());
+        }
+    }
+
+    private String nearest(int x_coordinate, int y_coordinate) {
+        NearestDrivers nearest = new NearestDrivers(MAX_MATCHED_DRIVERS);
+        db.getDriverIndex().nearest(x_coordinate, y_coordinate, DistanceUtility.MATCH_LIMIT, nearest);
+
+        StringBuilder reply = new StringBuilder("NEAREST");
+        for (int i = 0; i < nearest.size(); i++) {
+            reply.append(' ').append(nearest.driverAt(i)).append(' ').append(nearest.distanceSquaredAt(i));
+        }
+        return reply.toString();
+    }
+
+    // The same claim startRide makes, for a ride that lives on another node
+    private String claim(String driverID) {
+        Driver driver = driver(driverID);
+        synchronized (driver) {
+            if (driver.isRemoved() || !driver.isAvailable()) {
+                return "BUSY";
+            }
+
+            driver.setAvailable(false);
+            db.getDriverIndex().remove(driverID);
+            return "CLAIMED";
+        }
+    }
+
+    private void release(String driverID) {
+        Driver driver = driver(driverID);
+        synchronized (driver) {
+            if (!driver.isRemoved() && !driver.isAvailable()) {
+                driver.setAvailable(true);
+                db.getDriverIndex().insert(driverID, driver.getX(), driver.getY());
+            }
+        }
+    }
+
+    private void earn(String driverID, float amount) {
+        driver(driverID).addEarnings(Money.toPaise(amount));
+    }
+
+    private void setMatch(String[] parts) {
+        db.getRiderDriverMapping().put(parts[1], Arrays.asList(parts).subList(2, parts.length));
+    }
+
+    private String matched(String riderID, int N) {
+        List<String> matchedDrivers = db.getRiderDriverMapping().get(riderID);
+        if (matchedDrivers == null || matchedDrivers.size() < N || N < 1) {
+            throw new InvalidRideException();
+        }
+
+        return matchedDrivers.get(N - 1);
+    }
+
+    // Nodes quote no surge: a cell's demand and supply can be split over several nodes, and no node sees both,
+    // so cluster rides are billed at 1.0x
+    private void openRide(String rideID, String riderID, String driverID) {
+        Ride ride = new Ride(riderID, driverID);
+        ride.setStartCoordinates(rider(riderID).getCoordinates().clone());
+        ride.setStartHour(tariffs.currentHour());
+        if (db.getRideDetails().putIfAbsent(rideID, ride) != null) {
+            throw new InvalidRideException();
+        }
+    }
+
+    private String stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+        Ride ride = db.getRideDetails().get(rideID);
+        if (ride == null || !ride.finishRide(dest_x_coordinate, dest_y_coordinate, timeTakenInMins)) {
+            throw new InvalidRideException();
+        }
+
+        return ride.getDriverID();
+    }
+
+    private String bill(String rideID) {
+        Ride ride = rideService.billedRide(rideID);
+        return ride.getDriverID() + " " + (double) ride.getBill();
+    }
+
+    // Takes the rider's side of a payment; the router credits the driver on their own node.
+    // The ride's node keeps its ledger, so a retried CHARGE is rejected before the driver is credited twice.
+    private String charge(String rideID, String type) {
+        Ride ride = rideService.billedRide(rideID);
+
+        PaymentLedger ledger = db.getPaymentLedger();
+        PaymentLedger.Claim claim = ledger.claim(rideID);
+        if (claim == null) {
+            throw new DuplicatePaymentException();
+        }
+
+        try {
+            long bill = Money.toPaise(ride.getBill());
+            boolean fromWallet = type.equals("WALLET");
+            long balance = fromWallet ? rider(ride.getRiderID()).debit(bill) : 0;
+            if (balance == Rider.DECLINED) {
+                return "LOW_BALANCE";
+            }
+
+            ledger.record(rideID, ride.getRiderID(), ride.getDriverID(), fromWallet, bill);
+            return fromWallet
+                    ? "PAID " + ride.getDriverID() + " " + ride.getBill() + " " + Money.toRupees(balance)
+                    : "PAID " + ride.getDriverID() + " " + ride.getBill();
+        } finally {
+            ledger.release(claim);
+        }
+    }
+
+    private Driver driver(String driverID) {
+        Driver driver = db.getDriverDetails().get(driverID);
+        if (driver == null) {
+            throw new InvalidDriverIDException();
+        }
+        return driver;
+    }
+
+    private Rider rider(String riderID) {
+        Rider rider = db.getRiderDetails().get(riderID);
+        if (rider == null) {
+            throw new InvalidRideException();
+        }
+        return rider;
+    }
+}
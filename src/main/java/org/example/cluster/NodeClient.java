@@ -0,0 +1,76 @@
+package org.example.cluster;
+
+import org.example.exceptions.DuplicatePaymentException;
+import org.example.exceptions.InvalidDriverIDException;
+import org.example.exceptions.InvalidRideException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// One connection to a ClusterNode; a call writes a command line and waits for the reply line.
+// Error replies come back as the same exceptions the local services throw.
+final class NodeClient implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final BufferedWriter out;
+
+    NodeClient(InetSocketAddress address) {
+        try {
+            socket = new Socket(address.getAddress(), address.getPort());
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized String call(Object... command) {
+        StringBuilder line = new StringBuilder();
+        for (Object part : command) {
+            if (!line.isEmpty()) {
+                line.append(' ');
+            }
+            line.append(part);
+        }
+
+        String reply;
+        try {
+            out.write(line.toString());
+            out.newLine();
+            out.flush();
+            reply = in.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (reply == null) {
+            throw new UncheckedIOException(new IOException("NODE_DISCONNECTED"));
+        }
+        switch (reply) {
+            case "INVALID_RIDE" -> throw new InvalidRideException();
+            case "INVALID_DRIVER_ID" -> throw new InvalidDriverIDException();
+            case "RIDE_ALREADY_PAID" -> throw new DuplicatePaymentException();
+            case "INVALID_COMMAND", "UNKNOWN_COMMAND" -> throw new IllegalArgumentException(reply + " " + line);
+            default -> {
+                return reply;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Splits the plane into square regions and places them on a consistent-hash ring of nodes. Every node has many
+// points on the ring, so regions spread evenly, and a new node takes over only the regions that now hash to it.
+public final class RegionMap {
+    private static final int VIRTUAL_NODES = 64;
+
+    private final int regionSize;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    public RegionMap(int nodeCount, int regionSize) {
+        this.regionSize = regionSize;
+
+        for (int node = 0; node < nodeCount; node++) {
+            for (int point = 0; point < VIRTUAL_NODES; point++) {
+                ring.put(mix(((long) node << 32) | point), node);
+            }
+        }
+    }
+
+    public int ownerOf(int x_coordinate, int y_coordinate) {
+        return ownerOfRegion(Math.floorDiv(x_coordinate, regionSize), Math.floorDiv(y_coordinate, regionSize));
+    }
+
+    // Owners of every region the square around the point touches, so a search near a border reaches the neighbours
+    public Set<Integer> ownersWithin(int x_coordinate, int y_coordinate, double radius) {
+        int reach = (int) Math.ceil(radius);
+        int fromX = Math.floorDiv(x_coordinate - reach, regionSize);
+        int toX = Math.floorDiv(x_coordinate + reach, regionSize);
+        int fromY = Math.floorDiv(y_coordinate - reach, regionSize);
+        int toY = Math.floorDiv(y_coordinate + reach, regionSize);
+
+        Set<Integer> owners = new TreeSet<>();
+        for (int regionX = fromX; regionX <= toX; regionX++) {
+            for (int regionY = fromY; regionY <= toY; regionY++) {
+                owners.add(ownerOfRegion(regionX, regionY));
+            }
+        }
+
+        return owners;
+    }
+
+    private int ownerOfRegion(int regionX, int regionY) {
+        Map.Entry<Long, Integer> point = ring.ceilingEntry(mix(((long) regionX << 32) ^ (regionY & 0xffffffffL) ^ 0x5bd1e995L));
+        return point != null ? point.getValue() : ring.firstEntry().getValue();
+    }
+
+    // MurmurHash3 finaliser
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93fe53e6cc9L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
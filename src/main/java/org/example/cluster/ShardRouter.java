@@ -0,0 +1,231 @@
+package org.example.cluster;
+
+import org.example.exceptions.InvalidDriverIDException;
+import org.example.exceptions.InvalidRideException;
+import org.example.services.payment.PaymentMethodType;
+import org.example.utilities.DistanceUtility;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Thin routing layer over ClusterNodes. Drivers and riders live on the node that owns their region, and a ride
+// lives on its rider's node. The router only remembers which node holds each ID; all state stays on the nodes.
+public class ShardRouter implements AutoCloseable {
+    private static final int MAX_MATCHED_DRIVERS = 5;
+
+    private final RegionMap regions;
+    private final List<NodeClient> nodes = new ArrayList<>();
+    private final Map<String, DriverHome> driverHomes = new ConcurrentHashMap<>();
+    private final Map<String, RiderHome> riderHomes = new ConcurrentHashMap<>();
+    private final Map<String, Integer> rideNodes = new ConcurrentHashMap<>();
+
+    private record RiderHome(int node, int x, int y) {
+    }
+
+    // The node that holds a driver. Every call for the driver holds its monitor, so the call reaches the node
+    // that has them and a move to another node never overlaps it, while other drivers' calls go ahead.
+    // The node is -1 until the driver is first added.
+    private static final class DriverHome {
+        private int node = -1;
+    }
+
+    private record Candidate(String driverID, long distanceSquared) {
+    }
+
+    public ShardRouter(List<InetSocketAddress> nodeAddresses, int regionSize) {
+        this.regions = new RegionMap(nodeAddresses.size(), regionSize);
+        for (InetSocketAddress address : nodeAddresses) {
+            nodes.add(new NodeClient(address));
+        }
+    }
+
+    public RegionMap getRegions() {
+        return regions;
+    }
+
+    public void addDriver(String driverID, int x_coordinate, int y_coordinate) {
+        int owner = regions.ownerOf(x_coordinate, y_coordinate);
+        DriverHome home = driverHomes.computeIfAbsent(driverID, id -> new DriverHome());
+        synchronized (home) {
+            if (home.node >= 0 && home.node != owner) {
+                nodes.get(home.node).call("TAKE_DRIVER", driverID);
+            }
+
+            nodes.get(owner).call("ADD_DRIVER", driverID, x_coordinate, y_coordinate);
+            home.node = owner;
+        }
+    }
+
+    // A driver who crosses into a region of another node moves there with their ratings, earnings and ride state.
+    // The driver's monitor keeps their moves in order.
+    public void updateLocation(String driverID, int x_coordinate, int y_coordinate) {
+        DriverHome home = driverHomes.get(driverID);
+        if (home == null) {
+            throw new InvalidDriverIDException();
+        }
+
+        synchronized (home) {
+            if (home.node < 0) {
+                throw new InvalidDriverIDException();
+            }
+
+            int owner = regions.ownerOf(x_coordinate, y_coordinate);
+            if (owner == home.node) {
+                nodes.get(owner).call("MOVE_DRIVER", driverID, x_coordinate, y_coordinate);
+                return;
+            }
+
+            String[] state = nodes.get(home.node).call("TAKE_DRIVER", driverID).split(" ");
+            nodes.get(owner).call("PUT_DRIVER", driverID, x_coordinate, y_coordinate, state[2], state[3], state[4],
+                    state[5], state[6]);
+            home.node = owner;
+        }
+    }
+
+    public void rateDriver(String driverID, float rating) {
+        if (callDriverNode(driverID, "RATE", driverID, rating) == null) {
+            throw new InvalidDriverIDException();
+        }
+    }
+
+    public void addRider(String riderID, int x_coordinate, int y_coordinate) {
+        int owner = regions.ownerOf(x_coordinate, y_coordinate);
+        riderHomes.put(riderID, new RiderHome(owner, x_coordinate, y_coordinate));
+        nodes.get(owner).call("ADD_RIDER", riderID, x_coordinate, y_coordinate);
+    }
+
+    public float addMoney(String riderID, float amount) {
+        return Float.parseFloat(nodes.get(riderHome(riderID).node).call("ADD_MONEY", riderID, amount));
+    }
+
+    // Asks every node whose regions come within the match limit, so riders near a border see the drivers across it
+    public String matchRider(String riderID) {
+        RiderHome home = riderHome(riderID);
+        List<Candidate> candidates = new ArrayList<>();
+
+        for (int node : regions.ownersWithin(home.x, home.y, DistanceUtility.MATCH_LIMIT)) {
+            String[] reply = nodes.get(node).call("NEAREST", home.x, home.y).split(" ");
+            for (int i = 1; i + 1 < reply.length; i += 2) {
+                candidates.add(new Candidate(reply[i], Long.parseLong(reply[i + 1])));
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return "NO_DRIVERS_AVAILABLE";
+        }
+
+        candidates.sort(Comparator.comparingLong(Candidate::distanceSquared).thenComparing(Candidate::driverID));
+        List<String> matched = candidates.stream().limit(MAX_MATCHED_DRIVERS).map(Candidate::driverID).toList();
+
+        nodes.get(home.node).call("SET_MATCH", riderID, String.join(" ", matched));
+        return "DRIVERS_MATCHED " + String.join(" ", matched);
+    }
+
+    // Claims the driver on their node first, then opens the ride on the rider's node
+    public String startRide(String rideID, int N, String riderID) {
+        RiderHome home = riderHome(riderID);
+        String driverID = nodes.get(home.node).call("MATCHED", riderID, N);
+
+        String claimed = callDriverNode(driverID, "CLAIM", driverID);
+        if (claimed == null) {
+            throw new InvalidDriverIDException();
+        }
+        if (!claimed.equals("CLAIMED")) {
+            throw new InvalidRideException();
+        }
+
+        try {
+            nodes.get(home.node).call("OPEN_RIDE", rideID, riderID, driverID);
+        } catch (InvalidRideException e) {
+            callDriverNode(driverID, "RELEASE", driverID);
+            throw e;
+        }
+
+        rideNodes.put(rideID, home.node);
+        return "RIDE_STARTED " + rideID;
+    }
+
+    public String stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+        String driverID = nodes.get(rideNode(rideID)).call("STOP_RIDE", rideID, dest_x_coordinate, dest_y_coordinate,
+                timeTakenInMins);
+
+        callDriverNode(driverID, "RELEASE", driverID);
+        return "RIDE_STOPPED " + rideID;
+    }
+
+    public double billRide(String rideID) {
+        String[] reply = nodes.get(rideNode(rideID)).call("BILL", rideID).split(" ");
+        return Double.parseDouble(reply[1]);
+    }
+
+    // The rider's node takes the money and the driver's node records the earnings; replies match PaymentService.
+    // The driver is looked up before the rider is charged, and their monitor is held until they are paid, so the
+    // money never leaves the rider for a driver the router cannot reach.
+    public String processPayment(String rideID, PaymentMethodType type) {
+        int node = rideNode(rideID);
+        String driverID = nodes.get(node).call("BILL", rideID).split(" ")[0];
+        DriverHome home = driverHomes.get(driverID);
+        if (home == null) {
+            throw new InvalidDriverIDException();
+        }
+
+        synchronized (home) {
+            if (home.node < 0) {
+                throw new InvalidDriverIDException();
+            }
+
+            String reply = nodes.get(node).call("CHARGE", rideID, type);
+            if (reply.equals("LOW_BALANCE")) {
+                return reply;
+            }
+
+            String[] paid = reply.split(" ");
+            float bill = Float.parseFloat(paid[2]);
+            nodes.get(home.node).call("EARN", driverID, bill);
+
+            return type == PaymentMethodType.WALLET
+                    ? "PAID " + bill + " SUCCESSFULLY | CURRENT_BALANCE " + Float.parseFloat(paid[3])
+                    : String.format("PAID %s %.1f VIA %s", driverID, bill, type);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (NodeClient node : nodes) {
+            node.close();
+        }
+    }
+
+    // Runs under the driver's monitor, the one updateLocation() moves them under, so the command reaches the
+    // node that holds the driver and not one they just left. Null when the router does not know the driver.
+    private String callDriverNode(String driverID, Object... command) {
+        DriverHome home = driverHomes.get(driverID);
+        if (home == null) {
+            return null;
+        }
+
+        synchronized (home) {
+            return home.node < 0 ? null : nodes.get(home.node).call(command);
+        }
+    }
+
+    private RiderHome riderHome(String riderID) {
+        RiderHome home = riderHomes.get(riderID);
+        if (home == null) {
+            throw new InvalidRideException();
+        }
+        return home;
+    }
+
+    private int rideNode(String rideID) {
+        Integer node = rideNodes.get(rideID);
+        if (node == null) {
+            throw new InvalidRideException();
+        }
+        return node;
+    }
+}
@@ -2,7 +2,12 @@ package org.example.controllers;
 
 import org.example.dto.DriverDTO;
 import org.example.dto.DriverEarningsDTO;
+import org.example.dto.DriverPageDTO;
+import org.example.dto.RejectedWriteDTO;
+import org.example.dto.RideFareDTO;
+import org.example.repository.DriverRanking;
 import org.example.services.admin.AdminService;
+import org.example.services.ride.tariff.TariffEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,18 +20,49 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private TariffEngine tariffEngine;
+
     @DeleteMapping("/drivers/remove")
     public boolean removeDriver(@RequestParam("driverID") String driverID) {
         return adminService.removeDriver(driverID);
     }
 
+    // Best rated first, or by ID with sort=ID. The Next-Cursor header, when present, is the after value for the
+    // next page.
     @GetMapping(value = "/drivers/list", produces = "application/json")
-    public ResponseEntity<List<DriverDTO>> listNDriverDetails(@RequestParam("N") int N) {
-        return ResponseEntity.ok(adminService.listNDriverDetails(N));
+    public ResponseEntity<List<DriverDTO>> listNDriverDetails(
+            @RequestParam("N") int N,
+            @RequestParam(value = "sort", defaultValue = "RATING") String sort,
+            @RequestParam(value = "after", required = false) String after
+    ) {
+        DriverPageDTO page = adminService.listDrivers(DriverRanking.Order.valueOf(sort.toUpperCase()), after, N);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.drivers());
     }
 
     @GetMapping(value = "/drivers/earnings", produces = "application/json")
     public ResponseEntity<DriverEarningsDTO> getDriverEarnings(@RequestParam("driverID") String driverID) {
         return ResponseEntity.ok(adminService.getDriverEarnings(driverID));
     }
+
+    @GetMapping(value = "/rides/fare", produces = "application/json")
+    public ResponseEntity<RideFareDTO> getRideFare(@RequestParam("rideID") String rideID) {
+        return ResponseEntity.ok(adminService.getRideFare(rideID));
+    }
+
+    @GetMapping(value = "/store/rejected-writes", produces = "application/json")
+    public ResponseEntity<List<RejectedWriteDTO>> getRejectedWrites() {
+        return ResponseEntity.ok(adminService.getRejectedWrites());
+    }
+
+    // Rereads the tariff file; bills in progress finish on the old tariff
+    @PostMapping("/tariffs/reload")
+    public String reloadTariffs() {
+        return "TARIFFS_LOADED " + tariffEngine.reload();
+    }
 }
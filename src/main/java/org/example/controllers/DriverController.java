@@ -1,11 +1,15 @@
 package org.example.controllers;
 
+import org.example.dto.LocationPingDTO;
+import org.example.exceptions.InvalidLocationPingException;
 import org.example.services.driver.DriverService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,6 +27,31 @@ public class DriverController {
         driverService.addDriver(driverID, x, y);
     }
 
+    @PostMapping("/location")
+    public void updateLocation(
+            @RequestParam("driverID") String driverID,
+            @RequestParam("x") int x,
+            @RequestParam("y") int y
+    ) {
+        driverService.updateLocation(driverID, x, y);
+    }
+
+    // One "driverID x y" ping per line. The whole batch is parsed before any driver moves, so a malformed line
+    // rejects the batch with INVALID_LOCATION_PING and nothing is applied.
+    @PostMapping(value = "/location/batch", consumes = "text/plain")
+    public String updateLocations(@RequestBody String body) {
+        List<LocationPingDTO> pings = new ArrayList<>();
+
+        for (String line : body.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            pings.add(parsePing(line.trim().split("\\s+")));
+        }
+
+        return "LOCATIONS_UPDATED " + driverService.updateLocations(pings);
+    }
+
     @PostMapping("/rate")
     public ResponseEntity<Map<String, Object>> rateDriver(
             @RequestParam("driverID") String driverID,
@@ -30,4 +59,16 @@ public class DriverController {
     ) {
         return ResponseEntity.ok(driverService.rateDriver(driverID, rating));
     }
+
+    private static LocationPingDTO parsePing(String[] parts) {
+        if (parts.length != 3) {
+            throw new InvalidLocationPingException();
+        }
+
+        try {
+            return new LocationPingDTO(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new InvalidLocationPingException();
+        }
+    }
 }
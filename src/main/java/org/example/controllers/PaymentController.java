@@ -1,14 +1,30 @@
 package org.example.controllers;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.dto.SettlementResultDTO;
+import org.example.exceptions.InvalidRideException;
 import org.example.services.payment.PaymentMethodType;
 import org.example.services.payment.PaymentService;
-import org.example.services.payment.impl.WalletPayment;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/payment")
 public class PaymentController {
+    private static final JsonFactory JSON = new JsonFactory();
+
     @Autowired
     private PaymentService paymentService;
 
@@ -18,17 +34,65 @@ public class PaymentController {
             @RequestParam("type") String paymentMethodType
     ) {
         PaymentMethodType type = PaymentMethodType.valueOf(paymentMethodType.toUpperCase());
-        paymentService.setPaymentMethod(type);
 
-        return paymentService.processPayment(rideID);
+        return paymentService.processPayment(rideID, type);
+    }
+
+    // Returns before the gateway answers; the reply is written when the payment settles
+    @PostMapping("/pay-async")
+    public CompletableFuture<String> payAsync(
+            @RequestParam("rideID") String rideID,
+            @RequestParam("type") String paymentMethodType
+    ) {
+        PaymentMethodType type = PaymentMethodType.valueOf(paymentMethodType.toUpperCase());
+
+        return paymentService.processPaymentAsync(rideID, type);
+    }
+
+    // Body is a JSON array of ride IDs; the reply is a JSON array with one result per ride, in the same order.
+    // Both are read and written token by token, so a large batch is never held as a JSON tree.
+    @PostMapping(value = "/settle", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<StreamingResponseBody> settle(
+            @RequestParam("type") String paymentMethodType,
+            InputStream body
+    ) throws IOException {
+        PaymentMethodType type = PaymentMethodType.valueOf(paymentMethodType.toUpperCase());
+
+        List<String> rideIDs = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidRideException();
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.VALUE_STRING) {
+                    throw new InvalidRideException();
+                }
+                rideIDs.add(parser.getText());
+            }
+        }
+
+        List<SettlementResultDTO> results = paymentService.settleBatch(rideIDs, type);
+        StreamingResponseBody reply = out -> {
+            try (JsonGenerator json = JSON.createGenerator(out)) {
+                json.writeStartArray();
+                for (SettlementResultDTO result : results) {
+                    json.writeStartObject();
+                    json.writeStringField("rideId", result.rideId());
+                    json.writeStringField("status", result.status());
+                    json.writeStringField("driverId", result.driverId());
+                    json.writeNumberField("amount", result.amount());
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(reply);
     }
 
     @PostMapping("/add-money")
     public String addMoney(@RequestParam("riderID") String riderID, @RequestParam("amount") float amount) {
-        paymentService.setPaymentMethod(PaymentMethodType.WALLET);
-        WalletPayment wallet = (WalletPayment) paymentService.getPaymentMethod();
-
-        float balance = wallet.addMoney(riderID, amount);
+        float balance = paymentService.getWallet().addMoney(riderID, amount);
         return "CURRENT_BALANCE " + riderID + " " + balance;
     }
 }
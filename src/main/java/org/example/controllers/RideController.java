@@ -4,9 +4,13 @@ package org.example.controllers;
 import org.example.models.Ride;
 import org.example.repository.Database;
 import org.example.services.ride.RideService;
+import org.example.services.ride.surge.SurgeEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/ride")
 public class RideController {
@@ -14,6 +18,9 @@ public class RideController {
     @Autowired
     private RideService rideService;
 
+    @Autowired
+    private SurgeEngine surgeEngine;
+
     @PostMapping("/rider/add")
     public void addRider(
             @RequestParam("riderID") String riderID,
@@ -28,6 +35,20 @@ public class RideController {
         return rideService.matchRider(riderID);
     }
 
+    @PostMapping("/rider/match-batch")
+    public String matchRiders(@RequestParam("riderIDs") List<String> riderIDs) {
+        Map<String, String> assignment = rideService.matchRiders(riderIDs);
+        StringBuilder result = new StringBuilder();
+
+        for (String riderID : riderIDs) {
+            String driverID = assignment.get(riderID);
+            result.append(driverID != null ? "DRIVER_ASSIGNED " + riderID + " " + driverID : "NO_DRIVERS_AVAILABLE " + riderID)
+                    .append("\n");
+        }
+
+        return result.toString();
+    }
+
     @PostMapping("/start")
     public String startRide(
             @RequestParam("rideID") String rideID,
@@ -53,4 +74,10 @@ public class RideController {
 
         return String.format("BILL %s %.1f", rideID, bill);
     }
+
+    // The multiplier a ride starting here would be quoted now
+    @GetMapping("/surge")
+    public String surge(@RequestParam("x") int x, @RequestParam("y") int y) {
+        return String.format("SURGE %.1f", surgeEngine.multiplier(x, y));
+    }
 }
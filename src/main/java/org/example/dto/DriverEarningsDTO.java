@@ -1,5 +1,8 @@
 package org.example.dto;
 
-public record DriverEarningsDTO(String driverId, float earnings) {
+import java.math.BigDecimal;
+
+// Earnings in rupees with exactly two decimals, straight from the driver's paise
+public record DriverEarningsDTO(String driverId, BigDecimal earnings) {
 }
 
@@ -0,0 +1,6 @@
+package org.example.dto;
+
+import java.util.List;
+
+public record DriverPageDTO(List<DriverDTO> drivers, String nextCursor) {
+}
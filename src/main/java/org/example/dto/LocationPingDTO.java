@@ -0,0 +1,4 @@
+package org.example.dto;
+
+public record LocationPingDTO(String driverId, int x, int y) {
+}
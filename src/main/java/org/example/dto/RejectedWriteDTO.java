@@ -0,0 +1,5 @@
+package org.example.dto;
+
+// rejectedAt is an ISO-8601 instant
+public record RejectedWriteDTO(String operation, String id, String parameters, String error, String rejectedAt) {
+}
@@ -0,0 +1,5 @@
+package org.example.dto;
+
+public record RideFareDTO(String rideId, String driverId, double baseFare, double distanceFare, double timeFare,
+                          double serviceTax, float surge, float total) {
+}
@@ -0,0 +1,4 @@
+package org.example.dto;
+
+public record SettlementResultDTO(String rideId, String status, String driverId, float amount) {
+}
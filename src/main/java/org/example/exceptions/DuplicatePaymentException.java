@@ -0,0 +1,7 @@
+package org.example.exceptions;
+
+public class DuplicatePaymentException extends RuntimeException {
+    public DuplicatePaymentException() {
+        super("RIDE_ALREADY_PAID");
+    }
+}
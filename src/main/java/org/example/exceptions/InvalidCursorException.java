@@ -0,0 +1,7 @@
+package org.example.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException() {
+        super("INVALID_CURSOR");
+    }
+}
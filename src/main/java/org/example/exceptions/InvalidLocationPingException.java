@@ -0,0 +1,7 @@
+package org.example.exceptions;
+
+public class InvalidLocationPingException extends RuntimeException {
+    public InvalidLocationPingException() {
+        super("INVALID_LOCATION_PING");
+    }
+}
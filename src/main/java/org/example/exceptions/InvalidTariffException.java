@@ -0,0 +1,7 @@
+package org.example.exceptions;
+
+public class InvalidTariffException extends RuntimeException {
+    public InvalidTariffException(String detail) {
+        super("INVALID_TARIFF " + detail);
+    }
+}
@@ -1,33 +1,137 @@
 package org.example.models;
 
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.example.utilities.Money;
 
-@Data
+import java.util.concurrent.atomic.LongAdder;
+
+// Copy-on-write: every update swaps in a new immutable Version. Writers still serialise on the driver's
+// monitor, but readers take one Version and get a consistent record without any lock.
+// Earnings stay outside the version in a striped adder, so payments to a popular driver never serialise.
+@EqualsAndHashCode
+@ToString
 public class Driver {
-    private final int[] coordinates;
-    private boolean available = true;
-    private float earnings = 0;
-    private float rating = 0;
-    private float ratingSum = 0;
-    private int ridesDone = 0;
+    private volatile Version version;
+
+    // Paise
+    @EqualsAndHashCode.Exclude
+    private final LongAdder earnings = new LongAdder();
+
+    // Set under the driver's monitor once the driver leaves the store, so a move or release that already holds
+    // this driver does not put them back into the index
+    @EqualsAndHashCode.Exclude
+    private volatile boolean removed;
+
+    public record Version(int x, int y, boolean available, float rating, float ratingSum, int ridesDone) {
+    }
 
     public Driver(int x_coordinate, int y_coordinate) {
-        this.coordinates = new int[]{x_coordinate, y_coordinate};
+        this.version = new Version(x_coordinate, y_coordinate, true, 0, 0, 0);
+    }
+
+    public Version getVersion() {
+        return version;
+    }
+
+    public int[] getCoordinates() {
+        Version current = version;
+        return new int[]{current.x(), current.y()};
+    }
+
+    // Hot paths read the position without allocating. x and y may come from different versions unless the
+    // caller holds the driver's monitor; take getVersion() for a consistent pair without it.
+    public int getX() {
+        return version.x();
     }
 
-    public float updateDriverRating(float newRate) {
-        ridesDone++;
-        ratingSum += newRate;
-        this.rating = ratingSum / ridesDone;
+    public int getY() {
+        return version.y();
+    }
+
+    public boolean isAvailable() {
+        return version.available();
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    public synchronized void markRemoved() {
+        removed = true;
+    }
+
+    public float getEarnings() {
+        return Money.toRupees(getEarningsPaise());
+    }
+
+    public long getEarningsPaise() {
+        return earnings.sum();
+    }
 
-        return this.rating;
+    public float getRating() {
+        return version.rating();
+    }
+
+    public float getRatingSum() {
+        return version.ratingSum();
+    }
+
+    public int getRidesDone() {
+        return version.ridesDone();
+    }
+
+    public synchronized void setAvailable(boolean available) {
+        Version v = version;
+        version = new Version(v.x(), v.y(), available, v.rating(), v.ratingSum(), v.ridesDone());
+    }
+
+    // Only for restoring a driver; a concurrent addEarnings could be lost
+    public synchronized void setEarningsPaise(long paise) {
+        earnings.reset();
+        earnings.add(paise);
+    }
+
+    public synchronized void setRating(float rating) {
+        Version v = version;
+        version = new Version(v.x(), v.y(), v.available(), rating, v.ratingSum(), v.ridesDone());
+    }
+
+    public synchronized void setRatingSum(float ratingSum) {
+        Version v = version;
+        version = new Version(v.x(), v.y(), v.available(), v.rating(), ratingSum, v.ridesDone());
+    }
+
+    public synchronized void setRidesDone(int ridesDone) {
+        Version v = version;
+        version = new Version(v.x(), v.y(), v.available(), v.rating(), v.ratingSum(), ridesDone);
+    }
+
+    // Rating, rating sum and ride count change together, so no reader sees one without the others
+    public synchronized float updateDriverRating(float newRate) {
+        Version v = version;
+        int ridesDone = v.ridesDone() + 1;
+        float ratingSum = v.ratingSum() + newRate;
+        version = new Version(v.x(), v.y(), v.available(), ratingSum / ridesDone, ratingSum, ridesDone);
+
+        return version.rating();
+    }
+
+    public void addEarnings(long paise) {
+        earnings.add(paise);
     }
 
     public void updateEarnings(float amount) {
-        earnings += amount;
+        addEarnings(Money.toPaise(amount));
+    }
+
+    public synchronized void updateLocation(int x_coordinate, int y_coordinate) {
+        Version v = version;
+        version = new Version(x_coordinate, y_coordinate, v.available(), v.rating(), v.ratingSum(), v.ridesDone());
     }
 
-    public void updateAvailability() {
-        available = !available;
+    public synchronized void updateAvailability() {
+        Version v = version;
+        version = new Version(v.x(), v.y(), !v.available(), v.rating(), v.ratingSum(), v.ridesDone());
     }
 }
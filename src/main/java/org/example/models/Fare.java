@@ -0,0 +1,5 @@
+package org.example.models;
+
+// How a ride's bill was reached, fixed when the ride is first billed
+public record Fare(double baseFare, double distanceFare, double timeFare, double serviceTax, float surge, float total) {
+}
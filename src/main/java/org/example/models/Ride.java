@@ -1,15 +1,29 @@
 package org.example.models;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 
 @Data
 public class Ride {
     private String riderID;
     private String driverID;
+    // Where the rider was when the ride started; null when the rider was not known then
+    private int[] startCoordinates;
     private int[] destinationCoordinates;
     private int timeTakenInMins;
-    private boolean finished;
-    private float bill;
+    private volatile boolean finished;
+    private volatile float bill;
+    // Surge multiplier quoted when the ride started
+    private float surge = 1;
+    // Hour of day the ride started, which picks its tariff band; -1 bills at the current hour
+    private int startHour = -1;
+    // Set once by the first bill; null until then, or when the ride was only given a bill
+    @Setter(AccessLevel.NONE)
+    private volatile Fare fare;
+    // Set with the fare or the bill; a billed ride is never billed again
+    @Setter(AccessLevel.NONE)
+    private volatile boolean billed;
 
     public Ride(String riderID, String driverID) {
         this.riderID = riderID;
@@ -17,9 +31,25 @@ public class Ride {
         this.finished = false;
     }
 
-    public void finishRide(int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+    public synchronized boolean finishRide(int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+        if (finished) {
+            return false;
+        }
+
         this.destinationCoordinates = new int[]{dest_x_coordinate, dest_y_coordinate};
         this.timeTakenInMins = timeTakenInMins;
         this.finished = true;
+        return true;
+    }
+
+    public synchronized void setFare(Fare fare) {
+        this.fare = fare;
+        this.bill = fare.total();
+        this.billed = true;
+    }
+
+    public synchronized void setBill(float bill) {
+        this.bill = bill;
+        this.billed = true;
     }
 }
@@ -1,28 +1,59 @@
 package org.example.models;
 
-import lombok.Data;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.utilities.Money;
 
-@Data
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+@Setter
 public class Rider {
+    // Returned by debit when the balance does not cover the amount
+    public static final long DECLINED = -1;
+
     private int[] coordinates;
-    private float walletAmount = 0;
+
+    // Paise; every update is a single atomic step, so concurrent top-ups and payments never lose one another
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong wallet = new AtomicLong();
 
     public Rider(int x_coordinate, int y_coordinate) {
         this.coordinates = new int[]{x_coordinate, y_coordinate};
     }
 
-    public float addMoney(float amount) {
-        walletAmount += amount;
+    public long getWalletPaise() {
+        return wallet.get();
+    }
 
-        return walletAmount;
+    public void setWalletPaise(long paise) {
+        wallet.set(paise);
     }
 
-    public boolean deductMoney(float amount) {
-        if (walletAmount <= amount) {
-            return false;
+    public float getWalletAmount() {
+        return Money.toRupees(wallet.get());
+    }
+
+    public long credit(long paise) {
+        return wallet.addAndGet(paise);
+    }
+
+    // Compare-and-deduct: the balance must stay above zero, and a lost race just retries against the new balance
+    public long debit(long paise) {
+        while (true) {
+            long balance = wallet.get();
+            if (balance <= paise) {
+                return DECLINED;
+            }
+            if (wallet.compareAndSet(balance, balance - paise)) {
+                return balance - paise;
+            }
         }
+    }
 
-        walletAmount -= amount;
-        return true;
+    public float addMoney(float amount) {
+        return Money.toRupees(credit(Money.toPaise(amount)));
     }
 }
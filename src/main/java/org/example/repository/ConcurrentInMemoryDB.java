@@ -0,0 +1,120 @@
+package org.example.repository;
+
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.archive.TieredRideMap;
+import org.example.repository.index.ConcurrentSpatialIndex;
+import org.example.repository.wal.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+@Profile("!cli & !jdbc")
+public class ConcurrentInMemoryDB implements Database {
+    private final ConcurrentHashMap<String, Rider> riderDetails = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Driver> driverDetails = new ConcurrentHashMap<>();
+    private final Map<String, Ride> rideDetails;
+    private final MatchSessions riderDriverMapping;
+    private final PaymentLedger paymentLedger = new PaymentLedger();
+    private final WriteAheadLog writeAheadLog;
+    private final RideArchive rideArchive;
+    private final SpatialIndex driverIndex;
+    private final DriverRanking driverRanking = new DriverRanking();
+
+    public ConcurrentInMemoryDB() {
+        this(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, MatchSessions.DEFAULT_TTL_SECONDS,
+                WriteAheadLog.NONE, RideArchive.NONE);
+    }
+
+    @Autowired
+    public ConcurrentInMemoryDB(
+            @Value("${riderapp.spatial-index:GRID}") SpatialIndexType spatialIndexType,
+            @Value("${riderapp.match.shards:0}") int matchShards,
+            @Value("${riderapp.match.parallel-threshold:250000}") int parallelMatchThreshold,
+            @Value("${riderapp.match.session-ttl-s:300}") int matchSessionTtlSeconds,
+            WriteAheadLog writeAheadLog,
+            RideArchive rideArchive
+    ) {
+        this.driverIndex = new ConcurrentSpatialIndex(spatialIndexType.createIndex(matchShards, parallelMatchThreshold));
+        this.riderDriverMapping = new MatchSessions(matchSessionTtlSeconds * 1_000L);
+        this.writeAheadLog = writeAheadLog;
+        this.rideArchive = rideArchive;
+        this.rideDetails = rideArchive.isEnabled()
+                ? new TieredRideMap(new ConcurrentHashMap<>(), rideArchive)
+                : new ConcurrentHashMap<>();
+
+        writeAheadLog.replay(this);
+        driverRanking.load(driverDetails);
+    }
+
+    public void reset() {
+        riderDetails.clear();
+        driverDetails.clear();
+        rideDetails.clear();
+        riderDriverMapping.clear();
+        paymentLedger.clear();
+        writeAheadLog.reset();
+        rideArchive.clear();
+        driverIndex.clear();
+        driverRanking.clear();
+    }
+
+    @Override
+    public void connect() {
+        System.out.println("CONNECTED TO CONCURRENT IN-MEMORY DATABASE");
+    }
+
+    @Override
+    public ConcurrentHashMap<String, Rider> getRiderDetails() {
+        return riderDetails;
+    }
+
+    @Override
+    public ConcurrentHashMap<String, Driver> getDriverDetails() {
+        return driverDetails;
+    }
+
+    @Override
+    public Map<String, Ride> getRideDetails() {
+        return rideDetails;
+    }
+
+    @Override
+    public MatchSessions getRiderDriverMapping() {
+        return riderDriverMapping;
+    }
+
+    @Override
+    public SpatialIndex getDriverIndex() {
+        return driverIndex;
+    }
+
+    @Override
+    public DriverRanking getDriverRanking() {
+        return driverRanking;
+    }
+
+    @Override
+    public void archiveRide(String rideID) {
+        if (rideDetails instanceof TieredRideMap tieredRides) {
+            tieredRides.archive(rideID);
+        }
+    }
+
+    @Override
+    public PaymentLedger getPaymentLedger() {
+        return paymentLedger;
+    }
+
+    @Override
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+}
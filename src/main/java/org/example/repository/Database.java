@@ -3,16 +3,22 @@ package org.example.repository;
 import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.models.Rider;
+import org.example.repository.wal.WriteAheadLog;
 
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface Database {
     void connect();
     void reset();
 
-    HashMap<String, Rider> getRiderDetails();
-    HashMap<String, Driver> getDriverDetails();
-    HashMap<String, Ride> getRideDetails();
-    HashMap<String, List<String>> getRiderDriverMapping();
+    Map<String, Rider> getRiderDetails();
+    Map<String, Driver> getDriverDetails();
+    Map<String, Ride> getRideDetails();
+    Map<String, List<String>> getRiderDriverMapping();
+    void archiveRide(String rideID);
+    PaymentLedger getPaymentLedger();
+    WriteAheadLog getWriteAheadLog();
+    SpatialIndex getDriverIndex();
+    DriverRanking getDriverRanking();
 }
@@ -0,0 +1,238 @@
+package org.example.repository;
+
+import java.util.Arrays;
+
+// Struct-of-arrays driver store: every driver is a dense int handle into parallel primitive columns,
+// and the ID lookup is an open-addressing table of handles, so there is no per-driver object at all.
+final class DriverColumns {
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int NO_HANDLE = -1;
+
+    private String[] ids;
+    private int[] x;
+    private int[] y;
+    private boolean[] available;
+    private float[] rating;
+    private float[] ratingSum;
+    private int[] ridesDone;
+    private long[] earnings;
+
+    // Slots hold handle + 1 so that zero means empty; linear probing, at most half full
+    private int[] slots;
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int highWater;
+    private int size;
+
+    DriverColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    DriverColumns(int expectedDrivers) {
+        int capacity = Math.max(16, expectedDrivers);
+        ids = new String[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        available = new boolean[capacity];
+        rating = new float[capacity];
+        ratingSum = new float[capacity];
+        ridesDone = new int[capacity];
+        earnings = new long[capacity];
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    int handleOf(Object driverID) {
+        if (!(driverID instanceof String)) {
+            return NO_HANDLE;
+        }
+
+        int mask = slots.length - 1;
+        for (int slot = mix(driverID.hashCode()) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int handle = slots[slot] - 1;
+            if (ids[handle].equals(driverID)) {
+                return handle;
+            }
+        }
+
+        return NO_HANDLE;
+    }
+
+    int add(String driverID, int x_coordinate, int y_coordinate) {
+        int handle = handleOf(driverID);
+        if (handle == NO_HANDLE) {
+            if ((size + 1) * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+
+            handle = freeCount > 0 ? freeHandles[--freeCount] : highWater++;
+            if (handle == ids.length) {
+                grow();
+            }
+
+            ids[handle] = driverID;
+            insertSlot(handle);
+            size++;
+        }
+
+        x[handle] = x_coordinate;
+        y[handle] = y_coordinate;
+        available[handle] = true;
+        rating[handle] = 0;
+        ratingSum[handle] = 0;
+        ridesDone[handle] = 0;
+        earnings[handle] = 0;
+
+        return handle;
+    }
+
+    void remove(int handle) {
+        removeSlot(handle);
+        ids[handle] = null;
+        size--;
+
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+    }
+
+    void clear() {
+        Arrays.fill(ids, 0, highWater, null);
+        Arrays.fill(slots, 0);
+        freeCount = 0;
+        highWater = 0;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Handles below the high-water mark are either live or free; scans skip the free ones
+    int highWater() {
+        return highWater;
+    }
+
+    boolean isLive(int handle) {
+        return ids[handle] != null;
+    }
+
+    String driverID(int handle) {
+        return ids[handle];
+    }
+
+    int x(int handle) {
+        return x[handle];
+    }
+
+    int y(int handle) {
+        return y[handle];
+    }
+
+    boolean isAvailable(int handle) {
+        return available[handle];
+    }
+
+    float rating(int handle) {
+        return rating[handle];
+    }
+
+    float ratingSum(int handle) {
+        return ratingSum[handle];
+    }
+
+    int ridesDone(int handle) {
+        return ridesDone[handle];
+    }
+
+    long earnings(int handle) {
+        return earnings[handle];
+    }
+
+    void setLocation(int handle, int x_coordinate, int y_coordinate) {
+        x[handle] = x_coordinate;
+        y[handle] = y_coordinate;
+    }
+
+    void setAvailable(int handle, boolean value) {
+        available[handle] = value;
+    }
+
+    void setRating(int handle, float value) {
+        rating[handle] = value;
+    }
+
+    void setRatingSum(int handle, float value) {
+        ratingSum[handle] = value;
+    }
+
+    void setRidesDone(int handle, int value) {
+        ridesDone[handle] = value;
+    }
+
+    void setEarnings(int handle, long value) {
+        earnings[handle] = value;
+    }
+
+    private void insertSlot(int handle) {
+        int mask = slots.length - 1;
+        int slot = mix(ids[handle].hashCode()) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = handle + 1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void removeSlot(int handle) {
+        int mask = slots.length - 1;
+        int slot = mix(ids[handle].hashCode()) & mask;
+        while (slots[slot] != handle + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        int next = (slot + 1) & mask;
+        while (slots[next] != 0) {
+            int home = mix(ids[slots[next] - 1].hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                slots[slot] = slots[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[slot] = 0;
+    }
+
+    private void rehash(int slotCount) {
+        slots = new int[slotCount];
+        int mask = slotCount - 1;
+
+        for (int handle = 0; handle < highWater; handle++) {
+            if (ids[handle] == null) {
+                continue;
+            }
+
+            int slot = mix(ids[handle].hashCode()) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = handle + 1;
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        available = Arrays.copyOf(available, capacity);
+        rating = Arrays.copyOf(rating, capacity);
+        ratingSum = Arrays.copyOf(ratingSum, capacity);
+        ridesDone = Arrays.copyOf(ridesDone, capacity);
+        earnings = Arrays.copyOf(earnings, capacity);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
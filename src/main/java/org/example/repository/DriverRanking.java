@@ -0,0 +1,79 @@
+package org.example.repository;
+
+import org.example.models.Driver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Drivers kept sorted by rating (best first, ties by ID) and by ID, so a page of the admin listing starts with one
+// skip list seek and reads only the drivers it returns. Each Database owns one, next to its spatial index: the
+// services update it when a driver is added, rated or removed, and the Database loads it after replaying its log.
+public class DriverRanking {
+    public enum Order { RATING, ID }
+
+    private static final Comparator<Ranked> BY_RATING = Comparator.comparingDouble((Ranked r) -> -r.rating())
+            .thenComparing(Ranked::driverID);
+
+    private final ConcurrentSkipListMap<String, Float> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Ranked> byRating = new ConcurrentSkipListSet<>(BY_RATING);
+
+    // One driver as a page saw them; the cursor carries that rating, so re-rating the driver later cannot move it
+    public record Ranked(float rating, String driverID) {
+        public String cursor(Order order) {
+            return order == Order.ID ? driverID : rating + ":" + driverID;
+        }
+    }
+
+    // Writers take the lock so a driver's two entries always move together; readers never do
+    public synchronized void put(String driverID, float rating) {
+        Float previous = byId.put(driverID, rating);
+        if (previous != null) {
+            byRating.remove(new Ranked(previous, driverID));
+        }
+        byRating.add(new Ranked(rating, driverID));
+    }
+
+    public synchronized void remove(String driverID) {
+        Float previous = byId.remove(driverID);
+        if (previous != null) {
+            byRating.remove(new Ranked(previous, driverID));
+        }
+    }
+
+    public synchronized void load(Map<String, Driver> drivers) {
+        drivers.forEach((driverID, driver) -> put(driverID, driver.getRating()));
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        byRating.clear();
+    }
+
+    // Up to count drivers after the cursor, which is the one the last driver of the page before gave; null starts
+    // from the top. A cursor this ranking did not give throws IllegalArgumentException.
+    public List<Ranked> page(Order order, String after, int count) {
+        Iterator<Ranked> drivers = order == Order.ID
+                ? (after == null ? byId : byId.tailMap(after, false)).entrySet().stream()
+                        .map(entry -> new Ranked(entry.getValue(), entry.getKey())).iterator()
+                : (after == null ? byRating : byRating.tailSet(parseCursor(after), false)).iterator();
+
+        List<Ranked> page = new ArrayList<>(Math.max(0, Math.min(count, 1_024)));
+        while (page.size() < count && drivers.hasNext()) {
+            page.add(drivers.next());
+        }
+        return page;
+    }
+
+    private static Ranked parseCursor(String cursor) {
+        int colon = cursor.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException(cursor);
+        }
+        return new Ranked(Float.parseFloat(cursor.substring(0, colon)), cursor.substring(colon + 1));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.repository;
+
+import org.example.models.Driver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public enum DriverStoreType {
+    OBJECTS, COLUMNS;
+
+    public Map<String, Driver> createDriverMap() {
+        return switch (this) {
+            case OBJECTS -> new HashMap<>();
+            case COLUMNS -> new DriverTable(new DriverColumns());
+        };
+    }
+}
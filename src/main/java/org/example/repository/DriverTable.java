@@ -0,0 +1,138 @@
+package org.example.repository;
+
+import org.example.models.Driver;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Map view over DriverColumns so the services keep working with Driver objects. Drivers returned by get
+// are live views; put copies a Driver into the columns and remove hands back a detached copy.
+final class DriverTable extends AbstractMap<String, Driver> {
+    private final DriverColumns columns;
+
+    DriverTable(DriverColumns columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public Driver get(Object driverID) {
+        int handle = columns.handleOf(driverID);
+        return handle < 0 ? null : new StoredDriver(columns, handle);
+    }
+
+    @Override
+    public boolean containsKey(Object driverID) {
+        return columns.handleOf(driverID) >= 0;
+    }
+
+    @Override
+    public Driver put(String driverID, Driver driver) {
+        // Read everything first, the driver may be a view of the row that add resets
+        Driver.Version version = driver.getVersion();
+        long earnings = driver.getEarningsPaise();
+
+        int handle = columns.handleOf(driverID);
+        Driver previous = handle < 0 ? null : detach(handle);
+
+        handle = columns.add(driverID, version.x(), version.y());
+        columns.setAvailable(handle, version.available());
+        columns.setRating(handle, version.rating());
+        columns.setRatingSum(handle, version.ratingSum());
+        columns.setRidesDone(handle, version.ridesDone());
+        columns.setEarnings(handle, earnings);
+
+        return previous;
+    }
+
+    @Override
+    public Driver remove(Object driverID) {
+        int handle = columns.handleOf(driverID);
+        if (handle < 0) {
+            return null;
+        }
+
+        Driver removed = detach(handle);
+        columns.remove(handle);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return columns.size();
+    }
+
+    @Override
+    public void clear() {
+        columns.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Driver>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Driver>> iterator() {
+                return new RowIterator();
+            }
+
+            @Override
+            public int size() {
+                return columns.size();
+            }
+        };
+    }
+
+    private Driver detach(int handle) {
+        Driver driver = new Driver(columns.x(handle), columns.y(handle));
+        driver.setAvailable(columns.isAvailable(handle));
+        driver.setRating(columns.rating(handle));
+        driver.setRatingSum(columns.ratingSum(handle));
+        driver.setRidesDone(columns.ridesDone(handle));
+        driver.setEarningsPaise(columns.earnings(handle));
+
+        return driver;
+    }
+
+    // Walks the columns in handle order, which is a sequential pass over each primitive array
+    private class RowIterator implements Iterator<Map.Entry<String, Driver>> {
+        private int next = advance(0);
+        private int current = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < columns.highWater();
+        }
+
+        @Override
+        public Map.Entry<String, Driver> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            current = next;
+            next = advance(next + 1);
+            return new SimpleImmutableEntry<>(columns.driverID(current), new StoredDriver(columns, current));
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+
+            columns.remove(current);
+            current = -1;
+        }
+
+        private int advance(int handle) {
+            while (handle < columns.highWater() && !columns.isLive(handle)) {
+                handle++;
+            }
+
+            return handle;
+        }
+    }
+}
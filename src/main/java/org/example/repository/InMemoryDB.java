@@ -3,23 +3,78 @@ package org.example.repository;
 import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.models.Rider;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.archive.TieredRideMap;
+import org.example.repository.wal.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.HashMap;
-import java.util.List;
+import java.util.Map;
 
+// Single-threaded store for the CLI; request threads get ConcurrentInMemoryDB
 @Repository
+@Profile("cli")
 public class InMemoryDB implements Database {
     private final HashMap<String, Rider> riderDetails = new HashMap<>();
-    private final HashMap<String, Driver> driverDetails = new HashMap<>();
-    private final HashMap<String, Ride> rideDetails = new HashMap<>();
-    private final HashMap<String, List<String>> riderDriverMapping = new HashMap<>();
+    private final Map<String, Driver> driverDetails;
+    private final Map<String, Ride> rideDetails;
+    private final MatchSessions riderDriverMapping;
+    private final PaymentLedger paymentLedger = new PaymentLedger();
+    private final WriteAheadLog writeAheadLog;
+    private final RideArchive rideArchive;
+    private final SpatialIndex driverIndex;
+    private final DriverRanking driverRanking = new DriverRanking();
+
+    public InMemoryDB() {
+        this(SpatialIndexType.GRID);
+    }
+
+    public InMemoryDB(SpatialIndexType spatialIndexType) {
+        this(spatialIndexType, 1, Integer.MAX_VALUE, DriverStoreType.OBJECTS, MatchSessions.DEFAULT_TTL_SECONDS,
+                WriteAheadLog.NONE, RideArchive.NONE);
+    }
+
+    public InMemoryDB(DriverStoreType driverStoreType) {
+        this(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, driverStoreType, MatchSessions.DEFAULT_TTL_SECONDS,
+                WriteAheadLog.NONE, RideArchive.NONE);
+    }
+
+    @Autowired
+    public InMemoryDB(
+            @Value("${riderapp.spatial-index:GRID}") SpatialIndexType spatialIndexType,
+            @Value("${riderapp.match.shards:0}") int matchShards,
+            @Value("${riderapp.match.parallel-threshold:250000}") int parallelMatchThreshold,
+            @Value("${riderapp.driver-store:OBJECTS}") DriverStoreType driverStoreType,
+            @Value("${riderapp.match.session-ttl-s:300}") int matchSessionTtlSeconds,
+            WriteAheadLog writeAheadLog,
+            RideArchive rideArchive
+    ) {
+        this.driverDetails = driverStoreType.createDriverMap();
+        this.driverIndex = spatialIndexType.createIndex(matchShards, parallelMatchThreshold);
+        this.riderDriverMapping = new MatchSessions(matchSessionTtlSeconds * 1_000L);
+        this.writeAheadLog = writeAheadLog;
+        this.rideArchive = rideArchive;
+        this.rideDetails = rideArchive.isEnabled()
+                ? new TieredRideMap(new HashMap<>(), rideArchive)
+                : new HashMap<>();
+
+        writeAheadLog.replay(this);
+        driverRanking.load(driverDetails);
+    }
 
     public void reset() {
         riderDetails.clear();
         driverDetails.clear();
         rideDetails.clear();
         riderDriverMapping.clear();
+        paymentLedger.clear();
+        writeAheadLog.reset();
+        rideArchive.clear();
+        driverIndex.clear();
+        driverRanking.clear();
     }
 
     @Override
@@ -33,17 +88,44 @@ public class InMemoryDB implements Database {
     }
 
     @Override
-    public HashMap<String, Driver> getDriverDetails() {
+    public Map<String, Driver> getDriverDetails() {
         return driverDetails;
     }
 
     @Override
-    public HashMap<String, Ride> getRideDetails() {
+    public Map<String, Ride> getRideDetails() {
         return rideDetails;
     }
 
     @Override
-    public HashMap<String, List<String>> getRiderDriverMapping() {
+    public MatchSessions getRiderDriverMapping() {
         return riderDriverMapping;
     }
+
+    @Override
+    public SpatialIndex getDriverIndex() {
+        return driverIndex;
+    }
+
+    @Override
+    public DriverRanking getDriverRanking() {
+        return driverRanking;
+    }
+
+    @Override
+    public void archiveRide(String rideID) {
+        if (rideDetails instanceof TieredRideMap tieredRides) {
+            tieredRides.archive(rideID);
+        }
+    }
+
+    @Override
+    public PaymentLedger getPaymentLedger() {
+        return paymentLedger;
+    }
+
+    @Override
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
 }
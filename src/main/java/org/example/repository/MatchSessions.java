@@ -0,0 +1,154 @@
+package org.example.repository;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Latest match result per rider, kept for a limited time. Expiry runs on a hashed timing wheel that callers
+// advance as they go, so riders who stop matching are dropped without a timer thread or a full scan.
+public class MatchSessions extends AbstractMap<String, List<String>> {
+    public static final int DEFAULT_TTL_SECONDS = 300;
+
+    private static final int WHEEL_SLOTS = 64;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Set<String>[] wheel;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final ReentrantLock advancing = new ReentrantLock();
+    private volatile long currentTick;
+
+    private record Session(List<String> drivers, long expiresAt) {
+    }
+
+    public MatchSessions(long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    public MatchSessions(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = Math.max(1, ttlMillis / WHEEL_SLOTS);
+        this.clock = clock;
+        this.currentTick = clock.getAsLong() / tickMillis;
+
+        wheel = new Set[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    // Replaces the rider's previous candidates and restarts their expiry
+    @Override
+    public List<String> put(String riderID, List<String> drivers) {
+        long now = advance();
+        long expiresAt = now + ttlMillis;
+
+        Session previous = sessions.put(riderID, new Session(drivers, expiresAt));
+        wheel[slotOf(expiresAt)].add(riderID);
+
+        return previous == null || previous.expiresAt <= now ? null : previous.drivers;
+    }
+
+    @Override
+    public List<String> get(Object riderID) {
+        long now = advance();
+        Session session = sessions.get(riderID);
+        if (session == null) {
+            return null;
+        }
+
+        if (session.expiresAt <= now) {
+            sessions.remove(riderID, session);
+            return null;
+        }
+
+        return session.drivers;
+    }
+
+    @Override
+    public boolean containsKey(Object riderID) {
+        return get(riderID) != null;
+    }
+
+    @Override
+    public List<String> remove(Object riderID) {
+        Session session = sessions.remove(riderID);
+        return session == null ? null : session.drivers;
+    }
+
+    @Override
+    public void clear() {
+        sessions.clear();
+        for (Set<String> slot : wheel) {
+            slot.clear();
+        }
+    }
+
+    // Sessions that are still live; expired ones that the wheel has not reached yet are skipped
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, List<String>>> iterator() {
+                long now = clock.getAsLong();
+                return sessions.entrySet().stream()
+                        .filter(entry -> entry.getValue().expiresAt > now)
+                        .map(entry -> (Entry<String, List<String>>) new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().drivers))
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return sessions.size();
+            }
+        };
+    }
+
+    // Visits every slot the clock has passed since the last call; after a long idle spell one full turn covers them all
+    private long advance() {
+        long now = clock.getAsLong();
+        long tick = now / tickMillis;
+
+        if (tick > currentTick && advancing.tryLock()) {
+            try {
+                long from = Math.max(currentTick + 1, tick - WHEEL_SLOTS + 1);
+                for (long t = from; t <= tick; t++) {
+                    expire((int) (t % WHEEL_SLOTS), now);
+                }
+                currentTick = Math.max(currentTick, tick);
+            } finally {
+                advancing.unlock();
+            }
+        }
+
+        return now;
+    }
+
+    // A rider stays in a slot only while their current session is due there; a later match re-files them
+    private void expire(int slot, long now) {
+        Iterator<String> riderIDs = wheel[slot].iterator();
+        while (riderIDs.hasNext()) {
+            String riderID = riderIDs.next();
+            Session session = sessions.get(riderID);
+
+            if (session != null && session.expiresAt <= now) {
+                sessions.remove(riderID, session);
+                session = sessions.get(riderID);
+            }
+            if (session == null || session.expiresAt <= now || slotOf(session.expiresAt) != slot) {
+                riderIDs.remove();
+            }
+        }
+    }
+
+    private int slotOf(long time) {
+        return (int) ((time / tickMillis) % WHEEL_SLOTS);
+    }
+}
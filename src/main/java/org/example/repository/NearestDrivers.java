@@ -0,0 +1,147 @@
+package org.example.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Bounded max-heap over parallel primitive slots, so collecting candidates never allocates.
+// Reuse one instance per thread through reset() to keep the match path allocation-free.
+public final class NearestDrivers {
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int k;
+    private long[] distances;
+    private String[] driverIDs;
+    private int size;
+    private long maxDistanceSquared;
+    private boolean sorted;
+
+    public NearestDrivers(int k) {
+        this.k = k;
+        this.distances = new long[Math.min(k, INITIAL_SLOTS)];
+        this.driverIDs = new String[distances.length];
+    }
+
+    public NearestDrivers reset(double radius) {
+        Arrays.fill(driverIDs, 0, size, null);
+        size = 0;
+        sorted = false;
+        maxDistanceSquared = (long) Math.floor(radius * radius);
+
+        return this;
+    }
+
+    public void offer(String driverID, long distanceSquared) {
+        if (distanceSquared > maxDistanceSquared || k == 0) {
+            return;
+        }
+
+        if (size < k) {
+            if (size == distances.length) {
+                int grown = (int) Math.min(k, (long) size * 2);
+                distances = Arrays.copyOf(distances, grown);
+                driverIDs = Arrays.copyOf(driverIDs, grown);
+            }
+
+            distances[size] = distanceSquared;
+            driverIDs[size] = driverID;
+            siftUp(size++);
+        } else if (isFarther(distances[0], driverIDs[0], distanceSquared, driverID)) {
+            distances[0] = distanceSquared;
+            driverIDs[0] = driverID;
+            siftDown(0, size);
+        }
+    }
+
+    // Anything farther than this can no longer enter the result
+    public long bound() {
+        return size < k ? maxDistanceSquared : distances[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return k;
+    }
+
+    // Heap-sorts the slots in place into ascending (distance, driver ID) order
+    public NearestDrivers sort() {
+        if (!sorted) {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            sorted = true;
+        }
+
+        return this;
+    }
+
+    public String driverAt(int position) {
+        return driverIDs[position];
+    }
+
+    public long distanceSquaredAt(int position) {
+        return distances[position];
+    }
+
+    public List<String> toList() {
+        sort();
+
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(driverIDs[i]);
+        }
+
+        return result;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isFarther(distances[position], driverIDs[position], distances[parent], driverIDs[parent])) {
+                return;
+            }
+
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position, int end) {
+        while (true) {
+            int farthest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+
+            if (left < end && isFarther(distances[left], driverIDs[left], distances[farthest], driverIDs[farthest])) {
+                farthest = left;
+            }
+            if (right < end && isFarther(distances[right], driverIDs[right], distances[farthest], driverIDs[farthest])) {
+                farthest = right;
+            }
+            if (farthest == position) {
+                return;
+            }
+
+            swap(position, farthest);
+            position = farthest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+
+        String driverID = driverIDs[i];
+        driverIDs[i] = driverIDs[j];
+        driverIDs[j] = driverID;
+    }
+
+    private static boolean isFarther(long distance1, String driverID1, long distance2, String driverID2) {
+        return distance1 > distance2 || (distance1 == distance2 && driverID1.compareTo(driverID2) > 0);
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Append-only record of every ride payment. The ride ID is the idempotency key: an index over it turns a
+// retried payment into one lookup. Payers only queue their entry; whoever gets the lock appends everything
+// queued as one batch and folds it into the per-driver and per-rider totals, so payers never wait on each other.
+public class PaymentLedger {
+    // Holds either the claim of a payment in flight or the recorded Entry
+    private final ConcurrentHashMap<String, Object> byRide = new ConcurrentHashMap<>();
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock appending = new ReentrantLock();
+
+    // Guarded by appending
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Long> earnings = new HashMap<>();
+    private final Map<String, Long> walletSpend = new HashMap<>();
+
+    public record Entry(String rideID, String riderID, String driverID, boolean fromWallet, long paise) {
+    }
+
+    // A payment in flight for one ride. Each claim is its own object, so only its holder can give it up.
+    public static final class Claim {
+        private final String rideID;
+
+        private Claim(String rideID) {
+            this.rideID = rideID;
+        }
+    }
+
+    // Null if the ride is already paid or another payment for it is in flight
+    public Claim claim(String rideID) {
+        Claim claim = new Claim(rideID);
+        return byRide.putIfAbsent(rideID, claim) == null ? claim : null;
+    }
+
+    // Gives up a claim that did not end in a payment. A recorded payment stays, and so does a claim taken by
+    // someone else after this one was given up, however often it is released.
+    public void release(Claim claim) {
+        byRide.remove(claim.rideID, claim);
+    }
+
+    public boolean isPaid(String rideID) {
+        return byRide.get(rideID) instanceof Entry;
+    }
+
+    public void record(String rideID, String riderID, String driverID, boolean fromWallet, long paise) {
+        Entry entry = new Entry(rideID, riderID, driverID, fromWallet, paise);
+        byRide.put(rideID, entry);
+        pending.add(entry);
+
+        if (appending.tryLock()) {
+            try {
+                drain();
+            } finally {
+                appending.unlock();
+            }
+        }
+    }
+
+    // Used when rebuilding from the log, which may repeat a payment the ledger already has
+    public void restore(String rideID, String riderID, String driverID, boolean fromWallet, long paise) {
+        if (!isPaid(rideID)) {
+            record(rideID, riderID, driverID, fromWallet, paise);
+        }
+    }
+
+    public long earningsOf(String driverID) {
+        appending.lock();
+        try {
+            drain();
+            return earnings.getOrDefault(driverID, 0L);
+        } finally {
+            appending.unlock();
+        }
+    }
+
+    public long walletSpendOf(String riderID) {
+        appending.lock();
+        try {
+            drain();
+            return walletSpend.getOrDefault(riderID, 0L);
+        } finally {
+            appending.unlock();
+        }
+    }
+
+    public List<Entry> getEntries() {
+        appending.lock();
+        try {
+            drain();
+            return List.copyOf(entries);
+        } finally {
+            appending.unlock();
+        }
+    }
+
+    // Drivers whose earnings differ from what the ledger says they were paid
+    public List<String> findMismatchedDrivers(Database db) {
+        appending.lock();
+        try {
+            drain();
+            List<String> mismatched = new ArrayList<>();
+            db.getDriverDetails().forEach((driverID, driver) -> {
+                if (driver.getEarningsPaise() != earnings.getOrDefault(driverID, 0L)) {
+                    mismatched.add(driverID);
+                }
+            });
+            return mismatched;
+        } finally {
+            appending.unlock();
+        }
+    }
+
+    public void clear() {
+        appending.lock();
+        try {
+            pending.clear();
+            byRide.clear();
+            entries.clear();
+            earnings.clear();
+            walletSpend.clear();
+        } finally {
+            appending.unlock();
+        }
+    }
+
+    private void drain() {
+        for (Entry entry = pending.poll(); entry != null; entry = pending.poll()) {
+            entries.add(entry);
+            earnings.merge(entry.driverID(), entry.paise(), Long::sum);
+            if (entry.fromWallet()) {
+                walletSpend.merge(entry.riderID(), entry.paise(), Long::sum);
+            }
+        }
+    }
+}
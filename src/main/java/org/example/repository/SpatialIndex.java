@@ -0,0 +1,32 @@
+package org.example.repository;
+
+import java.util.List;
+
+public interface SpatialIndex {
+    void insert(String driverID, int x_coordinate, int y_coordinate);
+    void remove(String driverID);
+
+    // Resets the collector, offers it every driver within the radius and leaves it sorted by distance and then by driver ID
+    void nearest(int x_coordinate, int y_coordinate, double radius, NearestDrivers result);
+
+    int size();
+    void clear();
+
+    // Visits every indexed driver, in no particular order
+    void forEach(PositionVisitor visitor);
+
+    interface PositionVisitor {
+        void visit(String driverID, int x_coordinate, int y_coordinate);
+    }
+
+    default List<String> nearest(int x_coordinate, int y_coordinate, int k, double radius) {
+        NearestDrivers result = new NearestDrivers(k);
+        nearest(x_coordinate, y_coordinate, radius, result);
+
+        return result.toList();
+    }
+
+    default List<String> withinRadius(int x_coordinate, int y_coordinate, double radius) {
+        return nearest(x_coordinate, y_coordinate, Integer.MAX_VALUE, radius);
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.repository;
+
+import org.example.repository.index.GridIndex;
+import org.example.repository.index.KDTreeIndex;
+import org.example.repository.index.RTreeIndex;
+import org.example.repository.index.ShardedSpatialIndex;
+import org.example.utilities.DistanceUtility;
+
+public enum SpatialIndexType {
+    GRID, KD_TREE, R_TREE;
+
+    public SpatialIndex createIndex() {
+        return switch (this) {
+            case GRID -> new GridIndex((int) Math.ceil(DistanceUtility.MATCH_LIMIT));
+            case KD_TREE -> new KDTreeIndex();
+            case R_TREE -> new RTreeIndex();
+        };
+    }
+
+    // 0 shards means one per core. A sharded index keeps its drivers in one shard until the fleet reaches the
+    // parallel threshold, so small fleets are searched as if unsharded.
+    public SpatialIndex createIndex(int shards, int parallelThreshold) {
+        int shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        return shardCount > 1 ? new ShardedSpatialIndex(this, shardCount, parallelThreshold) : createIndex();
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.repository;
+
+import org.example.models.Driver;
+
+// A live view of one driver's row in DriverColumns; reads and updates go straight to the columns
+final class StoredDriver extends Driver {
+    private final DriverColumns columns;
+    private final int handle;
+
+    StoredDriver(DriverColumns columns, int handle) {
+        super(columns.x(handle), columns.y(handle));
+        this.columns = columns;
+        this.handle = handle;
+    }
+
+    @Override
+    public Version getVersion() {
+        return new Version(columns.x(handle), columns.y(handle), columns.isAvailable(handle), columns.rating(handle),
+                columns.ratingSum(handle), columns.ridesDone(handle));
+    }
+
+    @Override
+    public int[] getCoordinates() {
+        return new int[]{columns.x(handle), columns.y(handle)};
+    }
+
+    @Override
+    public int getX() {
+        return columns.x(handle);
+    }
+
+    @Override
+    public int getY() {
+        return columns.y(handle);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return columns.isAvailable(handle);
+    }
+
+    @Override
+    public void setAvailable(boolean available) {
+        columns.setAvailable(handle, available);
+    }
+
+    @Override
+    public long getEarningsPaise() {
+        return columns.earnings(handle);
+    }
+
+    @Override
+    public void setEarningsPaise(long paise) {
+        columns.setEarnings(handle, paise);
+    }
+
+    @Override
+    public float getRating() {
+        return columns.rating(handle);
+    }
+
+    @Override
+    public void setRating(float rating) {
+        columns.setRating(handle, rating);
+    }
+
+    @Override
+    public float getRatingSum() {
+        return columns.ratingSum(handle);
+    }
+
+    @Override
+    public void setRatingSum(float ratingSum) {
+        columns.setRatingSum(handle, ratingSum);
+    }
+
+    @Override
+    public int getRidesDone() {
+        return columns.ridesDone(handle);
+    }
+
+    @Override
+    public void setRidesDone(int ridesDone) {
+        columns.setRidesDone(handle, ridesDone);
+    }
+
+    @Override
+    public float updateDriverRating(float newRate) {
+        int ridesDone = columns.ridesDone(handle) + 1;
+        float ratingSum = columns.ratingSum(handle) + newRate;
+
+        columns.setRidesDone(handle, ridesDone);
+        columns.setRatingSum(handle, ratingSum);
+        columns.setRating(handle, ratingSum / ridesDone);
+
+        return columns.rating(handle);
+    }
+
+    @Override
+    public void addEarnings(long paise) {
+        columns.setEarnings(handle, columns.earnings(handle) + paise);
+    }
+
+    @Override
+    public void updateLocation(int x_coordinate, int y_coordinate) {
+        columns.setLocation(handle, x_coordinate, y_coordinate);
+    }
+
+    @Override
+    public void updateAvailability() {
+        columns.setAvailable(handle, !columns.isAvailable(handle));
+    }
+}
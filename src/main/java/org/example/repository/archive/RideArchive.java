@@ -0,0 +1,152 @@
+package org.example.repository.archive;
+
+import org.example.models.Ride;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Cold tier for settled rides. Archived rides collect in a small sorted buffer and are sealed into an
+// immutable segment file every segmentRides rides; the heap keeps only each segment's sparse index.
+public class RideArchive implements AutoCloseable {
+    public static final RideArchive NONE = new RideArchive();
+
+    private static final String SUFFIX = ".segment";
+
+    private final Path directory;
+    private final int segmentRides;
+    private final CopyOnWriteArrayList<RideSegment> segments = new CopyOnWriteArrayList<>();
+    private final ConcurrentSkipListMap<String, Ride> unsealed = new ConcurrentSkipListMap<>();
+    private final AtomicInteger unsealedCount = new AtomicInteger();
+    private int nextSegment;
+
+    private RideArchive() {
+        this.directory = null;
+        this.segmentRides = 0;
+    }
+
+    public RideArchive(Path directory, int segmentRides) {
+        this.directory = directory;
+        this.segmentRides = segmentRides;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Path file : segmentFiles()) {
+            segments.add(RideSegment.open(file));
+            nextSegment++;
+        }
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public void add(String rideID, Ride ride) {
+        if (unsealed.put(rideID, ride) == null && unsealedCount.incrementAndGet() >= segmentRides) {
+            seal(segmentRides);
+        }
+    }
+
+    // Newest tier first, so a ride that is being sealed is always found in one place or the other
+    public Ride find(String rideID) {
+        Ride ride = unsealed.get(rideID);
+        if (ride != null) {
+            return ride;
+        }
+
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            ride = segments.get(i).find(rideID);
+            if (ride != null) {
+                return ride;
+            }
+        }
+
+        return null;
+    }
+
+    public boolean contains(String rideID) {
+        if (unsealed.containsKey(rideID)) {
+            return true;
+        }
+
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (segments.get(i).contains(rideID)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Archived rides that are not in a segment file yet; snapshots carry these
+    public Map<String, Ride> getUnsealed() {
+        return Collections.unmodifiableMap(unsealed);
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized void clear() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            for (RideSegment segment : segments) {
+                Files.deleteIfExists(segment.file());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        segments.clear();
+        unsealed.clear();
+        unsealedCount.set(0);
+        nextSegment = 0;
+    }
+
+    // Seals whatever is left, so a clean shutdown leaves nothing archived only in memory
+    @Override
+    public void close() {
+        if (isEnabled()) {
+            seal(1);
+        }
+    }
+
+    private synchronized void seal(int minimumRides) {
+        if (unsealedCount.get() < minimumRides) {
+            return;
+        }
+
+        TreeMap<String, Ride> batch = new TreeMap<>(unsealed);
+        Path file = directory.resolve(String.format("rides-%08d%s", nextSegment++, SUFFIX));
+        segments.add(RideSegment.write(file, batch));
+
+        for (String rideID : batch.keySet()) {
+            unsealed.remove(rideID);
+        }
+        unsealedCount.addAndGet(-batch.size());
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.repository.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class RideArchiveConfig {
+
+    // Settled rides move to segment files once riderapp.ride-archive.path is set
+    @Bean(destroyMethod = "close")
+    public RideArchive rideArchive(
+            @Value("${riderapp.ride-archive.path:}") String path,
+            @Value("${riderapp.ride-archive.segment-rides:4096}") int segmentRides
+    ) {
+        return path.isBlank() ? RideArchive.NONE : new RideArchive(Path.of(path), segmentRides);
+    }
+}
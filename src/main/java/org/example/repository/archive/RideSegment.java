@@ -0,0 +1,260 @@
+package org.example.repository.archive;
+
+import org.example.models.Fare;
+import org.example.models.Ride;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Immutable, memory-mapped file of rides sorted by ride ID: [magic][count] then [length][id][ride fields] records.
+// The heap keeps every SPARSE_EVERY-th ID with its offset, plus a Bloom filter that answers most misses
+// without touching the file; a lookup then scans at most SPARSE_EVERY records.
+final class RideSegment {
+    private static final int SPARSE_EVERY = 32;
+    private static final int BLOOM_BITS_PER_RIDE = 10;
+    private static final int MAGIC = 0x52534731;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final String[] sparseIDs;
+    private final int[] sparseOffsets;
+    private final long[] bloom;
+    private final int count;
+
+    private RideSegment(Path file, MappedByteBuffer data, String[] sparseIDs, int[] sparseOffsets, long[] bloom, int count) {
+        this.file = file;
+        this.data = data;
+        this.sparseIDs = sparseIDs;
+        this.sparseOffsets = sparseOffsets;
+        this.bloom = bloom;
+        this.count = count;
+    }
+
+    static RideSegment write(Path file, SortedMap<String, Ride> rides) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(1 << 20);
+            out.putInt(MAGIC).putInt(rides.size());
+
+            for (Map.Entry<String, Ride> entry : rides.entrySet()) {
+                if (out.remaining() < 4_096) {
+                    drain(out, channel);
+                }
+
+                Ride ride = entry.getValue();
+                int start = out.position();
+                out.position(start + 4);
+                putString(out, entry.getKey());
+                putString(out, ride.getRiderID());
+                putString(out, ride.getDriverID());
+                out.putInt(ride.getDestinationCoordinates()[0]).putInt(ride.getDestinationCoordinates()[1])
+                        .putInt(ride.getTimeTakenInMins()).putFloat(ride.getBill());
+
+                int[] startCoordinates = ride.getStartCoordinates();
+                out.putFloat(ride.getSurge()).putInt(ride.getStartHour()).put((byte) (startCoordinates != null ? 1 : 0));
+                if (startCoordinates != null) {
+                    out.putInt(startCoordinates[0]).putInt(startCoordinates[1]);
+                }
+                Fare fare = ride.getFare();
+                out.put((byte) (fare != null ? 1 : 0));
+                if (fare != null) {
+                    out.putDouble(fare.baseFare()).putDouble(fare.distanceFare()).putDouble(fare.timeFare())
+                            .putDouble(fare.serviceTax()).putFloat(fare.surge()).putFloat(fare.total());
+                }
+                out.putInt(start, out.position() - start - 4);
+            }
+
+            drain(out, channel);
+            channel.force(true);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return open(file);
+    }
+
+    static RideSegment open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != MAGIC) {
+                throw new IllegalStateException("INVALID_RIDE_SEGMENT " + file);
+            }
+            int count = data.getInt(4);
+            int offset = 8;
+            List<String> sparseIDs = new ArrayList<>();
+            List<Integer> sparseOffsets = new ArrayList<>();
+            long[] bloom = new long[Math.max(1, (count * BLOOM_BITS_PER_RIDE + 63) / 64)];
+
+            for (int i = 0; i < count; i++) {
+                String rideID = getString(data, offset + 4);
+                if (i % SPARSE_EVERY == 0) {
+                    sparseIDs.add(rideID);
+                    sparseOffsets.add(offset);
+                }
+                addToBloom(bloom, rideID);
+                offset += 4 + data.getInt(offset);
+            }
+
+            return new RideSegment(file, data, sparseIDs.toArray(new String[0]),
+                    sparseOffsets.stream().mapToInt(Integer::intValue).toArray(), bloom, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Ride find(String rideID) {
+        int offset = offsetOf(rideID);
+        if (offset < 0) {
+            return null;
+        }
+
+        ByteBuffer record = data.slice(offset + 4, data.getInt(offset));
+        getString(record);
+        Ride ride = new Ride(getString(record), getString(record));
+        ride.finishRide(record.getInt(), record.getInt(), record.getInt());
+        ride.setBill(record.getFloat());
+        ride.setSurge(record.getFloat());
+        ride.setStartHour(record.getInt());
+        if (record.get() == 1) {
+            ride.setStartCoordinates(new int[]{record.getInt(), record.getInt()});
+        }
+        if (record.get() == 1) {
+            ride.setFare(new Fare(record.getDouble(), record.getDouble(), record.getDouble(), record.getDouble(),
+                    record.getFloat(), record.getFloat()));
+        }
+        return ride;
+    }
+
+    boolean contains(String rideID) {
+        return offsetOf(rideID) >= 0;
+    }
+
+    private int offsetOf(String rideID) {
+        if (count == 0 || !mightContain(bloom, rideID)) {
+            return -1;
+        }
+
+        int block = binarySearch(rideID);
+        if (block < 0) {
+            return -1;
+        }
+
+        // Compares encoded bytes in place rather than decoding every ID in the block
+        byte[] key = rideID.getBytes(StandardCharsets.UTF_8);
+        int offset = sparseOffsets[block];
+        int end = Math.min(count, (block + 1) * SPARSE_EVERY);
+        for (int i = block * SPARSE_EVERY; i < end; i++) {
+            if (matches(offset + 4, key)) {
+                return offset;
+            }
+            offset += 4 + data.getInt(offset);
+        }
+
+        return -1;
+    }
+
+    private boolean matches(int position, byte[] key) {
+        if (data.getShort(position) != key.length) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length; i++) {
+            if (data.get(position + 2 + i) != key[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    int size() {
+        return count;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    // Last sparse entry whose ID is not after rideID, or -1 when rideID sorts before the whole segment
+    private int binarySearch(String rideID) {
+        int low = 0;
+        int high = sparseIDs.length - 1;
+        int found = -1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (sparseIDs[middle].compareTo(rideID) <= 0) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return found;
+    }
+
+    private static void addToBloom(long[] bloom, String rideID) {
+        long bits = bloom.length * 64L;
+        int hash = rideID.hashCode();
+        int step = (hash >>> 16) | 1;
+        for (int i = 0; i < 3; i++) {
+            long bit = Math.floorMod(hash + (long) i * step, bits);
+            bloom[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private static boolean mightContain(long[] bloom, String rideID) {
+        long bits = bloom.length * 64L;
+        int hash = rideID.hashCode();
+        int step = (hash >>> 16) | 1;
+        for (int i = 0; i < 3; i++) {
+            long bit = Math.floorMod(hash + (long) i * step, bits);
+            if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void drain(ByteBuffer out, FileChannel channel) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in, int offset) {
+        byte[] bytes = new byte[in.getShort(offset)];
+        in.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.repository.archive;
+
+import org.example.models.Ride;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Ride map that keeps active rides in the hot map and falls back to the archive for settled ones.
+// Archived rides are immutable: they come back as detached copies, and re-adding one is ignored.
+public class TieredRideMap extends AbstractMap<String, Ride> {
+    private final Map<String, Ride> hot;
+    private final RideArchive archive;
+
+    public TieredRideMap(Map<String, Ride> hot, RideArchive archive) {
+        this.hot = hot;
+        this.archive = archive;
+    }
+
+    // Adds the ride to the archive before dropping it from the hot map, so lookups never miss it
+    public void archive(String rideID) {
+        Ride ride = hot.get(rideID);
+        if (ride == null || !ride.isFinished()) {
+            return;
+        }
+
+        archive.add(rideID, ride);
+        hot.remove(rideID);
+    }
+
+    @Override
+    public Ride get(Object rideID) {
+        Ride ride = hot.get(rideID);
+        if (ride == null && rideID instanceof String) {
+            ride = archive.find((String) rideID);
+        }
+        return ride;
+    }
+
+    @Override
+    public boolean containsKey(Object rideID) {
+        return hot.containsKey(rideID) || (rideID instanceof String && archive.contains((String) rideID));
+    }
+
+    // Replay and snapshot restore hand back rides that were archived before the restart
+    @Override
+    public Ride put(String rideID, Ride ride) {
+        if (archive.contains(rideID)) {
+            return null;
+        }
+        return hot.put(rideID, ride);
+    }
+
+    @Override
+    public Ride putIfAbsent(String rideID, Ride ride) {
+        Ride archived = archive.find(rideID);
+        if (archived != null) {
+            return archived;
+        }
+        return hot.putIfAbsent(rideID, ride);
+    }
+
+    @Override
+    public Ride remove(Object rideID) {
+        return hot.remove(rideID);
+    }
+
+    @Override
+    public void clear() {
+        hot.clear();
+    }
+
+    public int hotSize() {
+        return hot.size();
+    }
+
+    // Hot rides plus the archived rides that are not sealed yet, so a snapshot never drops those
+    @Override
+    public Set<Entry<String, Ride>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Ride>> iterator() {
+                return Stream.concat(hot.entrySet().stream(), archive.getUnsealed().entrySet().stream()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return hot.size() + archive.getUnsealed().size();
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.repository.index;
+
+import org.example.repository.NearestDrivers;
+import org.example.repository.SpatialIndex;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Lets any number of matches query the wrapped index together while driver moves take turns
+public class ConcurrentSpatialIndex implements SpatialIndex {
+    private final SpatialIndex index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentSpatialIndex(SpatialIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void insert(String driverID, int x_coordinate, int y_coordinate) {
+        lock.writeLock().lock();
+        try {
+            index.insert(driverID, x_coordinate, y_coordinate);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String driverID) {
+        lock.writeLock().lock();
+        try {
+            index.remove(driverID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void nearest(int x_coordinate, int y_coordinate, double radius, NearestDrivers result) {
+        lock.readLock().lock();
+        try {
+            index.nearest(x_coordinate, y_coordinate, radius, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(PositionVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            index.forEach(visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.repository.index;
+
+import org.example.repository.NearestDrivers;
+import org.example.repository.SpatialIndex;
+import org.example.utilities.DistanceUtility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class GridIndex implements SpatialIndex {
+    private final int cellSize;
+    private final HashMap<Long, List<Entry>> cells = new HashMap<>();
+    private final HashMap<String, Entry> entries = new HashMap<>();
+
+    public GridIndex(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    @Override
+    public void insert(String driverID, int x_coordinate, int y_coordinate) {
+        remove(driverID);
+
+        long cell = cellKey(Math.floorDiv(x_coordinate, cellSize), Math.floorDiv(y_coordinate, cellSize));
+        Entry entry = new Entry(driverID, x_coordinate, y_coordinate, cell);
+
+        cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(entry);
+        entries.put(driverID, entry);
+    }
+
+    @Override
+    public void remove(String driverID) {
+        Entry entry = entries.remove(driverID);
+        if (entry == null) {
+            return;
+        }
+
+        List<Entry> bucket = cells.get(entry.cell());
+        bucket.remove(entry);
+        if (bucket.isEmpty()) {
+            cells.remove(entry.cell());
+        }
+    }
+
+    // With the default cell size equal to the match limit this is the 3x3 block around the point
+    @Override
+    public void nearest(int x_coordinate, int y_coordinate, double radius, NearestDrivers result) {
+        result.reset(radius);
+        int rings = (int) Math.ceil(radius / cellSize);
+        int cellX = Math.floorDiv(x_coordinate, cellSize);
+        int cellY = Math.floorDiv(y_coordinate, cellSize);
+
+        for (int dx = -rings; dx <= rings; dx++) {
+            for (int dy = -rings; dy <= rings; dy++) {
+                List<Entry> bucket = cells.get(cellKey(cellX + dx, cellY + dy));
+                if (bucket == null) {
+                    continue;
+                }
+
+                for (int i = 0; i < bucket.size(); i++) {
+                    Entry entry = bucket.get(i);
+                    result.offer(entry.driverID(), DistanceUtility.distanceSquared(
+                            x_coordinate, y_coordinate, entry.x(), entry.y()));
+                }
+            }
+        }
+
+        result.sort();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void forEach(PositionVisitor visitor) {
+        for (Entry entry : entries.values()) {
+            visitor.visit(entry.driverID(), entry.x(), entry.y());
+        }
+    }
+
+    @Override
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private record Entry(String driverID, int x, int y, long cell) {
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.repository.index;
+
+import org.example.repository.NearestDrivers;
+import org.example.repository.SpatialIndex;
+import org.example.utilities.DistanceUtility;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+public class KDTreeIndex implements SpatialIndex {
+    private static final int MIN_REBUILD_SIZE = 64;
+
+    private final HashMap<String, Node> nodes = new HashMap<>();
+    private Node root;
+    private int deletedNodes;
+    private int insertsSinceRebuild;
+
+    @Override
+    public void insert(String driverID, int x_coordinate, int y_coordinate) {
+        remove(driverID);
+
+        Node node = new Node(driverID, x_coordinate, y_coordinate);
+        nodes.put(driverID, node);
+        insertsSinceRebuild++;
+
+        if (root == null) {
+            root = node;
+        } else {
+            Node current = root;
+            int depth = 0;
+
+            while (true) {
+                boolean goLeft = depth % 2 == 0 ? x_coordinate < current.x : y_coordinate < current.y;
+                Node next = goLeft ? current.left : current.right;
+
+                if (next == null) {
+                    if (goLeft) {
+                        current.left = node;
+                    } else {
+                        current.right = node;
+                    }
+                    break;
+                }
+
+                current = next;
+                depth++;
+            }
+        }
+
+        rebuildIfUnbalanced();
+    }
+
+    @Override
+    public void remove(String driverID) {
+        Node node = nodes.remove(driverID);
+        if (node == null) {
+            return;
+        }
+
+        // Removed nodes stay in the tree as split points until the next rebuild
+        node.deleted = true;
+        deletedNodes++;
+
+        rebuildIfUnbalanced();
+    }
+
+    @Override
+    public void nearest(int x_coordinate, int y_coordinate, double radius, NearestDrivers result) {
+        result.reset(radius);
+        search(x_coordinate, y_coordinate, result);
+        result.sort();
+    }
+
+    // Depth-first with an explicit stack, since a run of sorted inserts can chain the tree far deeper than the
+    // call stack allows before the next rebuild. The far side of a split is pushed with its squared distance
+    // to the split and skipped when popped if the bound has since shrunk below it.
+    private void search(int x_coordinate, int y_coordinate, NearestDrivers result) {
+        if (root == null) {
+            return;
+        }
+
+        SearchStack stack = SEARCH_STACK.get();
+        stack.push(root, 0, 0);
+        while (stack.size > 0) {
+            int top = --stack.size;
+            Node node = stack.nodes[top];
+            int depth = stack.depths[top];
+            long gate = stack.gates[top];
+            stack.nodes[top] = null;
+
+            if (gate > result.bound()) {
+                continue;
+            }
+
+            if (!node.deleted) {
+                result.offer(node.driverID, DistanceUtility.distanceSquared(x_coordinate, y_coordinate, node.x, node.y));
+            }
+
+            long diff = depth % 2 == 0 ? (long) x_coordinate - node.x : (long) y_coordinate - node.y;
+            Node near = diff < 0 ? node.left : node.right;
+            Node far = diff < 0 ? node.right : node.left;
+
+            if (far != null) {
+                stack.push(far, depth + 1, diff * diff);
+            }
+            if (near != null) {
+                stack.push(near, depth + 1, 0);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public void forEach(PositionVisitor visitor) {
+        for (Node node : nodes.values()) {
+            visitor.visit(node.driverID, node.x, node.y);
+        }
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        root = null;
+        deletedNodes = 0;
+        insertsSinceRebuild = 0;
+    }
+
+    private void rebuildIfUnbalanced() {
+        int live = nodes.size();
+        if (deletedNodes < Math.max(live, MIN_REBUILD_SIZE) && insertsSinceRebuild < Math.max(live, MIN_REBUILD_SIZE)) {
+            return;
+        }
+
+        Node[] liveNodes = nodes.values().toArray(new Node[0]);
+        for (Node node : liveNodes) {
+            node.left = null;
+            node.right = null;
+        }
+
+        root = build(liveNodes, 0, liveNodes.length, 0);
+        deletedNodes = 0;
+        insertsSinceRebuild = 0;
+    }
+
+    private static Node build(Node[] points, int from, int to, int depth) {
+        if (from >= to) {
+            return null;
+        }
+
+        Comparator<Node> axis = depth % 2 == 0 ? Comparator.comparingInt(node -> node.x) : Comparator.comparingInt(node -> node.y);
+        Arrays.sort(points, from, to, axis);
+
+        // Equal coordinates must end up on the right, matching the insert path
+        int median = (from + to) >>> 1;
+        while (median > from && axis.compare(points[median - 1], points[median]) == 0) {
+            median--;
+        }
+
+        Node node = points[median];
+        node.left = build(points, from, median, depth + 1);
+        node.right = build(points, median + 1, to, depth + 1);
+
+        return node;
+    }
+
+    // One per thread, since matches search the tree together under ConcurrentSpatialIndex's read lock
+    private static final ThreadLocal<SearchStack> SEARCH_STACK = ThreadLocal.withInitial(SearchStack::new);
+
+    private static final class SearchStack {
+        private Node[] nodes = new Node[64];
+        private int[] depths = new int[64];
+        private long[] gates = new long[64];
+        private int size;
+
+        private void push(Node node, int depth, long gate) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                depths = Arrays.copyOf(depths, size * 2);
+                gates = Arrays.copyOf(gates, size * 2);
+            }
+
+            nodes[size] = node;
+            depths[size] = depth;
+            gates[size] = gate;
+            size++;
+        }
+    }
+
+    private static final class Node {
+        private final String driverID;
+        private final int x;
+        private final int y;
+        private boolean deleted;
+        private Node left;
+        private Node right;
+
+        private Node(String driverID, int x, int y) {
+            this.driverID = driverID;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
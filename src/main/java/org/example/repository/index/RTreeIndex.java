@@ -0,0 +1,274 @@
+package org.example.repository.index;
+
+import org.example.repository.NearestDrivers;
+import org.example.repository.SpatialIndex;
+import org.example.utilities.DistanceUtility;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+public class RTreeIndex implements SpatialIndex {
+    private static final int MAX_ENTRIES = 16;
+
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private Node root = new Node(true);
+
+    @Override
+    public void insert(String driverID, int x_coordinate, int y_coordinate) {
+        remove(driverID);
+
+        Entry entry = new Entry(driverID, x_coordinate, y_coordinate);
+        entries.put(driverID, entry);
+
+        Node leaf = chooseLeaf(x_coordinate, y_coordinate);
+        leaf.entries.add(entry);
+        entry.leaf = leaf;
+
+        Node node = leaf;
+        while (node != null) {
+            node.include(x_coordinate, y_coordinate, x_coordinate, y_coordinate);
+            node = node.parent;
+        }
+
+        if (leaf.entries.size() > MAX_ENTRIES) {
+            split(leaf);
+        }
+    }
+
+    @Override
+    public void remove(String driverID) {
+        Entry entry = entries.remove(driverID);
+        if (entry == null) {
+            return;
+        }
+
+        Node node = entry.leaf;
+        node.entries.remove(entry);
+
+        // Empty nodes are unlinked; the rest only shrink their bounds
+        while (node.parent != null && node.isEmpty()) {
+            Node parent = node.parent;
+            parent.children.remove(node);
+            node = parent;
+        }
+
+        while (node != null) {
+            node.recomputeBounds();
+            node = node.parent;
+        }
+
+        while (!root.leaf && root.children.size() == 1) {
+            root = root.children.get(0);
+            root.parent = null;
+        }
+        if (!root.leaf && root.children.isEmpty()) {
+            root = new Node(true);
+        }
+    }
+
+    @Override
+    public void nearest(int x_coordinate, int y_coordinate, double radius, NearestDrivers result) {
+        result.reset(radius);
+        search(root, x_coordinate, y_coordinate, result);
+        result.sort();
+    }
+
+    private void search(Node node, int x_coordinate, int y_coordinate, NearestDrivers result) {
+        if (node.isEmpty() || node.minDistanceSquared(x_coordinate, y_coordinate) > result.bound()) {
+            return;
+        }
+
+        if (node.leaf) {
+            for (int i = 0; i < node.entries.size(); i++) {
+                Entry entry = node.entries.get(i);
+                result.offer(entry.driverID, DistanceUtility.distanceSquared(x_coordinate, y_coordinate, entry.x, entry.y));
+            }
+        } else {
+            for (int i = 0; i < node.children.size(); i++) {
+                search(node.children.get(i), x_coordinate, y_coordinate, result);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void forEach(PositionVisitor visitor) {
+        for (Entry entry : entries.values()) {
+            visitor.visit(entry.driverID, entry.x, entry.y);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        root = new Node(true);
+    }
+
+    private Node chooseLeaf(int x_coordinate, int y_coordinate) {
+        Node node = root;
+
+        while (!node.leaf) {
+            Node best = null;
+            long bestEnlargement = Long.MAX_VALUE;
+            long bestArea = Long.MAX_VALUE;
+
+            for (Node child : node.children) {
+                long area = child.area();
+                long enlargement = child.areaIncluding(x_coordinate, y_coordinate) - area;
+
+                if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                    best = child;
+                    bestEnlargement = enlargement;
+                    bestArea = area;
+                }
+            }
+
+            node = best;
+        }
+
+        return node;
+    }
+
+    // Sorts the overflowing node along its wider axis and moves the upper half into a new sibling
+    private void split(Node node) {
+        Node sibling = new Node(node.leaf);
+        boolean byX = (long) node.maxX - node.minX >= (long) node.maxY - node.minY;
+
+        if (node.leaf) {
+            node.entries.sort(byX ? Comparator.comparingInt(Entry::x) : Comparator.comparingInt(Entry::y));
+            List<Entry> upper = node.entries.subList(node.entries.size() / 2, node.entries.size());
+
+            for (Entry entry : upper) {
+                sibling.entries.add(entry);
+                entry.leaf = sibling;
+            }
+            upper.clear();
+        } else {
+            node.children.sort(byX ? Comparator.comparingLong(Node::centreX) : Comparator.comparingLong(Node::centreY));
+            List<Node> upper = node.children.subList(node.children.size() / 2, node.children.size());
+
+            for (Node child : upper) {
+                sibling.children.add(child);
+                child.parent = sibling;
+            }
+            upper.clear();
+        }
+
+        node.recomputeBounds();
+        sibling.recomputeBounds();
+
+        if (node.parent == null) {
+            Node newRoot = new Node(false);
+            newRoot.children.add(node);
+            newRoot.children.add(sibling);
+            node.parent = newRoot;
+            sibling.parent = newRoot;
+            newRoot.recomputeBounds();
+            root = newRoot;
+            return;
+        }
+
+        Node parent = node.parent;
+        parent.children.add(sibling);
+        sibling.parent = parent;
+
+        if (parent.children.size() > MAX_ENTRIES) {
+            split(parent);
+        }
+    }
+
+    private static final class Entry {
+        private final String driverID;
+        private final int x;
+        private final int y;
+        private Node leaf;
+
+        private Entry(String driverID, int x, int y) {
+            this.driverID = driverID;
+            this.x = x;
+            this.y = y;
+        }
+
+        private int x() {
+            return x;
+        }
+
+        private int y() {
+            return y;
+        }
+    }
+
+    private static final class Node {
+        private final boolean leaf;
+        private final List<Entry> entries;
+        private final List<Node> children;
+        private Node parent;
+        private int minX = Integer.MAX_VALUE;
+        private int minY = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE;
+        private int maxY = Integer.MIN_VALUE;
+
+        private Node(boolean leaf) {
+            this.leaf = leaf;
+            this.entries = leaf ? new ArrayList<>(MAX_ENTRIES + 1) : null;
+            this.children = leaf ? null : new ArrayList<>(MAX_ENTRIES + 1);
+        }
+
+        private boolean isEmpty() {
+            return leaf ? entries.isEmpty() : children.isEmpty();
+        }
+
+        private void include(int minX, int minY, int maxX, int maxY) {
+            this.minX = Math.min(this.minX, minX);
+            this.minY = Math.min(this.minY, minY);
+            this.maxX = Math.max(this.maxX, maxX);
+            this.maxY = Math.max(this.maxY, maxY);
+        }
+
+        private void recomputeBounds() {
+            minX = Integer.MAX_VALUE;
+            minY = Integer.MAX_VALUE;
+            maxX = Integer.MIN_VALUE;
+            maxY = Integer.MIN_VALUE;
+
+            if (leaf) {
+                for (Entry entry : entries) {
+                    include(entry.x, entry.y, entry.x, entry.y);
+                }
+            } else {
+                for (Node child : children) {
+                    include(child.minX, child.minY, child.maxX, child.maxY);
+                }
+            }
+        }
+
+        private long area() {
+            return ((long) maxX - minX) * ((long) maxY - minY);
+        }
+
+        private long areaIncluding(int x, int y) {
+            return ((long) Math.max(maxX, x) - Math.min(minX, x)) * ((long) Math.max(maxY, y) - Math.min(minY, y));
+        }
+
+        private long centreX() {
+            return ((long) minX + maxX) / 2;
+        }
+
+        private long centreY() {
+            return ((long) minY + maxY) / 2;
+        }
+
+        private long minDistanceSquared(int x, int y) {
+            long dx = Math.max(0, Math.max((long) minX - x, (long) x - maxX));
+            long dy = Math.max(0, Math.max((long) minY - y, (long) y - maxY));
+
+            return dx * dx + dy * dy;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.repository.index;
+
+import org.example.repository.NearestDrivers;
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Spreads drivers over independent shards by driver ID. Below the parallel threshold the drivers stay in one
+// shard and queries go straight to it. Once the fleet reaches the threshold they are split over all shards,
+// and queries search them concurrently and merge the per-shard nearest drivers. That yields exactly the
+// sequential result because every shard applies the same distance and driver ID ordering. A fleet that falls
+// below half the threshold is merged back into one shard.
+public class ShardedSpatialIndex implements SpatialIndex {
+    private final SpatialIndexType type;
+    private final int shardCount;
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    // Per-shard heaps for the querying thread, so a sharded match allocates no heaps once they are sized
+    private final ThreadLocal<NearestDrivers[]> shardResults = new ThreadLocal<>();
+
+    private SpatialIndex[] shards;
+
+    public ShardedSpatialIndex(SpatialIndexType type, int shardCount, int parallelThreshold) {
+        this.type = type;
+        this.shardCount = shardCount;
+        this.parallelThreshold = parallelThreshold;
+        this.shards = new SpatialIndex[]{type.createIndex()};
+        this.pool = new ForkJoinPool(Math.min(shardCount, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public void insert(String driverID, int x_coordinate, int y_coordinate) {
+        shardOf(driverID).insert(driverID, x_coordinate, y_coordinate);
+
+        if (shards.length == 1 && shards[0].size() >= parallelThreshold) {
+            reshard(shardCount);
+        }
+    }
+
+    @Override
+    public void remove(String driverID) {
+        shardOf(driverID).remove(driverID);
+
+        if (shards.length > 1 && size() < parallelThreshold / 2) {
+            reshard(1);
+        }
+    }
+
+    @Override
+    public void nearest(int x_coordinate, int y_coordinate, double radius, NearestDrivers result) {
+        SpatialIndex[] current = shards;
+        if (current.length == 1) {
+            current[0].nearest(x_coordinate, y_coordinate, radius, result);
+            return;
+        }
+
+        NearestDrivers[] heaps = shardResults.get();
+        if (heaps == null || heaps.length != current.length || heaps[0].capacity() != result.capacity()) {
+            heaps = new NearestDrivers[current.length];
+            for (int i = 0; i < heaps.length; i++) {
+                heaps[i] = new NearestDrivers(result.capacity());
+            }
+            shardResults.set(heaps);
+        }
+
+        pool.invoke(new ShardSearch(current, x_coordinate, y_coordinate, radius, heaps, 0, current.length));
+
+        result.reset(radius);
+        for (NearestDrivers shardResult : heaps) {
+            for (int i = 0; i < shardResult.size(); i++) {
+                result.offer(shardResult.driverAt(i), shardResult.distanceSquaredAt(i));
+            }
+        }
+        result.sort();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (SpatialIndex shard : shards) {
+            size += shard.size();
+        }
+
+        return size;
+    }
+
+    @Override
+    public void forEach(PositionVisitor visitor) {
+        for (SpatialIndex shard : shards) {
+            shard.forEach(visitor);
+        }
+    }
+
+    @Override
+    public void clear() {
+        shards = new SpatialIndex[]{type.createIndex()};
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private void reshard(int count) {
+        SpatialIndex[] resharded = new SpatialIndex[count];
+        for (int i = 0; i < count; i++) {
+            resharded[i] = type.createIndex();
+        }
+
+        forEach((driverID, x_coordinate, y_coordinate) ->
+                resharded[Math.floorMod(driverID.hashCode(), count)].insert(driverID, x_coordinate, y_coordinate));
+        shards = resharded;
+    }
+
+    private SpatialIndex shardOf(String driverID) {
+        return shards[Math.floorMod(driverID.hashCode(), shards.length)];
+    }
+
+    private static class ShardSearch extends RecursiveAction {
+        private final SpatialIndex[] shards;
+        private final int x_coordinate;
+        private final int y_coordinate;
+        private final double radius;
+        private final NearestDrivers[] shardResults;
+        private final int from;
+        private final int to;
+
+        private ShardSearch(SpatialIndex[] shards, int x_coordinate, int y_coordinate, double radius,
+                            NearestDrivers[] shardResults, int from, int to) {
+            this.shards = shards;
+            this.x_coordinate = x_coordinate;
+            this.y_coordinate = y_coordinate;
+            this.radius = radius;
+            this.shardResults = shardResults;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                shards[from].nearest(x_coordinate, y_coordinate, radius, shardResults[from]);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new ShardSearch(shards, x_coordinate, y_coordinate, radius, shardResults, from, middle),
+                    new ShardSearch(shards, x_coordinate, y_coordinate, radius, shardResults, middle, to)
+            );
+        }
+    }
+}
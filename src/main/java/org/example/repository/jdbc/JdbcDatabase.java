@@ -0,0 +1,113 @@
+package org.example.repository.jdbc;
+
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.repository.Database;
+import org.example.repository.DriverRanking;
+import org.example.repository.MatchSessions;
+import org.example.repository.PaymentLedger;
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.wal.WriteAheadLog;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+// SQL-backed Database: a ConcurrentInMemoryDB serves every read and write, and a write-behind store copies each
+// change into the SQL tables off the request path. On startup the cache is loaded from the tables. Riders,
+// drivers, rides and an append-only payments table stay queryable in the database for audit.
+@Repository
+@Profile("jdbc")
+public class JdbcDatabase implements Database, DisposableBean {
+    private final WriteBehindStore store;
+    private final ConcurrentInMemoryDB cache;
+
+    public JdbcDatabase(String url) {
+        this(url, 512, SpatialIndexType.GRID);
+    }
+
+    @Autowired
+    public JdbcDatabase(
+            @Value("${riderapp.jdbc.url:jdbc:h2:./riderapp}") String url,
+            @Value("${riderapp.jdbc.batch-size:512}") int batchSize,
+            @Value("${riderapp.spatial-index:GRID}") SpatialIndexType spatialIndexType
+    ) {
+        this.store = new WriteBehindStore(url, batchSize);
+        this.cache = new ConcurrentInMemoryDB(spatialIndexType, 1, Integer.MAX_VALUE, MatchSessions.DEFAULT_TTL_SECONDS,
+                store, RideArchive.NONE);
+        store.attach(cache);
+    }
+
+    // Waits until every change made so far is committed to the tables
+    public void flush() {
+        store.flush();
+    }
+
+    @Override
+    public void connect() {
+        System.out.println("CONNECTED TO JDBC DATABASE");
+    }
+
+    @Override
+    public void reset() {
+        cache.reset();
+    }
+
+    @Override
+    public void destroy() {
+        store.close();
+    }
+
+    @Override
+    public Map<String, Rider> getRiderDetails() {
+        return cache.getRiderDetails();
+    }
+
+    @Override
+    public Map<String, Driver> getDriverDetails() {
+        return cache.getDriverDetails();
+    }
+
+    @Override
+    public Map<String, Ride> getRideDetails() {
+        return cache.getRideDetails();
+    }
+
+    @Override
+    public Map<String, List<String>> getRiderDriverMapping() {
+        return cache.getRiderDriverMapping();
+    }
+
+    @Override
+    public void archiveRide(String rideID) {
+        cache.archiveRide(rideID);
+    }
+
+    @Override
+    public PaymentLedger getPaymentLedger() {
+        return cache.getPaymentLedger();
+    }
+
+    @Override
+    public WriteAheadLog getWriteAheadLog() {
+        return store;
+    }
+
+    @Override
+    public SpatialIndex getDriverIndex() {
+        return cache.getDriverIndex();
+    }
+
+    @Override
+    public DriverRanking getDriverRanking() {
+        return cache.getDriverRanking();
+    }
+}
@@ -0,0 +1,519 @@
+package org.example.repository.jdbc;
+
+import org.example.models.Driver;
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.Database;
+import org.example.repository.wal.WriteAheadLog;
+import org.example.utilities.Money;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind SQL store behind the services' log calls. A call only queues an operation. One writer thread
+// drains the queue and writes each drain as JDBC batches in a single transaction, so callers never wait on the
+// database. A full queue makes callers wait until the writer catches up.
+final class WriteBehindStore implements WriteAheadLog {
+    private static final int QUEUE_CAPACITY = 1 << 16;
+
+    // IDs are unbounded VARCHAR so no ID the services accept can fail a write; money is DECIMAL like the balances
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS drivers (id VARCHAR PRIMARY KEY, x INT, y INT, rating REAL,"
+                    + " rating_sum REAL, rides_done INT, earnings DECIMAL(19, 2))",
+            "CREATE TABLE IF NOT EXISTS riders (id VARCHAR PRIMARY KEY, x INT, y INT, wallet DECIMAL(19, 2))",
+            // A ride keeps what it was quoted at its start, and its fare's parts once billed; bill is the total
+            "CREATE TABLE IF NOT EXISTS rides (id VARCHAR PRIMARY KEY, rider_id VARCHAR, driver_id VARCHAR,"
+                    + " finished BOOLEAN, dest_x INT, dest_y INT, time_taken INT, bill DECIMAL(19, 2), surge REAL,"
+                    + " start_hour INT, start_x INT, start_y INT, base_fare DOUBLE PRECISION,"
+                    + " distance_fare DOUBLE PRECISION, time_fare DOUBLE PRECISION, service_tax DOUBLE PRECISION,"
+                    + " fare_surge REAL)",
+            "CREATE TABLE IF NOT EXISTS payments (seq BIGINT AUTO_INCREMENT PRIMARY KEY, ride_id VARCHAR,"
+                    + " driver_earnings DECIMAL(19, 2), from_wallet BOOLEAN, wallet_amount DECIMAL(19, 2), paid_at TIMESTAMP)",
+            "CREATE INDEX IF NOT EXISTS payments_ride ON payments (ride_id)",
+            // Operations the database refused, kept for an operator to replay or discard by hand
+            "CREATE TABLE IF NOT EXISTS rejected_writes (seq BIGINT AUTO_INCREMENT PRIMARY KEY, operation VARCHAR,"
+                    + " entity_id VARCHAR, parameters VARCHAR, error VARCHAR, rejected_at TIMESTAMP)"
+    };
+    private static final String RECORD_REJECTED = "INSERT INTO rejected_writes (operation, entity_id, parameters, error,"
+            + " rejected_at) VALUES (?, ?, ?, ?, ?)";
+
+    private enum Entity { DRIVER, RIDER, RIDE }
+
+    // Declared in the order one entity's changes happen in, which is the order a group is written in
+    private enum Operation {
+        ADD_DRIVER(Entity.DRIVER, true, "MERGE INTO drivers KEY (id) VALUES (?, ?, ?, 0, 0, 0, 0)"),
+        ADD_RIDER(Entity.RIDER, true, "MERGE INTO riders KEY (id) VALUES (?, ?, ?, 0)"),
+        MOVE_DRIVER(Entity.DRIVER, false, "UPDATE drivers SET x = ?, y = ? WHERE id = ?"),
+        START_RIDE(Entity.RIDE, false, "INSERT INTO rides (id, rider_id, driver_id, finished, bill, surge, start_hour,"
+                + " start_x, start_y) VALUES (?, ?, ?, FALSE, 0, ?, ?, ?, ?)"),
+        STOP_RIDE(Entity.RIDE, false, "UPDATE rides SET finished = TRUE, dest_x = ?, dest_y = ?, time_taken = ? WHERE id = ?"),
+        BILL_RIDE(Entity.RIDE, false, "UPDATE rides SET bill = ?, base_fare = ?, distance_fare = ?, time_fare = ?,"
+                + " service_tax = ?, fare_surge = ? WHERE id = ?"),
+        RATE_DRIVER(Entity.DRIVER, false, "UPDATE drivers SET rating = ?, rating_sum = ?, rides_done = ? WHERE id = ?"),
+        SET_EARNINGS(Entity.DRIVER, false, "UPDATE drivers SET earnings = ? WHERE id = ?"),
+        SET_WALLET(Entity.RIDER, false, "UPDATE riders SET wallet = ? WHERE id = ?"),
+        RECORD_PAYMENT(Entity.RIDE, false, "INSERT INTO payments (ride_id, driver_earnings, from_wallet, wallet_amount, paid_at)"
+                + " VALUES (?, ?, ?, ?, ?)"),
+        REMOVE_DRIVER(Entity.DRIVER, true, "DELETE FROM drivers WHERE id = ?");
+
+        private final Entity entity;
+        private final boolean resets;
+        private final String sql;
+
+        Operation(Entity entity, boolean resets, String sql) {
+            this.entity = entity;
+            this.resets = resets;
+            this.sql = sql;
+        }
+    }
+
+    private record Pending(Operation operation, String id, Object[] parameters) {
+    }
+
+    private final Connection connection;
+    private volatile Database db;
+    private final PreparedStatement[] statements = new PreparedStatement[Operation.values().length];
+    private final PreparedStatement recordRejected;
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final int batchSize;
+    private final Thread writer;
+    private final Object balances = new Object();
+
+    // Guarded by this: operations queued and operations written, for flush()
+    private long queued;
+    private long written;
+    private volatile boolean closed;
+    // Set only when the connection itself is lost; a single operation the database rejects is set aside instead
+    private volatile SQLException failure;
+
+    WriteBehindStore(String url, int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+
+        try {
+            connection = DriverManager.getConnection(url);
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            }
+            connection.setAutoCommit(false);
+            for (Operation operation : Operation.values()) {
+                statements[operation.ordinal()] = connection.prepareStatement(operation.sql);
+            }
+            recordRejected = connection.prepareStatement(RECORD_REJECTED);
+        } catch (SQLException e) {
+            throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", e);
+        }
+
+        writer = new Thread(this::writeLoop, "jdbc-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void checkWritable() {
+        if (failure != null) {
+            throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", failure);
+        }
+    }
+
+    @Override
+    public void addDriver(String driverID, int x_coordinate, int y_coordinate) {
+        enqueue(Operation.ADD_DRIVER, driverID, driverID, x_coordinate, y_coordinate);
+    }
+
+    @Override
+    public void moveDriver(String driverID, int x_coordinate, int y_coordinate) {
+        enqueue(Operation.MOVE_DRIVER, driverID, x_coordinate, y_coordinate, driverID);
+    }
+
+    @Override
+    public void rateDriver(String driverID, float rating, float ratingSum, int ridesDone) {
+        enqueue(Operation.RATE_DRIVER, driverID, rating, ratingSum, ridesDone, driverID);
+    }
+
+    @Override
+    public void removeDriver(String driverID) {
+        enqueue(Operation.REMOVE_DRIVER, driverID, driverID);
+    }
+
+    @Override
+    public void addRider(String riderID, int x_coordinate, int y_coordinate) {
+        enqueue(Operation.ADD_RIDER, riderID, riderID, x_coordinate, y_coordinate);
+    }
+
+    @Override
+    public void startRide(String rideID, Ride ride) {
+        int[] start = ride.getStartCoordinates();
+        enqueue(Operation.START_RIDE, rideID, rideID, ride.getRiderID(), ride.getDriverID(), ride.getSurge(),
+                ride.getStartHour(), start != null ? start[0] : null, start != null ? start[1] : null);
+    }
+
+    @Override
+    public void stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+        enqueue(Operation.STOP_RIDE, rideID, dest_x_coordinate, dest_y_coordinate, timeTakenInMins, rideID);
+    }
+
+    @Override
+    public void billRide(String rideID, Fare fare) {
+        enqueue(Operation.BILL_RIDE, rideID, Money.toDecimal(Money.toPaise(fare.total())), fare.baseFare(),
+                fare.distanceFare(), fare.timeFare(), fare.serviceTax(), fare.surge(), rideID);
+    }
+
+    // Balances land in their tables, and every payment also gets an audit row. Reading a balance and queueing it
+    // happen under one lock, so the queue holds each account's totals in the order they were reached.
+    @Override
+    public void payRide(String rideID, Driver driver, Rider rider) {
+        Ride ride = db.getRideDetails().get(rideID);
+
+        synchronized (balances) {
+            BigDecimal driverEarnings = Money.toDecimal(driver.getEarningsPaise());
+            BigDecimal walletAmount = rider != null ? Money.toDecimal(rider.getWalletPaise()) : null;
+
+            enqueue(Operation.SET_EARNINGS, ride.getDriverID(), driverEarnings, ride.getDriverID());
+            if (rider != null) {
+                enqueue(Operation.SET_WALLET, ride.getRiderID(), walletAmount, ride.getRiderID());
+            }
+            enqueue(Operation.RECORD_PAYMENT, rideID, rideID, driverEarnings, rider != null, walletAmount,
+                    new Timestamp(System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    public void addMoney(String riderID, Rider rider) {
+        synchronized (balances) {
+            enqueue(Operation.SET_WALLET, riderID, Money.toDecimal(rider.getWalletPaise()), riderID);
+        }
+    }
+
+    // The tables are the snapshot
+    @Override
+    public void snapshot(Database db) {
+    }
+
+    // A driver is available unless one of their rides is still open
+    @Override
+    public void replay(Database db) {
+        flush();
+
+        synchronized (connection) {
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet rows = statement.executeQuery("SELECT id, x, y, wallet FROM riders")) {
+                    while (rows.next()) {
+                        Rider rider = new Rider(rows.getInt(2), rows.getInt(3));
+                        rider.setWalletPaise(Money.fromDecimal(rows.getBigDecimal(4)));
+                        db.getRiderDetails().put(rows.getString(1), rider);
+                    }
+                }
+
+                try (ResultSet rows = statement.executeQuery("SELECT d.id, d.x, d.y, d.rating, d.rating_sum, d.rides_done,"
+                        + " d.earnings, NOT EXISTS (SELECT 1 FROM rides r WHERE r.driver_id = d.id AND NOT r.finished)"
+                        + " FROM drivers d")) {
+                    while (rows.next()) {
+                        String driverID = rows.getString(1);
+                        Driver driver = new Driver(rows.getInt(2), rows.getInt(3));
+                        driver.setRating(rows.getFloat(4));
+                        driver.setRatingSum(rows.getFloat(5));
+                        driver.setRidesDone(rows.getInt(6));
+                        driver.setEarningsPaise(Money.fromDecimal(rows.getBigDecimal(7)));
+                        driver.setAvailable(rows.getBoolean(8));
+
+                        db.getDriverDetails().put(driverID, driver);
+                        if (driver.isAvailable()) {
+                            db.getDriverIndex().insert(driverID, driver.getX(), driver.getY());
+                        }
+                    }
+                }
+
+                try (ResultSet rows = statement.executeQuery("SELECT id, rider_id, driver_id, finished, dest_x, dest_y,"
+                        + " time_taken, bill, surge, start_hour, start_x, start_y, base_fare, distance_fare, time_fare,"
+                        + " service_tax, fare_surge FROM rides")) {
+                    while (rows.next()) {
+                        Ride ride = new Ride(rows.getString(2), rows.getString(3));
+                        ride.setSurge(rows.getFloat(9));
+                        ride.setStartHour(rows.getInt(10));
+                        int startX = rows.getInt(11);
+                        if (!rows.wasNull()) {
+                            ride.setStartCoordinates(new int[]{startX, rows.getInt(12)});
+                        }
+                        if (rows.getBoolean(4)) {
+                            ride.finishRide(rows.getInt(5), rows.getInt(6), rows.getInt(7));
+                        }
+                        // Rides not billed yet have no fare
+                        double baseFare = rows.getDouble(13);
+                        if (!rows.wasNull()) {
+                            ride.setFare(new Fare(baseFare, rows.getDouble(14), rows.getDouble(15), rows.getDouble(16),
+                                    rows.getFloat(17), Money.toRupees(Money.fromDecimal(rows.getBigDecimal(8)))));
+                        }
+                        db.getRideDetails().put(rows.getString(1), ride);
+                    }
+                }
+
+                // The audit rows refill the ledger, so a retried payment is still caught after a restart
+                try (ResultSet rows = statement.executeQuery("SELECT p.ride_id, r.rider_id, r.driver_id, p.from_wallet,"
+                        + " r.bill FROM payments p JOIN rides r ON r.id = p.ride_id ORDER BY p.seq")) {
+                    while (rows.next()) {
+                        db.getPaymentLedger().restore(rows.getString(1), rows.getString(2), rows.getString(3),
+                                rows.getBoolean(4), Money.fromDecimal(rows.getBigDecimal(5)));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", e);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        flush();
+
+        synchronized (connection) {
+            try (Statement statement = connection.createStatement()) {
+                for (String table : new String[]{"payments", "rides", "riders", "drivers", "rejected_writes"}) {
+                    statement.execute("TRUNCATE TABLE " + table);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", e);
+            }
+        }
+    }
+
+    // Payments name only the ride; the Database the store serves resolves its driver and rider
+    void attach(Database db) {
+        this.db = db;
+    }
+
+    // Blocks until everything queued before the call is committed
+    void flush() {
+        synchronized (this) {
+            long target = queued;
+            while (written < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", failure);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        // The writer is never interrupted: an interrupt during file I/O would close the database's channel
+        flush();
+        closed = true;
+        try {
+            writer.join();
+            connection.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", e);
+        }
+    }
+
+    // Everything refused so far, this run or earlier, oldest first
+    @Override
+    public List<RejectedWrite> rejectedWrites() {
+        flush();
+
+        synchronized (connection) {
+            List<RejectedWrite> rejected = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT operation, entity_id, parameters, error, rejected_at"
+                         + " FROM rejected_writes ORDER BY seq")) {
+                while (rows.next()) {
+                    rejected.add(new RejectedWrite(rows.getString(1), rows.getString(2), rows.getString(3),
+                            rows.getString(4), rows.getTimestamp(5).getTime()));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", e);
+            }
+            return rejected;
+        }
+    }
+
+    private void enqueue(Operation operation, String id, Object... parameters) {
+        checkWritable();
+
+        // Counted under the lock together with the put, so flush() never waits for an operation that is not queued
+        synchronized (this) {
+            queued++;
+        }
+        try {
+            queue.put(new Pending(operation, id, parameters));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("JDBC_STORE_UNAVAILABLE", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+
+        while (!closed) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                synchronized (connection) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            synchronized (this) {
+                written += batch.size();
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    // A failed batch is rolled back and written again one operation per transaction, so an operation the
+    // database refuses costs only itself. The store stops taking operations only once the connection is gone.
+    private void write(List<Pending> batch) {
+        try {
+            writeBatches(batch);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback(e);
+            for (PreparedStatement statement : statements) {
+                try {
+                    statement.clearBatch();
+                } catch (SQLException clearFailure) {
+                    e.addSuppressed(clearFailure);
+                }
+            }
+            for (Pending pending : batch) {
+                if (failure != null) {
+                    return;
+                }
+                writeOne(pending);
+            }
+        }
+    }
+
+    private void writeOne(Pending pending) {
+        try {
+            bind(pending).executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            rollback(e);
+            if (isConnectionLost()) {
+                failure = e;
+                return;
+            }
+            recordRejected(pending, e);
+        }
+    }
+
+    // The refused operation goes to rejected_writes in a transaction of its own; if even that fails, the store
+    // stops, as it would for a lost connection, rather than lose the operation silently
+    private void recordRejected(Pending pending, SQLException rejection) {
+        try {
+            recordRejected.setString(1, pending.operation.name());
+            recordRejected.setString(2, pending.id);
+            recordRejected.setString(3, Arrays.toString(pending.parameters));
+            recordRejected.setString(4, rejection.getMessage());
+            recordRejected.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            recordRejected.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            rollback(e);
+            e.addSuppressed(rejection);
+            failure = e;
+        }
+    }
+
+    private void rollback(SQLException failed) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackFailure) {
+            failed.addSuppressed(rollbackFailure);
+        }
+    }
+
+    private boolean isConnectionLost() {
+        try {
+            return !connection.isValid(1);
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    // Operations are grouped by kind and each group goes to the database as one JDBC batch per kind, in enum order.
+    // That order is safe for any single entity, except when one is added or removed after it was already touched
+    // in the group; that operation closes the group first.
+    private void writeBatches(List<Pending> batch) throws SQLException {
+        int[] grouped = new int[statements.length];
+        Set<String> touchedDrivers = new HashSet<>();
+        Set<String> touchedRiders = new HashSet<>();
+
+        for (Pending pending : batch) {
+            Operation operation = pending.operation;
+            Set<String> touched = operation.entity == Entity.DRIVER ? touchedDrivers
+                    : operation.entity == Entity.RIDER ? touchedRiders
+                    : null;
+
+            if (touched != null && !touched.add(pending.id) && operation.resets) {
+                executeGroup(grouped);
+                touchedDrivers.clear();
+                touchedRiders.clear();
+                touched.add(pending.id);
+            }
+
+            bind(pending).addBatch();
+            grouped[operation.ordinal()]++;
+        }
+
+        executeGroup(grouped);
+    }
+
+    private PreparedStatement bind(Pending pending) throws SQLException {
+        PreparedStatement statement = statements[pending.operation.ordinal()];
+        for (int i = 0; i < pending.parameters.length; i++) {
+            statement.setObject(i + 1, pending.parameters[i]);
+        }
+        return statement;
+    }
+
+    private void executeGroup(int[] grouped) throws SQLException {
+        for (int i = 0; i < grouped.length; i++) {
+            if (grouped[i] > 0) {
+                statements[i].executeBatch();
+                grouped[i] = 0;
+            }
+        }
+    }
+}
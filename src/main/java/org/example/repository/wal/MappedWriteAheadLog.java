@@ -0,0 +1,517 @@
+package org.example.repository.wal;
+
+import org.example.models.Driver;
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.Database;
+import org.example.utilities.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Appends records into a memory-mapped file, so an append is a memory copy. Durability comes from forcing the
+// mapped pages to disk, which is group committed: once every syncEvery records, and by a background flusher
+// every syncIntervalMillis. With syncEvery = 1 every append is on disk before it returns.
+//
+// The log is a sequence of fixed-size region files holding [length][crc32][type][fields] records, each named
+// after the log position it starts at. A zero length ends the log, and SKIP moves on to the next region.
+// Recovery stops at the first torn or corrupt record. Once a snapshot is written, the regions wholly before
+// its position are deleted, so the log on disk is never much longer than what a restart replays.
+public final class MappedWriteAheadLog implements WriteAheadLog {
+    static final int REGION_BYTES = 16 << 20;
+    private static final int HEADER_BYTES = 8;
+    private static final int SKIP = -1;
+    private static final String REGION_SUFFIX = ".region";
+
+    private static final byte ADD_DRIVER = 1;
+    private static final byte MOVE_DRIVER = 2;
+    private static final byte RATE_DRIVER = 3;
+    private static final byte REMOVE_DRIVER = 4;
+    private static final byte ADD_RIDER = 5;
+    private static final byte START_RIDE = 6;
+    private static final byte STOP_RIDE = 7;
+    private static final byte BILL_RIDE = 8;
+    private static final byte PAY_RIDE = 9;
+    private static final byte ADD_MONEY = 10;
+
+    private final Path path;
+    private final int syncEvery;
+    private final ScheduledExecutorService flusher;
+    private final ByteBuffer record = ByteBuffer.allocate(4_096);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int syncedPosition;
+    private int unsyncedRecords;
+
+    public MappedWriteAheadLog(Path path, int syncEvery, long syncIntervalMillis) {
+        this.path = path;
+        this.syncEvery = Math.max(1, syncEvery);
+
+        recover();
+
+        if (this.syncEvery > 1 && syncIntervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    // Appends write straight into the mapped file, so a failed write surfaces from the append itself
+    @Override
+    public void checkWritable() {
+    }
+
+    @Override
+    public void addDriver(String driverID, int x_coordinate, int y_coordinate) {
+        synchronized (this) {
+            begin(ADD_DRIVER);
+            putString(driverID);
+            record.putInt(x_coordinate).putInt(y_coordinate);
+            commit();
+        }
+    }
+
+    @Override
+    public void moveDriver(String driverID, int x_coordinate, int y_coordinate) {
+        synchronized (this) {
+            begin(MOVE_DRIVER);
+            putString(driverID);
+            record.putInt(x_coordinate).putInt(y_coordinate);
+            commit();
+        }
+    }
+
+    @Override
+    public void rateDriver(String driverID, float rating, float ratingSum, int ridesDone) {
+        synchronized (this) {
+            begin(RATE_DRIVER);
+            putString(driverID);
+            record.putFloat(rating).putFloat(ratingSum).putInt(ridesDone);
+            commit();
+        }
+    }
+
+    @Override
+    public void removeDriver(String driverID) {
+        synchronized (this) {
+            begin(REMOVE_DRIVER);
+            putString(driverID);
+            commit();
+        }
+    }
+
+    @Override
+    public void addRider(String riderID, int x_coordinate, int y_coordinate) {
+        synchronized (this) {
+            begin(ADD_RIDER);
+            putString(riderID);
+            record.putInt(x_coordinate).putInt(y_coordinate);
+            commit();
+        }
+    }
+
+    @Override
+    public void startRide(String rideID, Ride ride) {
+        int[] start = ride.getStartCoordinates();
+        synchronized (this) {
+            begin(START_RIDE);
+            putString(rideID);
+            putString(ride.getRiderID());
+            putString(ride.getDriverID());
+            record.putFloat(ride.getSurge()).putInt(ride.getStartHour()).put((byte) (start != null ? 1 : 0));
+            if (start != null) {
+                record.putInt(start[0]).putInt(start[1]);
+            }
+            commit();
+        }
+    }
+
+    @Override
+    public void stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+        synchronized (this) {
+            begin(STOP_RIDE);
+            putString(rideID);
+            record.putInt(dest_x_coordinate).putInt(dest_y_coordinate).putInt(timeTakenInMins);
+            commit();
+        }
+    }
+
+    @Override
+    public void billRide(String rideID, Fare fare) {
+        synchronized (this) {
+            begin(BILL_RIDE);
+            putString(rideID);
+            record.putDouble(fare.baseFare()).putDouble(fare.distanceFare()).putDouble(fare.timeFare())
+                    .putDouble(fare.serviceTax()).putFloat(fare.surge()).putFloat(fare.total());
+            commit();
+        }
+    }
+
+    @Override
+    public void payRide(String rideID, Driver driver, Rider rider) {
+        synchronized (this) {
+            begin(PAY_RIDE);
+            putString(rideID);
+            record.putLong(driver.getEarningsPaise()).put((byte) (rider != null ? 1 : 0))
+                    .putLong(rider != null ? rider.getWalletPaise() : 0);
+            commit();
+        }
+    }
+
+    @Override
+    public void addMoney(String riderID, Rider rider) {
+        synchronized (this) {
+            begin(ADD_MONEY);
+            putString(riderID);
+            record.putLong(rider.getWalletPaise());
+            commit();
+        }
+    }
+
+    // Loads the newest snapshot, then applies only the records logged after it was started
+    @Override
+    public synchronized void replay(Database db) {
+        long from = SnapshotFile.loadNewest(path, db);
+        long end = regionStart + region.position();
+
+        for (long start = from - from % REGION_BYTES; start < end; start += REGION_BYTES) {
+            try (FileChannel reader = FileChannel.open(regionFile(start), StandardOpenOption.READ)) {
+                ByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0, REGION_BYTES);
+                int limit = (int) Math.min(REGION_BYTES, end - start);
+                buffer.position((int) Math.max(0, from - start));
+
+                while (buffer.position() + HEADER_BYTES <= limit) {
+                    int length = buffer.getInt();
+                    if (length <= 0) {
+                        break;
+                    }
+
+                    buffer.getInt();
+                    ByteBuffer body = buffer.slice(buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                    apply(body, db);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Writers keep appending while the snapshot is written; only reading the start position takes the lock
+    @Override
+    public void snapshot(Database db) {
+        long position;
+        synchronized (this) {
+            position = regionStart + region.position();
+            unsyncedRecords++;
+            sync();
+        }
+
+        SnapshotFile.write(path, position, db);
+        // Nothing is appended before the current region any more, so this needs no lock
+        deleteRegionsBefore(position - position % REGION_BYTES);
+    }
+
+    @Override
+    public synchronized void reset() {
+        SnapshotFile.deleteAll(path);
+        region = null;
+        unsyncedRecords = 0;
+        deleteRegionsBefore(Long.MAX_VALUE);
+        mapRegion(0);
+    }
+
+    public synchronized void sync() {
+        if (unsyncedRecords == 0 || region == null) {
+            return;
+        }
+
+        region.force(syncedPosition, region.position() - syncedPosition);
+        syncedPosition = region.position();
+        unsyncedRecords = 0;
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+
+        synchronized (this) {
+            sync();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void begin(byte type) {
+        record.clear();
+        record.put(type);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        record.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void commit() {
+        record.flip();
+        int length = record.remaining();
+        crc.reset();
+        crc.update(record.array(), 0, length);
+
+        if (region.remaining() < HEADER_BYTES + length) {
+            if (region.remaining() >= 4) {
+                region.putInt(SKIP);
+            }
+            unsyncedRecords++;
+            sync();
+            mapRegion(regionStart + REGION_BYTES);
+        }
+
+        // The length goes in last, so a reader never sees a record whose body is still being written
+        int start = region.position();
+        region.position(start + 4);
+        region.putInt((int) crc.getValue()).put(record);
+        region.putInt(start, length);
+
+        if (++unsyncedRecords >= syncEvery) {
+            sync();
+        }
+    }
+
+    // Earlier regions were forced when the log moved past them, so only the last one can hold a torn record
+    private void recover() {
+        List<Long> starts = regionStarts();
+        long start = starts.isEmpty() ? 0 : starts.get(starts.size() - 1);
+        while (true) {
+            mapRegion(start);
+            int end = validEnd(region);
+            if (end >= 0) {
+                region.position(end);
+                syncedPosition = end;
+                break;
+            }
+            start += REGION_BYTES;
+        }
+
+        // Clear whatever a crash left behind the last good record, so it can never be mistaken for a record later
+        for (int i = region.position(); i < REGION_BYTES; i++) {
+            region.put(i, (byte) 0);
+        }
+        region.force();
+    }
+
+    // End of the valid records in this region, or -1 when the log continues in the next one
+    private int validEnd(MappedByteBuffer buffer) {
+        CRC32 check = new CRC32();
+        int position = 0;
+
+        while (position + HEADER_BYTES <= REGION_BYTES) {
+            int length = buffer.getInt(position);
+            if (length == SKIP) {
+                return -1;
+            }
+            if (length <= 0 || position + HEADER_BYTES + length > REGION_BYTES) {
+                return position;
+            }
+
+            check.reset();
+            check.update(buffer.slice(position + HEADER_BYTES, length));
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                return position;
+            }
+
+            position += HEADER_BYTES + length;
+        }
+
+        return -1;
+    }
+
+    // The region stays mapped after its file is closed; the previous file is closed once the next one is mapped
+    private void mapRegion(long start) {
+        try {
+            FileChannel next = FileChannel.open(regionFile(start), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            region = next.map(FileChannel.MapMode.READ_WRITE, 0, REGION_BYTES);
+            if (channel != null) {
+                channel.close();
+            }
+            channel = next;
+            regionStart = start;
+            syncedPosition = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path regionFile(long start) {
+        return path.resolveSibling(String.format("%s.%016x%s", path.getFileName(), start, REGION_SUFFIX));
+    }
+
+    // Start positions of the region files on disk, oldest first
+    private List<Long> regionStarts() {
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(path.toAbsolutePath().getParent())) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(REGION_SUFFIX))
+                    .map(name -> Long.parseLong(name, prefix.length(), name.length() - REGION_SUFFIX.length(), 16))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteRegionsBefore(long end) {
+        try {
+            for (long start : regionStarts()) {
+                if (start < end) {
+                    Files.deleteIfExists(regionFile(start));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void apply(ByteBuffer body, Database db) {
+        byte type = body.get();
+        String id = getString(body);
+
+        switch (type) {
+            case ADD_DRIVER -> {
+                int x = body.getInt();
+                int y = body.getInt();
+                db.getDriverDetails().put(id, new Driver(x, y));
+                db.getDriverIndex().insert(id, x, y);
+            }
+            case MOVE_DRIVER -> {
+                Driver driver = db.getDriverDetails().get(id);
+                int x = body.getInt();
+                int y = body.getInt();
+                if (driver != null) {
+                    driver.updateLocation(x, y);
+                    if (driver.isAvailable()) {
+                        db.getDriverIndex().insert(id, x, y);
+                    }
+                }
+            }
+            case RATE_DRIVER -> {
+                Driver driver = db.getDriverDetails().get(id);
+                float rating = body.getFloat();
+                float ratingSum = body.getFloat();
+                int ridesDone = body.getInt();
+                if (driver != null) {
+                    driver.setRating(rating);
+                    driver.setRatingSum(ratingSum);
+                    driver.setRidesDone(ridesDone);
+                }
+            }
+            case REMOVE_DRIVER -> {
+                db.getDriverDetails().remove(id);
+                db.getDriverIndex().remove(id);
+            }
+            case ADD_RIDER -> db.getRiderDetails().put(id, new Rider(body.getInt(), body.getInt()));
+            case START_RIDE -> {
+                Ride ride = new Ride(getString(body), getString(body));
+                ride.setSurge(body.getFloat());
+                ride.setStartHour(body.getInt());
+                if (body.get() == 1) {
+                    ride.setStartCoordinates(new int[]{body.getInt(), body.getInt()});
+                }
+
+                Driver driver = db.getDriverDetails().get(ride.getDriverID());
+                if (driver != null) {
+                    driver.setAvailable(false);
+                }
+                db.getDriverIndex().remove(ride.getDriverID());
+                db.getRideDetails().put(id, ride);
+            }
+            case STOP_RIDE -> {
+                Ride ride = db.getRideDetails().get(id);
+                int x = body.getInt();
+                int y = body.getInt();
+                int timeTakenInMins = body.getInt();
+                // A ride archived before the restart comes back already finished, and START_RIDE still took
+                // its driver, so the driver is released either way
+                if (ride != null) {
+                    ride.finishRide(x, y, timeTakenInMins);
+                    Driver driver = db.getDriverDetails().get(ride.getDriverID());
+                    if (driver != null && !driver.isAvailable()) {
+                        driver.setAvailable(true);
+                        db.getDriverIndex().insert(ride.getDriverID(), driver.getX(), driver.getY());
+                    }
+                }
+            }
+            case BILL_RIDE -> {
+                Ride ride = db.getRideDetails().get(id);
+                Fare fare = new Fare(body.getDouble(), body.getDouble(), body.getDouble(), body.getDouble(),
+                        body.getFloat(), body.getFloat());
+                if (ride != null) {
+                    ride.setFare(fare);
+                }
+            }
+            case PAY_RIDE -> {
+                Ride ride = db.getRideDetails().get(id);
+                long driverEarnings = body.getLong();
+                boolean fromWallet = body.get() == 1;
+                long walletAmount = body.getLong();
+                if (ride == null) {
+                    return;
+                }
+
+                Driver driver = db.getDriverDetails().get(ride.getDriverID());
+                if (driver != null) {
+                    driver.setEarningsPaise(driverEarnings);
+                }
+                Rider rider = db.getRiderDetails().get(ride.getRiderID());
+                if (fromWallet && rider != null) {
+                    rider.setWalletPaise(walletAmount);
+                }
+                db.getPaymentLedger().restore(id, ride.getRiderID(), ride.getDriverID(), fromWallet,
+                        Money.toPaise(ride.getBill()));
+                db.archiveRide(id);
+            }
+            case ADD_MONEY -> {
+                Rider rider = db.getRiderDetails().get(id);
+                long walletAmount = body.getLong();
+                if (rider != null) {
+                    rider.setWalletPaise(walletAmount);
+                }
+            }
+            default -> throw new IllegalStateException("UNKNOWN_LOG_RECORD " + type);
+        }
+    }
+
+    private static String getString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
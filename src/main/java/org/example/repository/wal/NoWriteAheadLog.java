@@ -0,0 +1,71 @@
+package org.example.repository.wal;
+
+import org.example.models.Driver;
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.Database;
+
+// Used when no log path is configured; state lives only in memory
+final class NoWriteAheadLog implements WriteAheadLog {
+
+    @Override
+    public void checkWritable() {
+    }
+
+    @Override
+    public void addDriver(String driverID, int x_coordinate, int y_coordinate) {
+    }
+
+    @Override
+    public void moveDriver(String driverID, int x_coordinate, int y_coordinate) {
+    }
+
+    @Override
+    public void rateDriver(String driverID, float rating, float ratingSum, int ridesDone) {
+    }
+
+    @Override
+    public void removeDriver(String driverID) {
+    }
+
+    @Override
+    public void addRider(String riderID, int x_coordinate, int y_coordinate) {
+    }
+
+    @Override
+    public void startRide(String rideID, Ride ride) {
+    }
+
+    @Override
+    public void stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
+    }
+
+    @Override
+    public void billRide(String rideID, Fare fare) {
+    }
+
+    @Override
+    public void payRide(String rideID, Driver driver, Rider rider) {
+    }
+
+    @Override
+    public void addMoney(String riderID, Rider rider) {
+    }
+
+    @Override
+    public void snapshot(Database db) {
+    }
+
+    @Override
+    public void replay(Database db) {
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
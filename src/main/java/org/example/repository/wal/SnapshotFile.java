@@ -0,0 +1,377 @@
+package org.example.repository.wal;
+
+import org.example.models.Driver;
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.Database;
+import org.example.repository.PaymentLedger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Binary image of the whole Database: a header with the log position it was taken at, then length-prefixed
+// rider, driver, ride, match and payment records, a zero length and a CRC32 of everything before it.
+// Files are written and read through one small buffer, so a snapshot may grow past what one mapping can hold.
+//
+// The snapshot is fuzzy: entities are copied one at a time, drivers from their current version, balances from their
+// atomic counters and the rest under their own lock, while writers keep going.
+// Log records carry resulting values, so replaying the log from the header position fixes up anything the
+// snapshot caught halfway.
+final class SnapshotFile {
+    private static final int MAGIC = 0x52534e50;
+    private static final int VERSION = 5;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MATCHES_PER_RECORD = 256;
+    private static final String SUFFIX = ".snapshot";
+
+    private static final byte RIDER = 1;
+    private static final byte DRIVER = 2;
+    private static final byte RIDE = 3;
+    private static final byte MATCH = 4;
+    private static final byte PAYMENT = 5;
+
+    private final FileChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private SnapshotFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Snapshots are named after the log file and position, so the newest one sorts last
+    static Path write(Path logFile, long logPosition, Database db) {
+        Path target = logFile.resolveSibling(String.format("%s.%016x%s", logFile.getFileName(), logPosition, SUFFIX));
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotFile snapshot = new SnapshotFile(channel);
+            snapshot.out.putInt(MAGIC).putInt(VERSION).putLong(logPosition);
+            snapshot.writeRiders(db);
+            snapshot.writeDrivers(db);
+            snapshot.writeRides(db);
+            snapshot.writeMatches(db);
+            snapshot.writePayments(db);
+            snapshot.finish();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            for (Path older : snapshots(logFile)) {
+                if (!older.equals(target)) {
+                    Files.delete(older);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return target;
+    }
+
+    // Loads the newest intact snapshot and returns its log position, or 0 when there is none
+    static long loadNewest(Path logFile, Database db) {
+        List<Path> snapshots = snapshots(logFile);
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try (FileChannel channel = FileChannel.open(snapshots.get(i), StandardOpenOption.READ)) {
+                if (isIntact(channel, in)) {
+                    channel.position(0);
+                    return load(channel, in.clear().flip(), db);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return 0;
+    }
+
+    static void deleteAll(Path logFile) {
+        try {
+            for (Path snapshot : snapshots(logFile)) {
+                Files.delete(snapshot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> snapshots(Path logFile) {
+        String prefix = logFile.getFileName() + ".";
+        try (Stream<Path> files = Files.list(logFile.toAbsolutePath().getParent())) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRiders(Database db) throws IOException {
+        for (Map.Entry<String, Rider> entry : db.getRiderDetails().entrySet()) {
+            Rider rider = entry.getValue();
+            int start = begin(RIDER, entry.getKey());
+            out.putInt(rider.getCoordinates()[0]).putInt(rider.getCoordinates()[1]).putLong(rider.getWalletPaise());
+            end(start);
+        }
+    }
+
+    private void writeDrivers(Database db) throws IOException {
+        for (Map.Entry<String, Driver> entry : db.getDriverDetails().entrySet()) {
+            Driver.Version driver = entry.getValue().getVersion();
+            long earnings = entry.getValue().getEarningsPaise();
+            int start = begin(DRIVER, entry.getKey());
+            out.putInt(driver.x()).putInt(driver.y())
+                    .put((byte) (driver.available() ? 1 : 0))
+                    .putFloat(driver.rating()).putFloat(driver.ratingSum()).putInt(driver.ridesDone())
+                    .putLong(earnings);
+            end(start);
+        }
+    }
+
+    private void writeRides(Database db) throws IOException {
+        for (Map.Entry<String, Ride> entry : db.getRideDetails().entrySet()) {
+            Ride ride = entry.getValue();
+            int start = begin(RIDE, entry.getKey());
+            synchronized (ride) {
+                putString(ride.getRiderID());
+                putString(ride.getDriverID());
+                out.put((byte) (ride.isFinished() ? 1 : 0));
+                if (ride.isFinished()) {
+                    out.putInt(ride.getDestinationCoordinates()[0]).putInt(ride.getDestinationCoordinates()[1])
+                            .putInt(ride.getTimeTakenInMins());
+                }
+                out.putFloat(ride.getBill());
+
+                int[] startCoordinates = ride.getStartCoordinates();
+                out.putFloat(ride.getSurge()).putInt(ride.getStartHour()).put((byte) (startCoordinates != null ? 1 : 0));
+                if (startCoordinates != null) {
+                    out.putInt(startCoordinates[0]).putInt(startCoordinates[1]);
+                }
+
+                Fare fare = ride.getFare();
+                out.put((byte) (fare != null ? 1 : 0));
+                if (fare != null) {
+                    out.putDouble(fare.baseFare()).putDouble(fare.distanceFare()).putDouble(fare.timeFare())
+                            .putDouble(fare.serviceTax()).putFloat(fare.surge()).putFloat(fare.total());
+                }
+            }
+            end(start);
+        }
+    }
+
+    private void writeMatches(Database db) throws IOException {
+        for (Map.Entry<String, List<String>> entry : db.getRiderDriverMapping().entrySet()) {
+            List<String> matchedDrivers = entry.getValue();
+            for (int from = 0; from < matchedDrivers.size(); from += MATCHES_PER_RECORD) {
+                int to = Math.min(matchedDrivers.size(), from + MATCHES_PER_RECORD);
+                int start = begin(MATCH, entry.getKey());
+                out.putShort((short) (to - from));
+                for (int i = from; i < to; i++) {
+                    putString(matchedDrivers.get(i));
+                }
+                end(start);
+            }
+        }
+    }
+
+    private void writePayments(Database db) throws IOException {
+        for (PaymentLedger.Entry payment : db.getPaymentLedger().getEntries()) {
+            int start = begin(PAYMENT, payment.rideID());
+            putString(payment.riderID());
+            putString(payment.driverID());
+            out.put((byte) (payment.fromWallet() ? 1 : 0)).putLong(payment.paise());
+            end(start);
+        }
+    }
+
+    // Every record fits comfortably in the space reserved here, so a record never straddles a flush
+    private int begin(byte kind, String id) throws IOException {
+        if (out.remaining() < 64 * 1_024) {
+            flush();
+        }
+
+        int start = out.position();
+        out.position(start + 4);
+        out.put(kind);
+        putString(id);
+        return start;
+    }
+
+    private void end(int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    private void finish() throws IOException {
+        if (out.remaining() < 8) {
+            flush();
+        }
+        out.putInt(0);
+        flush();
+
+        out.putInt((int) crc.getValue());
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        crc.update(out.duplicate());
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    // Checks the header, then runs the CRC over the file one buffer at a time
+    private static boolean isIntact(FileChannel channel, ByteBuffer in) throws IOException {
+        long size = channel.size();
+        if (size < 20) {
+            return false;
+        }
+
+        CRC32 check = new CRC32();
+        in.clear();
+        for (long position = 0; position < size - 4; ) {
+            in.limit((int) Math.min(in.capacity(), size - 4 - position));
+            int read = channel.read(in, position);
+            if (read < 0) {
+                return false;
+            }
+            if (position == 0 && (in.position() < 8 || in.getInt(0) != MAGIC || in.getInt(4) != VERSION)) {
+                return false;
+            }
+            position += read;
+            in.flip();
+            check.update(in);
+            in.clear();
+        }
+
+        in.limit(4);
+        channel.read(in, size - 4);
+        return in.position() == 4 && (int) check.getValue() == in.getInt(0);
+    }
+
+    private static long load(FileChannel channel, ByteBuffer in, Database db) throws IOException {
+        fill(channel, in, 16);
+        in.position(in.position() + 8);
+        long logPosition = in.getLong();
+
+        while (true) {
+            fill(channel, in, 4);
+            int length = in.getInt();
+            if (length == 0) {
+                return logPosition;
+            }
+
+            // A record is read before the buffer is refilled over it
+            fill(channel, in, length);
+            ByteBuffer record = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            loadRecord(record, db);
+        }
+    }
+
+    // Tops the buffer up from the file until it holds at least the given number of unread bytes; records are
+    // far smaller than the buffer, since the writer flushes before any record could reach its end
+    private static void fill(FileChannel channel, ByteBuffer in, int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return;
+        }
+
+        in.compact();
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new IllegalStateException("TRUNCATED_SNAPSHOT");
+            }
+        }
+        in.flip();
+    }
+
+    private static void loadRecord(ByteBuffer record, Database db) {
+        byte kind = record.get();
+        String id = getString(record);
+        switch (kind) {
+            case RIDER -> {
+                Rider rider = new Rider(record.getInt(), record.getInt());
+                rider.setWalletPaise(record.getLong());
+                db.getRiderDetails().put(id, rider);
+            }
+            case DRIVER -> {
+                Driver driver = new Driver(record.getInt(), record.getInt());
+                driver.setAvailable(record.get() == 1);
+                driver.setRating(record.getFloat());
+                driver.setRatingSum(record.getFloat());
+                driver.setRidesDone(record.getInt());
+                driver.setEarningsPaise(record.getLong());
+
+                db.getDriverDetails().put(id, driver);
+                if (driver.isAvailable()) {
+                    db.getDriverIndex().insert(id, driver.getX(), driver.getY());
+                }
+            }
+            case RIDE -> {
+                Ride ride = new Ride(getString(record), getString(record));
+                if (record.get() == 1) {
+                    ride.finishRide(record.getInt(), record.getInt(), record.getInt());
+                }
+                // Rides not billed yet are written with a zero bill
+                float bill = record.getFloat();
+                if (bill != 0) {
+                    ride.setBill(bill);
+                }
+                ride.setSurge(record.getFloat());
+                ride.setStartHour(record.getInt());
+                if (record.get() == 1) {
+                    ride.setStartCoordinates(new int[]{record.getInt(), record.getInt()});
+                }
+                // A ride given only a bill, without a fare, keeps that bill
+                if (record.get() == 1) {
+                    ride.setFare(new Fare(record.getDouble(), record.getDouble(), record.getDouble(),
+                            record.getDouble(), record.getFloat(), record.getFloat()));
+                }
+                db.getRideDetails().put(id, ride);
+            }
+            case MATCH -> {
+                List<String> matchedDrivers = db.getRiderDriverMapping().computeIfAbsent(id, key -> new ArrayList<>());
+                for (int i = record.getShort(); i > 0; i--) {
+                    matchedDrivers.add(getString(record));
+                }
+            }
+            case PAYMENT -> db.getPaymentLedger().restore(id, getString(record), getString(record),
+                    record.get() == 1, record.getLong());
+            default -> throw new IllegalStateException("UNKNOWN_SNAPSHOT_RECORD " + kind);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.repository.wal;
+
+import org.example.repository.Database;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodic snapshots for the web application. The CLI store is single-threaded, so it is never snapshotted
+// from a background thread; it still starts from the newest snapshot when one exists.
+@Component
+@Profile("!cli")
+public class SnapshotScheduler implements DisposableBean {
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public SnapshotScheduler(Database db, @Value("${riderapp.snapshot.interval-s:0}") long intervalSeconds) {
+        if (intervalSeconds <= 0 || db.getWriteAheadLog() == WriteAheadLog.NONE) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                db.getWriteAheadLog().snapshot(db);
+            } catch (RuntimeException e) {
+                // The log still has everything, so a failed snapshot only makes the next restart slower
+                System.err.println("SNAPSHOT_FAILED " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+}
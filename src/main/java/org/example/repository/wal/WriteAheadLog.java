@@ -0,0 +1,51 @@
+package org.example.repository.wal;
+
+import org.example.models.Driver;
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.Database;
+
+import java.util.List;
+
+// Redo log of every state change the services make. Services append after the change is applied in memory;
+// on startup the Database replays the log to rebuild its state. Records carry resulting values rather than
+// deltas, so replaying one over state that already includes it is harmless.
+public interface WriteAheadLog extends AutoCloseable {
+    WriteAheadLog NONE = new NoWriteAheadLog();
+
+    // Called before a change is applied in memory, so a log that can no longer record it refuses the change
+    void checkWritable();
+
+    void addDriver(String driverID, int x_coordinate, int y_coordinate);
+    void moveDriver(String driverID, int x_coordinate, int y_coordinate);
+    void rateDriver(String driverID, float rating, float ratingSum, int ridesDone);
+    void removeDriver(String driverID);
+    void addRider(String riderID, int x_coordinate, int y_coordinate);
+    // Carries what the ride was quoted at its start: surge, start position and tariff hour
+    void startRide(String rideID, Ride ride);
+    void stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins);
+    // Carries the whole fare, so a restored ride keeps its breakdown and is never billed again
+    void billRide(String rideID, Fare fare);
+
+    // Balances change without locks, so money records read them while holding the log's own append lock;
+    // the last record for an account then always carries its latest total. rider is null unless paid from the wallet.
+    void payRide(String rideID, Driver driver, Rider rider);
+    void addMoney(String riderID, Rider rider);
+
+    // An operation the store behind the log refused on its own; its parameters are kept as text
+    record RejectedWrite(String operation, String id, String parameters, String error, long rejectedAtMillis) {
+    }
+
+    // Only a store that can refuse a single operation and keep going has any; the file log fails the append instead
+    default List<RejectedWrite> rejectedWrites() {
+        return List.of();
+    }
+
+    void snapshot(Database db);
+    void replay(Database db);
+    void reset();
+
+    @Override
+    void close();
+}
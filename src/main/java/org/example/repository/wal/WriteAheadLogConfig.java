@@ -0,0 +1,23 @@
+package org.example.repository.wal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class WriteAheadLogConfig {
+
+    // Durable mode is on once riderapp.wal.path is set
+    @Bean(destroyMethod = "close")
+    public WriteAheadLog writeAheadLog(
+            @Value("${riderapp.wal.path:}") String path,
+            @Value("${riderapp.wal.sync-every:64}") int syncEvery,
+            @Value("${riderapp.wal.sync-interval-ms:5}") long syncIntervalMillis
+    ) {
+        return path.isBlank()
+                ? WriteAheadLog.NONE
+                : new MappedWriteAheadLog(Path.of(path), syncEvery, syncIntervalMillis);
+    }
+}
@@ -2,11 +2,18 @@ package org.example.services.admin;
 
 import org.example.dto.DriverDTO;
 import org.example.dto.DriverEarningsDTO;
+import org.example.dto.DriverPageDTO;
+import org.example.dto.RejectedWriteDTO;
+import org.example.dto.RideFareDTO;
+import org.example.repository.DriverRanking;
 
 import java.util.List;
 
 public interface AdminService {
     boolean removeDriver(String driverID);
     List<DriverDTO> listNDriverDetails(int N);
+    DriverPageDTO listDrivers(DriverRanking.Order order, String after, int N);
     DriverEarningsDTO getDriverEarnings(String driverID);
+    RideFareDTO getRideFare(String rideID);
+    List<RejectedWriteDTO> getRejectedWrites();
 }
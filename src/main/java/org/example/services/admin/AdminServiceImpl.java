@@ -2,56 +2,118 @@ package org.example.services.admin;
 
 import org.example.dto.DriverDTO;
 import org.example.dto.DriverEarningsDTO;
+import org.example.dto.DriverPageDTO;
+import org.example.dto.RejectedWriteDTO;
+import org.example.dto.RideFareDTO;
 import org.example.repository.Database;
+import org.example.repository.DriverRanking;
 import org.example.models.Driver;
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.exceptions.InvalidCursorException;
 import org.example.exceptions.InvalidDriverIDException;
+import org.example.exceptions.InvalidRideException;
+import org.example.services.ride.surge.SurgeEngine;
+import org.example.utilities.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class AdminServiceImpl implements AdminService {
     private final Database db;
+    private final SurgeEngine surge;
 
-    @Autowired
     public AdminServiceImpl(Database db) {
+        this(db, SurgeEngine.NONE);
+    }
+
+    @Autowired
+    public AdminServiceImpl(Database db, SurgeEngine surge) {
         this.db = db;
+        this.surge = surge;
     }
 
+    // Removed under the driver's lock, so a move, claim or release holding the driver either finishes first and
+    // is undone here, or sees the driver marked removed and leaves the index alone
     @Override
     public boolean removeDriver(String driverID) {
-        if (db.getDriverDetails().get(driverID) == null) {
+        Driver driver = db.getDriverDetails().get(driverID);
+        if (driver == null) {
             throw new InvalidDriverIDException();
         }
 
-        db.getDriverDetails().remove(driverID);
+        db.getWriteAheadLog().checkWritable();
+        synchronized (driver) {
+            if (driver.isRemoved()) {
+                throw new InvalidDriverIDException();
+            }
+
+            driver.markRemoved();
+            db.getDriverDetails().remove(driverID);
+            db.getDriverIndex().remove(driverID);
+            if (driver.isAvailable()) {
+                surge.driverUnavailable(driver.getX(), driver.getY());
+            }
+        }
+        db.getDriverRanking().remove(driverID);
+        db.getWriteAheadLog().removeDriver(driverID);
         return true;
     }
 
     @Override
     public List<DriverDTO> listNDriverDetails(int N) {
-        List<DriverDTO> driverDetailsList = new ArrayList<>();
-        int size = Math.min(db.getDriverDetails().size(), N);
-        int idx = 0;
-
-        for (String driverID : db.getDriverDetails().keySet()) {
-            if (idx == size) break;
-            idx++;
-
-            Driver driver = db.getDriverDetails().get(driverID);
-            driverDetailsList.add(new DriverDTO(
-                    driverID,
-                    driver.getCoordinates()[0],
-                    driver.getCoordinates()[1],
-                    driver.getRating()
-            ));
+        return listDrivers(DriverRanking.Order.RATING, null, N).drivers();
+    }
+
+    // One seek in the ranking, then one read per driver returned. Each driver is read from one version, so the
+    // dashboard never waits on ride threads or sees a half update. The cursor is null on the last page.
+    // Listing only reads: a driver removed after the ranking was read is skipped and left to removeDriver, and
+    // the ranking is read on until the page is full or it runs out.
+    @Override
+    public DriverPageDTO listDrivers(DriverRanking.Order order, String after, int N) {
+        if (N <= 0) {
+            return new DriverPageDTO(List.of(), null);
         }
 
-        return driverDetailsList;
+        List<DriverDTO> drivers = new ArrayList<>();
+        String cursor = after;
+        String last = null;
+        while (true) {
+            // One more than the page needs, to tell whether another page follows
+            int wanted = (int) Math.min(Integer.MAX_VALUE, N - drivers.size() + 1L);
+            List<DriverRanking.Ranked> ranked = page(order, cursor, wanted);
+            for (DriverRanking.Ranked entry : ranked) {
+                Driver driver = db.getDriverDetails().get(entry.driverID());
+                if (driver == null) {
+                    continue;
+                }
+                if (drivers.size() == N) {
+                    return new DriverPageDTO(drivers, last);
+                }
+
+                Driver.Version version = driver.getVersion();
+                drivers.add(new DriverDTO(entry.driverID(), version.x(), version.y(), version.rating()));
+                last = entry.cursor(order);
+            }
+
+            if (ranked.size() < wanted) {
+                return new DriverPageDTO(drivers, null);
+            }
+            cursor = ranked.get(ranked.size() - 1).cursor(order);
+        }
     }
 
+    private List<DriverRanking.Ranked> page(DriverRanking.Order order, String after, int count) {
+        try {
+            return db.getDriverRanking().page(order, after, count);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
 
     @Override
     public DriverEarningsDTO getDriverEarnings(String driverID) {
@@ -59,7 +121,28 @@ public class AdminServiceImpl implements AdminService {
         if (driver == null) {
             throw new InvalidDriverIDException();
         }
-        return new DriverEarningsDTO(driverID, driver.getEarnings());
+        return new DriverEarningsDTO(driverID, Money.toDecimal(driver.getEarningsPaise()));
+    }
+
+    // Reads the breakdown kept by the first bill
+    @Override
+    public RideFareDTO getRideFare(String rideID) {
+        Ride ride = db.getRideDetails().get(rideID);
+        Fare fare = ride == null ? null : ride.getFare();
+        if (fare == null) {
+            throw new InvalidRideException();
+        }
+        return new RideFareDTO(rideID, ride.getDriverID(), fare.baseFare(), fare.distanceFare(), fare.timeFare(),
+                fare.serviceTax(), fare.surge(), fare.total());
+    }
+
+    // Changes the SQL store refused while the cache kept them; empty for the file log and the in-memory store
+    @Override
+    public List<RejectedWriteDTO> getRejectedWrites() {
+        return db.getWriteAheadLog().rejectedWrites().stream()
+                .map(rejected -> new RejectedWriteDTO(rejected.operation(), rejected.id(), rejected.parameters(),
+                        rejected.error(), Instant.ofEpochMilli(rejected.rejectedAtMillis()).toString()))
+                .toList();
     }
 
 }
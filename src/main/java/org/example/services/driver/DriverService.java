@@ -1,8 +1,13 @@
 package org.example.services.driver;
 
+import org.example.dto.LocationPingDTO;
+
+import java.util.List;
 import java.util.Map;
 
 public interface DriverService {
     void addDriver(String driverID, int x_coordinate, int y_coordinate);
+    void updateLocation(String driverID, int x_coordinate, int y_coordinate);
+    int updateLocations(List<LocationPingDTO> pings);
     Map<String, Object> rateDriver(String driverID, float rating);
 }
@@ -1,26 +1,111 @@
 package org.example.services.driver;
 
+import org.example.dto.LocationPingDTO;
 import org.example.exceptions.InvalidDriverIDException;
 import org.example.repository.Database;
 import org.example.models.Driver;
+import org.example.services.ride.surge.SurgeEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class DriverServiceImpl implements DriverService {
     private final Database db;
+    private final SurgeEngine surge;
 
-    @Autowired
     public DriverServiceImpl(Database db) {
+        this(db, SurgeEngine.NONE);
+    }
+
+    @Autowired
+    public DriverServiceImpl(Database db, SurgeEngine surge) {
         this.db = db;
+        this.surge = surge;
     }
 
     @Override
     public void addDriver(String driverID, int x_coordinate, int y_coordinate) {
-        db.getDriverDetails().put(driverID, new Driver(x_coordinate, y_coordinate));
+        db.getWriteAheadLog().checkWritable();
+        Driver driver = new Driver(x_coordinate, y_coordinate);
+        Driver replaced = db.getDriverDetails().put(driverID, driver);
+        // The replaced driver is retired under their lock, as removeDriver does, so a ride they are on can no
+        // longer put them back in the index over the new driver
+        if (replaced != null) {
+            synchronized (replaced) {
+                replaced.markRemoved();
+                if (replaced.isAvailable()) {
+                    surge.driverUnavailable(replaced.getX(), replaced.getY());
+                }
+            }
+        }
+        db.getDriverIndex().insert(driverID, x_coordinate, y_coordinate);
+        db.getDriverRanking().put(driverID, driver.getRating());
+        surge.driverAvailable(x_coordinate, y_coordinate);
+        db.getWriteAheadLog().addDriver(driverID, x_coordinate, y_coordinate);
+    }
+
+    @Override
+    public void updateLocation(String driverID, int x_coordinate, int y_coordinate) {
+        Driver driver = db.getDriverDetails().get(driverID);
+        if (driver == null) {
+            throw new InvalidDriverIDException();
+        }
+
+        db.getWriteAheadLog().checkWritable();
+        if (!moveDriver(driverID, driver, x_coordinate, y_coordinate)) {
+            throw new InvalidDriverIDException();
+        }
+    }
+
+    // Pings are coalesced per driver within the batch, so only the latest position in it touches the index.
+    // Pings in separate batches are applied as they come; nothing is held back to wait for a newer one.
+    @Override
+    public int updateLocations(List<LocationPingDTO> pings) {
+        db.getWriteAheadLog().checkWritable();
+        Map<String, LocationPingDTO> latestPings = new LinkedHashMap<>();
+        for (LocationPingDTO ping : pings) {
+            latestPings.put(ping.driverId(), ping);
+        }
+
+        int updated = 0;
+        for (LocationPingDTO ping : latestPings.values()) {
+            Driver driver = db.getDriverDetails().get(ping.driverId());
+            if (driver == null) {
+                continue;
+            }
+
+            if (moveDriver(ping.driverId(), driver, ping.x(), ping.y())) {
+                updated++;
+            }
+        }
+
+        return updated;
+    }
+
+    // False when the driver was removed after being looked up
+    private boolean moveDriver(String driverID, Driver driver, int x_coordinate, int y_coordinate) {
+        synchronized (driver) {
+            if (driver.isRemoved()) {
+                return false;
+            }
+
+            int fromX = driver.getX();
+            int fromY = driver.getY();
+            driver.updateLocation(x_coordinate, y_coordinate);
+
+            // Drivers on a ride are not indexed; stopRide indexes them again at their latest position
+            if (driver.isAvailable()) {
+                db.getDriverIndex().insert(driverID, x_coordinate, y_coordinate);
+                surge.driverMoved(fromX, fromY, x_coordinate, y_coordinate);
+            }
+            db.getWriteAheadLog().moveDriver(driverID, x_coordinate, y_coordinate);
+        }
+        return true;
     }
 
     @Override
@@ -30,7 +115,17 @@ public class DriverServiceImpl implements DriverService {
             throw new InvalidDriverIDException();
         }
 
-        float updatedRating = driver.updateDriverRating(rating);
+        db.getWriteAheadLog().checkWritable();
+        float updatedRating;
+        synchronized (driver) {
+            if (driver.isRemoved()) {
+                throw new InvalidDriverIDException();
+            }
+
+            updatedRating = driver.updateDriverRating(rating);
+            db.getDriverRanking().put(driverID, updatedRating);
+            db.getWriteAheadLog().rateDriver(driverID, updatedRating, driver.getRatingSum(), driver.getRidesDone());
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("driverID", driverID);
@@ -0,0 +1,94 @@
+package org.example.services.payment;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Caps the calls one payment method has outstanding. Calls beyond maxInFlight wait in a bounded queue and start
+// as earlier ones finish; once the queue is full, new calls fail at once, so a slow gateway pushes back on callers
+// instead of piling up work. A call still queued after maxQueueWaitMillis leaves the queue and fails the same way.
+final class Bulkhead {
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long maxQueueWaitMillis;
+
+    // Guarded by this
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int inFlight;
+
+    Bulkhead(int maxInFlight, int maxQueued, long maxQueueWaitMillis) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxQueueWaitMillis = Math.max(0, maxQueueWaitMillis);
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> running;
+            try {
+                running = call.get();
+            } catch (RuntimeException e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            running.whenComplete((value, error) -> {
+                finished();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        synchronized (this) {
+            if (inFlight == maxInFlight) {
+                if (waiting.size() == maxQueued) {
+                    return CompletableFuture.failedFuture(new RejectedExecutionException("PAYMENT_BUSY"));
+                }
+                waiting.add(start);
+                CompletableFuture.delayedExecutor(maxQueueWaitMillis, TimeUnit.MILLISECONDS)
+                        .execute(() -> expire(start, result));
+                return result;
+            }
+            inFlight++;
+        }
+
+        start.run();
+        return result;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiting.size();
+    }
+
+    // Only a call that never left the queue is failed; one that started runs to its own end
+    private void expire(Runnable start, CompletableFuture<?> result) {
+        synchronized (this) {
+            if (!waiting.remove(start)) {
+                return;
+            }
+        }
+        result.completeExceptionally(new RejectedExecutionException("PAYMENT_BUSY"));
+    }
+
+    // A finished call hands its slot straight to the oldest waiting one
+    private void finished() {
+        Runnable next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+        next.run();
+    }
+}
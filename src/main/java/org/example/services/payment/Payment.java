@@ -1,5 +1,8 @@
 package org.example.services.payment;
 
+import org.example.models.Ride;
+
+// ride is the billed ride, as RideService.billedRide returns it, so every method pays the same memoized fare
 public interface Payment {
-    String sendMoney(String rideID);
+    String sendMoney(String rideID, Ride ride);
 }
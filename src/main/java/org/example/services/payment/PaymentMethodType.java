@@ -15,5 +15,9 @@ public enum PaymentMethodType {
             case WALLET -> new WalletPayment(db);
         };
     }
+
+    public boolean usesGateway() {
+        return this == CARD || this == UPI;
+    }
 }
 
@@ -1,30 +1,350 @@
 package org.example.services.payment;
 
-import lombok.Getter;
+import org.example.dto.SettlementResultDTO;
+import org.example.exceptions.DuplicatePaymentException;
+import org.example.exceptions.InvalidRideException;
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.models.Rider;
 import org.example.repository.Database;
+import org.example.repository.PaymentLedger;
+import org.example.services.payment.gateway.PaymentGateway;
 import org.example.services.payment.impl.WalletPayment;
+import org.example.services.ride.RideService;
+import org.example.services.ride.RideServiceImpl;
+import org.example.utilities.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-@Getter
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// One stateless strategy per method, built once; callers pass the method with each payment,
+// so concurrent requests share nothing but the database.
+// Card and UPI first charge the gateway, each method behind its own bulkhead; the ride is settled when the
+// gateway answers, on the gateway's thread. Cash and wallet payments settle on the caller's thread.
 @Service
 public class PaymentService {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    public static final int DEFAULT_MAX_QUEUED = 1_024;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2_000;
+
     private final Database db;
-    private Payment paymentMethod;
+    private final RideService rideService;
+    private final PaymentGateway gateway;
+    private final long timeoutMillis;
+    private final Map<PaymentMethodType, Payment> paymentMethods = new EnumMap<>(PaymentMethodType.class);
+    private final Map<PaymentMethodType, Bulkhead> bulkheads = new EnumMap<>(PaymentMethodType.class);
 
-    @Autowired
     public PaymentService(Database db) {
+        this(db, new RideServiceImpl(db));
+    }
+
+    public PaymentService(Database db, RideService rideService) {
+        this(db, rideService, PaymentGateway.INSTANT, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public PaymentService(Database db, PaymentGateway gateway, int maxInFlight, int maxQueued, long timeoutMillis) {
+        this(db, new RideServiceImpl(db), gateway, maxInFlight, maxQueued, timeoutMillis);
+    }
+
+    @Autowired
+    public PaymentService(
+            Database db,
+            RideService rideService,
+            PaymentGateway gateway,
+            @Value("${riderapp.payment.max-in-flight:256}") int maxInFlight,
+            @Value("${riderapp.payment.max-queued:1024}") int maxQueued,
+            @Value("${riderapp.payment.timeout-ms:2000}") long timeoutMillis
+    ) {
         this.db = db;
-        this.paymentMethod = new WalletPayment(db);
+        this.rideService = rideService;
+        this.gateway = gateway;
+        this.timeoutMillis = timeoutMillis;
+        for (PaymentMethodType type : PaymentMethodType.values()) {
+            paymentMethods.put(type, type.getPaymentMethod(db));
+            if (type.usesGateway()) {
+                bulkheads.put(type, new Bulkhead(maxInFlight, maxQueued, timeoutMillis));
+            }
+        }
     }
 
-    public void setPaymentMethod(PaymentMethodType paymentMethodType) {
-        this.paymentMethod = paymentMethodType.getPaymentMethod(db);
+    public Payment getPaymentMethod(PaymentMethodType paymentMethodType) {
+        return paymentMethods.get(paymentMethodType);
     }
 
-    public String processPayment(String rideID) {
-        return paymentMethod.sendMoney(rideID);
+    public WalletPayment getWallet() {
+        return (WalletPayment) paymentMethods.get(PaymentMethodType.WALLET);
     }
-}
 
+    public String processPayment(String rideID, PaymentMethodType paymentMethodType) {
+        try {
+            return processPaymentAsync(rideID, paymentMethodType).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // The ledger claim turns a retried or concurrent second payment for the ride into a rejection.
+    // Gateway trouble is a reply like LOW_BALANCE: PAYMENT_DECLINED, PAYMENT_TIMED_OUT, or PAYMENT_BUSY when the
+    // method's bulkhead is full or the call waited there longer than the timeout. The claim is released in every
+    // case but a settled payment. A charge that succeeds after its caller timed out still settles the ride.
+    public CompletableFuture<String> processPaymentAsync(String rideID, PaymentMethodType paymentMethodType) {
+        Ride ride;
+        try {
+            ride = rideService.billedRide(rideID);
+            db.getWriteAheadLog().checkWritable();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        PaymentLedger ledger = db.getPaymentLedger();
+        PaymentLedger.Claim claim = ledger.claim(rideID);
+        if (claim == null) {
+            return CompletableFuture.failedFuture(new DuplicatePaymentException());
+        }
+
+        Payment payment = paymentMethods.get(paymentMethodType);
+        if (!paymentMethodType.usesGateway()) {
+            CompletableFuture<String> settled;
+            try {
+                settled = CompletableFuture.completedFuture(payment.sendMoney(rideID, ride));
+            } catch (RuntimeException e) {
+                settled = CompletableFuture.failedFuture(e);
+            }
+            return settled.whenComplete((reply, error) -> ledger.release(claim));
+        }
+
+        GatewayCharge charge = new GatewayCharge(rideID, ride, paymentMethodType);
+        return charge.start()
+                .handle((charged, error) -> error == null ? payment.sendMoney(rideID, ride) : failureReply(error))
+                .whenComplete((reply, error) -> {
+                    ledger.release(claim);
+                    charge.reconcileIfTimedOut(reply);
+                });
+    }
+
+    // Settles a list of rides in one call and answers per ride, in the order given. Each ride is claimed and, for
+    // card and UPI, charged just like a single payment, but every driver's earnings are credited once with the sum
+    // of their rides in the batch. A ride that cannot be paid gets the reply a single payment would have given.
+    // Claims not turned into payments are released however the batch ends.
+    public List<SettlementResultDTO> settleBatch(List<String> rideIDs, PaymentMethodType paymentMethodType) {
+        db.getWriteAheadLog().checkWritable();
+        PaymentLedger ledger = db.getPaymentLedger();
+        int size = rideIDs.size();
+        Ride[] rides = new Ride[size];
+        String[] statuses = new String[size];
+        PaymentLedger.Claim[] claims = new PaymentLedger.Claim[size];
+
+        try {
+            for (int i = 0; i < size; i++) {
+                String rideID = rideIDs.get(i);
+                Ride ride = billedOrNull(rideID);
+                if (ride == null) {
+                    statuses[i] = "INVALID_RIDE";
+                } else if ((claims[i] = ledger.claim(rideID)) == null) {
+                    statuses[i] = "RIDE_ALREADY_PAID";
+                } else {
+                    if (!db.getDriverDetails().containsKey(ride.getDriverID())) {
+                        statuses[i] = "INVALID_DRIVER_ID";
+                    } else {
+                        rides[i] = ride;
+                    }
+                }
+            }
+
+            if (paymentMethodType.usesGateway()) {
+                charge(rideIDs, rides, statuses, claims, paymentMethodType);
+            } else if (paymentMethodType == PaymentMethodType.WALLET) {
+                debit(rides, statuses, claims);
+            }
+
+            boolean fromWallet = paymentMethodType == PaymentMethodType.WALLET;
+            Driver[] drivers = credit(rides, statuses, fromWallet);
+
+            List<SettlementResultDTO> results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String rideID = rideIDs.get(i);
+                Ride ride = rides[i];
+                if (ride == null) {
+                    Ride unpaid = statuses[i].equals("INVALID_RIDE") ? null : db.getRideDetails().get(rideID);
+                    results.add(unpaid == null
+                            ? new SettlementResultDTO(rideID, statuses[i], null, 0)
+                            : new SettlementResultDTO(rideID, statuses[i], unpaid.getDriverID(), unpaid.getBill()));
+                    continue;
+                }
+
+                Rider rider = fromWallet ? db.getRiderDetails().get(ride.getRiderID()) : null;
+                ledger.record(rideID, ride.getRiderID(), ride.getDriverID(), fromWallet, Money.toPaise(ride.getBill()));
+                db.getWriteAheadLog().payRide(rideID, drivers[i], rider);
+                db.archiveRide(rideID);
+                results.add(new SettlementResultDTO(rideID, "PAID", ride.getDriverID(), ride.getBill()));
+            }
+
+            return results;
+        } finally {
+            for (PaymentLedger.Claim claim : claims) {
+                if (claim != null) {
+                    ledger.release(claim);
+                }
+            }
+        }
+    }
+
+    // Credits each driver once with the sum of their rides. A driver removed while the batch was charging is not
+    // paid: their rides come back as INVALID_DRIVER_ID and wallet debits are returned to the riders.
+    private Driver[] credit(Ride[] rides, String[] statuses, boolean fromWallet) {
+        Driver[] drivers = new Driver[rides.length];
+        // By identity: drivers compare by their state, and two drivers can be in the same state
+        Map<Driver, Long> credits = new IdentityHashMap<>();
+        for (int i = 0; i < rides.length; i++) {
+            if (rides[i] == null) {
+                continue;
+            }
+
+            long bill = Money.toPaise(rides[i].getBill());
+            drivers[i] = db.getDriverDetails().get(rides[i].getDriverID());
+            if (drivers[i] == null) {
+                Rider rider = fromWallet ? db.getRiderDetails().get(rides[i].getRiderID()) : null;
+                if (rider != null) {
+                    rider.credit(bill);
+                }
+                rides[i] = null;
+                statuses[i] = "INVALID_DRIVER_ID";
+                continue;
+            }
+            credits.merge(drivers[i], bill, Long::sum);
+        }
+        credits.forEach(Driver::addEarnings);
+
+        return drivers;
+    }
 
+    // Starts every charge before waiting on any, so the batch takes about as long as its slowest charge
+    private void charge(List<String> rideIDs, Ride[] rides, String[] statuses, PaymentLedger.Claim[] claims,
+                        PaymentMethodType paymentMethodType) {
+        GatewayCharge[] gatewayCharges = new GatewayCharge[rides.length];
+        List<CompletableFuture<String>> charges = new ArrayList<>(rides.length);
+        for (int i = 0; i < rides.length; i++) {
+            if (rides[i] == null) {
+                charges.add(null);
+                continue;
+            }
+
+            gatewayCharges[i] = new GatewayCharge(rideIDs.get(i), rides[i], paymentMethodType);
+            charges.add(gatewayCharges[i].start().handle((charged, error) -> error == null ? null : failureReply(error)));
+        }
+
+        for (int i = 0; i < rides.length; i++) {
+            String reply = charges.get(i) == null ? null : charges.get(i).join();
+            if (reply != null) {
+                release(claims, i);
+                gatewayCharges[i].reconcileIfTimedOut(reply);
+                rides[i] = null;
+                statuses[i] = reply;
+            }
+        }
+    }
+
+    // Settles a ride whose charge succeeded after the caller gave up, unless a retry has paid or is paying it
+    private void settleLate(String rideID, Ride ride, PaymentMethodType paymentMethodType) {
+        PaymentLedger ledger = db.getPaymentLedger();
+        PaymentLedger.Claim claim = ledger.claim(rideID);
+        if (claim == null) {
+            return;
+        }
+
+        try {
+            paymentMethods.get(paymentMethodType).sendMoney(rideID, ride);
+        } finally {
+            ledger.release(claim);
+        }
+    }
+
+    private void debit(Ride[] rides, String[] statuses, PaymentLedger.Claim[] claims) {
+        for (int i = 0; i < rides.length; i++) {
+            if (rides[i] == null) {
+                continue;
+            }
+
+            Rider rider = db.getRiderDetails().get(rides[i].getRiderID());
+            String reply = rider == null ? "INVALID_RIDE"
+                    : rider.debit(Money.toPaise(rides[i].getBill())) == Rider.DECLINED ? "LOW_BALANCE" : null;
+            if (reply != null) {
+                release(claims, i);
+                rides[i] = null;
+                statuses[i] = reply;
+            }
+        }
+    }
+
+    // Gives up a batch ride's claim as soon as it cannot be paid and forgets it, so the batch's final release
+    // skips it
+    private void release(PaymentLedger.Claim[] claims, int i) {
+        db.getPaymentLedger().release(claims[i]);
+        claims[i] = null;
+    }
+
+    // Unknown and unfinished rides cannot be paid
+    private Ride billedOrNull(String rideID) {
+        try {
+            return rideService.billedRide(rideID);
+        } catch (InvalidRideException e) {
+            return null;
+        }
+    }
+
+    // One card or UPI charge through the method's bulkhead. The ride ID is the gateway's idempotency key, so a
+    // retry after a timeout gets the first charge's answer instead of moving the money again.
+    private final class GatewayCharge {
+        private final String rideID;
+        private final Ride ride;
+        private final PaymentMethodType paymentMethodType;
+        private volatile CompletableFuture<Void> answer;
+
+        private GatewayCharge(String rideID, Ride ride, PaymentMethodType paymentMethodType) {
+            this.rideID = rideID;
+            this.ride = ride;
+            this.paymentMethodType = paymentMethodType;
+        }
+
+        private CompletableFuture<Void> start() {
+            long bill = Money.toPaise(ride.getBill());
+            return bulkheads.get(paymentMethodType).submit(() -> {
+                answer = gateway.charge(rideID, bill);
+                return answer.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            });
+        }
+
+        // Called after the claim is released, so the late settlement can take the claim itself
+        private void reconcileIfTimedOut(String reply) {
+            CompletableFuture<Void> pending = answer;
+            if (pending != null && "PAYMENT_TIMED_OUT".equals(reply)) {
+                pending.thenRun(() -> settleLate(rideID, ride, paymentMethodType));
+            }
+        }
+    }
+
+    private static String failureReply(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return "PAYMENT_TIMED_OUT";
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return "PAYMENT_BUSY";
+        }
+        return "PAYMENT_DECLINED";
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.services.payment.gateway;
+
+import java.util.concurrent.CompletableFuture;
+
+// The outside processor that moves the money for card and UPI payments. A charge completes later on the
+// gateway's own threads, so nobody has to wait on it.
+// Charges with the same idempotency key are one charge: a repeat gets the answer of the charge in flight or of
+// the one that succeeded, and moves no money. Only a declined key may be charged again.
+public interface PaymentGateway {
+    PaymentGateway INSTANT = (idempotencyKey, paise) -> CompletableFuture.completedFuture(null);
+
+    CompletableFuture<Void> charge(String idempotencyKey, long paise);
+}
@@ -0,0 +1,22 @@
+package org.example.services.payment.gateway;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PaymentGatewayConfig {
+
+    // Card and UPI settle instantly unless a simulated latency or failure rate is set
+    @Bean
+    public PaymentGateway paymentGateway(
+            @Value("${riderapp.gateway.min-latency-ms:0}") long minLatencyMillis,
+            @Value("${riderapp.gateway.max-latency-ms:0}") long maxLatencyMillis,
+            @Value("${riderapp.gateway.failure-rate:0}") double failureRate
+    ) {
+        if (maxLatencyMillis <= 0 && failureRate <= 0) {
+            return PaymentGateway.INSTANT;
+        }
+        return new SimulatedGateway(minLatencyMillis, maxLatencyMillis, failureRate);
+    }
+}
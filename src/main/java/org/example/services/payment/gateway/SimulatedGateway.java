@@ -0,0 +1,68 @@
+package org.example.services.payment.gateway;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local stand-in for a remote gateway. Each charge answers after a random latency between the two bounds and
+// is declined with probability failureRate. Answers come from one timer thread, so any number of charges can be
+// outstanding without a thread each, as with a real non-blocking client.
+public final class SimulatedGateway implements PaymentGateway, AutoCloseable {
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final double failureRate;
+    private final ScheduledExecutorService timer;
+    // Every key charged so far, with its answer; a declined key is dropped so it can be charged again
+    private final Map<String, CompletableFuture<Void>> charges = new ConcurrentHashMap<>();
+    private final AtomicLong charged = new AtomicLong();
+
+    public SimulatedGateway(long minLatencyMillis, long maxLatencyMillis, double failureRate) {
+        this.minLatencyMillis = Math.max(0, minLatencyMillis);
+        this.maxLatencyMillis = Math.max(this.minLatencyMillis, maxLatencyMillis);
+        this.failureRate = failureRate;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulated-gateway");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> charge(String idempotencyKey, long paise) {
+        CompletableFuture<Void> answer = new CompletableFuture<>();
+        CompletableFuture<Void> earlier = charges.putIfAbsent(idempotencyKey, answer);
+        if (earlier != null) {
+            return earlier.copy();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latency = random.nextLong(minLatencyMillis, maxLatencyMillis + 1);
+        boolean declined = random.nextDouble() < failureRate;
+
+        timer.schedule(() -> {
+            if (declined) {
+                charges.remove(idempotencyKey, answer);
+                answer.completeExceptionally(new IllegalStateException("PAYMENT_DECLINED"));
+            } else {
+                charged.addAndGet(paise);
+                answer.complete(null);
+            }
+        }, latency, TimeUnit.MILLISECONDS);
+        return answer.copy();
+    }
+
+    // Money moved so far, once per key
+    public long chargedPaise() {
+        return charged.get();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -4,6 +4,7 @@ import org.example.repository.Database;
 import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.services.payment.Payment;
+import org.example.utilities.Money;
 
 public class CardPayment implements Payment {
     private final Database db;
@@ -13,11 +14,15 @@ public class CardPayment implements Payment {
     }
 
     @Override
-    public String sendMoney(String rideID) {
-        Ride currentRide = db.getRideDetails().get(rideID);
+    public String sendMoney(String rideID, Ride currentRide) {
         Driver driver = db.getDriverDetails().get(currentRide.getDriverID());
 
-        driver.updateEarnings(currentRide.getBill());
+        long bill = Money.toPaise(currentRide.getBill());
+        driver.addEarnings(bill);
+        db.getPaymentLedger().record(rideID, currentRide.getRiderID(), currentRide.getDriverID(), false, bill);
+        db.getWriteAheadLog().payRide(rideID, driver, null);
+        db.archiveRide(rideID);
+
         return String.format("PAID %s %.1f VIA CARD", currentRide.getDriverID(), currentRide.getBill());
     }
 }
@@ -4,6 +4,7 @@ import org.example.repository.Database;
 import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.services.payment.Payment;
+import org.example.utilities.Money;
 
 public class CashPayment implements Payment {
     private final Database db;
@@ -13,11 +14,18 @@ public class CashPayment implements Payment {
     }
 
     @Override
-    public String sendMoney(String rideID) {
-        Ride currentRide = db.getRideDetails().get(rideID);
+    public String sendMoney(String rideID, Ride currentRide) {
         Driver driver = db.getDriverDetails().get(currentRide.getDriverID());
+        if (driver == null) {
+            return "INVALID_DRIVER_ID";
+        }
+
+        long bill = Money.toPaise(currentRide.getBill());
+        driver.addEarnings(bill);
+        db.getPaymentLedger().record(rideID, currentRide.getRiderID(), currentRide.getDriverID(), false, bill);
+        db.getWriteAheadLog().payRide(rideID, driver, null);
+        db.archiveRide(rideID);
 
-        driver.updateEarnings(currentRide.getBill());
         return String.format("PAID %s %.1f VIA CASH", currentRide.getDriverID(), currentRide.getBill());
     }
 }
@@ -5,6 +5,7 @@ import org.example.repository.Database;
 import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.services.payment.Payment;
+import org.example.utilities.Money;
 
 public class UpiPayment implements Payment {
     private final Database db;
@@ -14,11 +15,15 @@ public class UpiPayment implements Payment {
     }
 
     @Override
-    public String sendMoney(String rideID) {
-        Ride currentRide = db.getRideDetails().get(rideID);
+    public String sendMoney(String rideID, Ride currentRide) {
         Driver driver = db.getDriverDetails().get(currentRide.getDriverID());
 
-        driver.updateEarnings(currentRide.getBill());
+        long bill = Money.toPaise(currentRide.getBill());
+        driver.addEarnings(bill);
+        db.getPaymentLedger().record(rideID, currentRide.getRiderID(), currentRide.getDriverID(), false, bill);
+        db.getWriteAheadLog().payRide(rideID, driver, null);
+        db.archiveRide(rideID);
+
         return String.format("PAID %s %.1f VIA UPI", currentRide.getDriverID(), currentRide.getBill());
     }
 }
@@ -6,6 +6,7 @@ import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.models.Rider;
 import org.example.services.payment.Payment;
+import org.example.utilities.Money;
 
 public class WalletPayment implements Payment {
     private final Database db;
@@ -14,26 +15,41 @@ public class WalletPayment implements Payment {
         this.db = db;
     }
 
+    // No locks: the debit is a compare-and-set on the rider's balance and the credit goes to a striped adder.
+    // Both ends are looked up before the debit, so a ride whose rider or driver is gone leaves the wallet as it was.
     @Override
-    public String sendMoney(String rideID) {
-        Ride currentRide = db.getRideDetails().get(rideID);
+    public String sendMoney(String rideID, Ride currentRide) {
         Rider rider = db.getRiderDetails().get(currentRide.getRiderID());
+        if (rider == null) {
+            return "INVALID_RIDE";
+        }
 
         Driver driver = db.getDriverDetails().get(currentRide.getDriverID());
+        if (driver == null) {
+            return "INVALID_DRIVER_ID";
+        }
 
-        boolean success = rider.deductMoney(currentRide.getBill());
-
-        if (success){
-            driver.updateEarnings(currentRide.getBill());
-            return "PAID " + currentRide.getBill() + " SUCCESSFULLY | CURRENT_BALANCE " + rider.getWalletAmount();
+        long bill = Money.toPaise(currentRide.getBill());
+        long balance = rider.debit(bill);
+        if (balance == Rider.DECLINED) {
+            return "LOW_BALANCE";
         }
 
-        return "LOW_BALANCE";
+        driver.addEarnings(bill);
+        db.getPaymentLedger().record(rideID, currentRide.getRiderID(), currentRide.getDriverID(), true, bill);
+        db.getWriteAheadLog().payRide(rideID, driver, rider);
+        db.archiveRide(rideID);
+
+        return "PAID " + currentRide.getBill() + " SUCCESSFULLY | CURRENT_BALANCE " + Money.toRupees(balance);
     }
 
     public float addMoney(String riderID, float amount) {
         Rider rider = db.getRiderDetails().get(riderID);
 
-        return rider.addMoney(amount);
+        db.getWriteAheadLog().checkWritable();
+        long balance = rider.credit(Money.toPaise(amount));
+        db.getWriteAheadLog().addMoney(riderID, rider);
+
+        return Money.toRupees(balance);
     }
 }
@@ -0,0 +1,198 @@
+package org.example.services.ride;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Assigns riders to candidate drivers so that as many riders as possible are served at the lowest total pickup distance.
+// Riders and drivers that share no candidates are solved independently; components too large for the
+// Hungarian method fall back to a greedy closest-pair-first assignment.
+final class PickupAssignment {
+    private static final long MAX_HUNGARIAN_CELLS = 250_000;
+    private static final double UNASSIGNED = 1e6;
+    private static final double INFEASIBLE = 1e9;
+
+    private PickupAssignment() {
+    }
+
+    static Map<String, String> assign(List<PickupCandidate> candidates) {
+        List<PickupCandidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingLong(PickupCandidate::distanceSquared)
+                .thenComparing(PickupCandidate::riderID)
+                .thenComparing(PickupCandidate::driverID));
+
+        Map<String, Integer> riders = new HashMap<>();
+        Map<String, Integer> drivers = new HashMap<>();
+        for (PickupCandidate candidate : sorted) {
+            riders.putIfAbsent(candidate.riderID(), riders.size());
+            drivers.putIfAbsent(candidate.driverID(), drivers.size());
+        }
+
+        int[] parent = new int[riders.size() + drivers.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (PickupCandidate candidate : sorted) {
+            union(parent, riders.get(candidate.riderID()), riders.size() + drivers.get(candidate.driverID()));
+        }
+
+        Map<Integer, List<PickupCandidate>> components = new LinkedHashMap<>();
+        for (PickupCandidate candidate : sorted) {
+            int component = find(parent, riders.get(candidate.riderID()));
+            components.computeIfAbsent(component, key -> new ArrayList<>()).add(candidate);
+        }
+
+        Map<String, String> assignment = new HashMap<>();
+        for (List<PickupCandidate> component : components.values()) {
+            assignment.putAll(solve(component));
+        }
+
+        return assignment;
+    }
+
+    private static Map<String, String> solve(List<PickupCandidate> component) {
+        List<String> riderIDs = new ArrayList<>();
+        List<String> driverIDs = new ArrayList<>();
+        Map<String, Integer> riderIndex = new HashMap<>();
+        Map<String, Integer> driverIndex = new HashMap<>();
+
+        for (PickupCandidate candidate : component) {
+            if (riderIndex.putIfAbsent(candidate.riderID(), riderIDs.size()) == null) {
+                riderIDs.add(candidate.riderID());
+            }
+            if (driverIndex.putIfAbsent(candidate.driverID(), driverIDs.size()) == null) {
+                driverIDs.add(candidate.driverID());
+            }
+        }
+
+        int rows = riderIDs.size();
+        int columns = driverIDs.size() + rows;
+        if ((long) rows * columns > MAX_HUNGARIAN_CELLS) {
+            return greedy(component);
+        }
+
+        // One "no driver" column per rider keeps the problem square enough to always have a solution
+        double[][] cost = new double[rows][columns];
+        for (double[] row : cost) {
+            Arrays.fill(row, 0, driverIDs.size(), INFEASIBLE);
+            Arrays.fill(row, driverIDs.size(), columns, UNASSIGNED);
+        }
+        for (PickupCandidate candidate : component) {
+            cost[riderIndex.get(candidate.riderID())][driverIndex.get(candidate.driverID())] =
+                    Math.sqrt(candidate.distanceSquared());
+        }
+
+        int[] assignedColumn = hungarian(cost);
+        Map<String, String> assignment = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            int column = assignedColumn[row];
+            if (column < driverIDs.size() && cost[row][column] < UNASSIGNED) {
+                assignment.put(riderIDs.get(row), driverIDs.get(column));
+            }
+        }
+
+        return assignment;
+    }
+
+    private static Map<String, String> greedy(List<PickupCandidate> sortedCandidates) {
+        Map<String, String> assignment = new HashMap<>();
+        Set<String> takenDrivers = new HashSet<>();
+
+        for (PickupCandidate candidate : sortedCandidates) {
+            if (!assignment.containsKey(candidate.riderID()) && takenDrivers.add(candidate.driverID())) {
+                assignment.put(candidate.riderID(), candidate.driverID());
+            }
+        }
+
+        return assignment;
+    }
+
+    // Hungarian method with potentials, O(rows^2 * columns); needs rows <= columns
+    private static int[] hungarian(double[][] cost) {
+        int rows = cost.length;
+        int columns = cost[0].length;
+        double[] u = new double[rows + 1];
+        double[] v = new double[columns + 1];
+        int[] rowOfColumn = new int[columns + 1];
+        int[] way = new int[columns + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            rowOfColumn[0] = row;
+            int column0 = 0;
+            double[] minimum = new double[columns + 1];
+            boolean[] used = new boolean[columns + 1];
+            Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+
+            do {
+                used[column0] = true;
+                int row0 = rowOfColumn[column0];
+                double delta = Double.POSITIVE_INFINITY;
+                int column1 = 0;
+
+                for (int column = 1; column <= columns; column++) {
+                    if (used[column]) {
+                        continue;
+                    }
+
+                    double reduced = cost[row0 - 1][column - 1] - u[row0] - v[column];
+                    if (reduced < minimum[column]) {
+                        minimum[column] = reduced;
+                        way[column] = column0;
+                    }
+                    if (minimum[column] < delta) {
+                        delta = minimum[column];
+                        column1 = column;
+                    }
+                }
+
+                for (int column = 0; column <= columns; column++) {
+                    if (used[column]) {
+                        u[rowOfColumn[column]] += delta;
+                        v[column] -= delta;
+                    } else {
+                        minimum[column] -= delta;
+                    }
+                }
+
+                column0 = column1;
+            } while (rowOfColumn[column0] != 0);
+
+            do {
+                int column1 = way[column0];
+                rowOfColumn[column0] = rowOfColumn[column1];
+                column0 = column1;
+            } while (column0 != 0);
+        }
+
+        int[] assignedColumn = new int[rows];
+        for (int column = 1; column <= columns; column++) {
+            if (rowOfColumn[column] != 0) {
+                assignedColumn[rowOfColumn[column] - 1] = column - 1;
+            }
+        }
+
+        return assignedColumn;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+
+        return node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    record PickupCandidate(String riderID, String driverID, long distanceSquared) {
+    }
+}
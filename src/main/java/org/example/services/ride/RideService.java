@@ -1,9 +1,16 @@
 package org.example.services.ride;
 
+import org.example.models.Ride;
+
+import java.util.List;
+import java.util.Map;
+
 public interface RideService {
     void addRider(String riderID, int x_coordinate, int y_coordinate);
     String matchRider(String riderID);
+    Map<String, String> matchRiders(List<String> riderIDs);
     String startRide(String rideID, int N, String riderID);
     String stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins);
     double billRide(String rideID);
+    Ride billedRide(String rideID);
 }
@@ -1,109 +1,166 @@
 package org.example.services.ride;
 
 import org.example.repository.Database;
+import org.example.repository.NearestDrivers;
 import org.example.models.Driver;
 import org.example.models.Ride;
 import org.example.models.Rider;
 
 import org.example.exceptions.InvalidRideException;
 import org.example.exceptions.NoDriversException;
+import org.example.services.ride.PickupAssignment.PickupCandidate;
+import org.example.services.ride.surge.SurgeEngine;
+import org.example.services.ride.tariff.TariffEngine;
 import org.example.utilities.DistanceUtility;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class RideServiceImpl implements RideService {
+    private static final int MAX_MATCHED_DRIVERS = 5;
+    private static final int BATCH_CANDIDATES_PER_RIDER = 10;
+
     private final Database db;
+    private final TariffEngine tariffs;
+    private final SurgeEngine surge;
+    private final ThreadLocal<NearestDrivers> nearestDrivers = ThreadLocal.withInitial(() -> new NearestDrivers(MAX_MATCHED_DRIVERS));
 
-    @Autowired
     public RideServiceImpl(Database db) {
+        this(db, new TariffEngine(), SurgeEngine.NONE);
+    }
+
+    @Autowired
+    public RideServiceImpl(Database db, TariffEngine tariffs, SurgeEngine surge) {
         this.db = db;
+        this.tariffs = tariffs;
+        this.surge = surge;
     }
 
     @Override
     public void addRider(String riderID, int x_coordinate, int y_coordinate) {
+        db.getWriteAheadLog().checkWritable();
         db.getRiderDetails().put(riderID, new Rider(x_coordinate, y_coordinate));
+        db.getWriteAheadLog().addRider(riderID, x_coordinate, y_coordinate);
     }
 
     @Override
     public String matchRider(String riderID) {
-        final double LIMIT = 5.0;
         int[] riderCoordinates = db.getRiderDetails().get(riderID).getCoordinates();
+        surge.recordDemand(riderCoordinates[0], riderCoordinates[1]);
 
-        HashMap<String, Driver> allDrivers = db.getDriverDetails();
-        PriorityQueue<DriverDistancePair> nearestDrivers = new PriorityQueue<>((pair1, pair2) -> {
-            if (pair1.distance < pair2.distance) {
-                return -1;
-            } else if (pair1.distance > pair2.distance) {
-                return 1;
-            }
-
-            return pair1.ID.compareTo(pair2.ID);
-        });
-
-        for (String driverID : allDrivers.keySet()) {
-            Driver driver = allDrivers.get(driverID);
-
-            if (driver.isAvailable()) {
-                double distance = DistanceUtility.calculate(riderCoordinates, driver.getCoordinates());
-
-                if (distance <= LIMIT) {
-                    DriverDistancePair pair = new DriverDistancePair(driverID, distance);
-                    nearestDrivers.add(pair);
-                }
-            }
-        }
+        NearestDrivers nearest = nearestDrivers.get();
+        db.getDriverIndex().nearest(riderCoordinates[0], riderCoordinates[1], DistanceUtility.MATCH_LIMIT, nearest);
 
         try {
-            return driversMatched(riderID, nearestDrivers);
+            return driversMatched(riderID, nearest);
         } catch (NoDriversException e) {
             return e.getMessage();
         }
     }
 
-    private String driversMatched(String riderID, PriorityQueue<DriverDistancePair> nearestDrivers) throws NoDriversException {
-        if (nearestDrivers.isEmpty()) {
+    private String driversMatched(String riderID, NearestDrivers nearest) throws NoDriversException {
+        if (nearest.size() == 0) {
             throw new NoDriversException();
         }
 
-        StringBuilder result = new StringBuilder("DRIVERS_MATCHED");
-        db.getRiderDriverMapping().putIfAbsent(riderID, new ArrayList<>());
-        int size = Math.min(nearestDrivers.size(), 5);
+        String[] matchedDrivers = new String[nearest.size()];
+        StringBuilder result = new StringBuilder(64).append("DRIVERS_MATCHED");
 
-        for (int i = 0; i < size; i++) {
-            DriverDistancePair driver = nearestDrivers.poll();
-            if (driver != null) {
-                db.getRiderDriverMapping().get(riderID).add(driver.ID);
-                result.append(" ").append(driver.ID);
-            }
+        for (int i = 0; i < matchedDrivers.length; i++) {
+            matchedDrivers[i] = nearest.driverAt(i);
+            result.append(' ').append(matchedDrivers[i]);
         }
 
+        // Only the latest candidates count; START_RIDE N picks from the list printed by the last MATCH. Each
+        // MATCH stores a new list, so a stored list is never changed.
+        db.getRiderDriverMapping().put(riderID, Arrays.asList(matchedDrivers));
         return result.toString();
     }
 
+    // Riders in one batch never compete for the same driver; the assignment minimises their total pickup distance
+    @Override
+    public Map<String, String> matchRiders(List<String> riderIDs) {
+        Set<String> uniqueRiderIDs = new LinkedHashSet<>(riderIDs);
+        List<PickupCandidate> candidates = new ArrayList<>();
+        NearestDrivers nearest = new NearestDrivers(BATCH_CANDIDATES_PER_RIDER);
+
+        for (String riderID : uniqueRiderIDs) {
+            int[] riderCoordinates = db.getRiderDetails().get(riderID).getCoordinates();
+            surge.recordDemand(riderCoordinates[0], riderCoordinates[1]);
+            db.getDriverIndex().nearest(riderCoordinates[0], riderCoordinates[1], DistanceUtility.MATCH_LIMIT, nearest);
+
+            for (int i = 0; i < nearest.size(); i++) {
+                candidates.add(new PickupCandidate(riderID, nearest.driverAt(i), nearest.distanceSquaredAt(i)));
+            }
+        }
+
+        Map<String, String> assignedDrivers = PickupAssignment.assign(candidates);
+
+        Map<String, String> assignment = new LinkedHashMap<>();
+        for (String riderID : uniqueRiderIDs) {
+            String driverID = assignedDrivers.get(riderID);
+            if (driverID != null) {
+                assignment.put(riderID, driverID);
+                db.getRiderDriverMapping().put(riderID, List.of(driverID));
+            }
+        }
+
+        return assignment;
+    }
 
     @Override
     public String startRide(String rideID, int N, String riderID) {
         List<String> matchedDrivers = db.getRiderDriverMapping().get(riderID);
-
-        if (matchedDrivers.size() < N) {
+        if (matchedDrivers == null || matchedDrivers.size() < N) {
             throw new InvalidRideException();
         }
 
         String driverID = matchedDrivers.get(N - 1);
-        boolean driverAvailable = db.getDriverDetails().get(driverID).isAvailable();
 
-        if (!driverAvailable || db.getRideDetails().containsKey(rideID)) {
+        Driver driver = db.getDriverDetails().get(driverID);
+        if (driver == null || db.getRideDetails().containsKey(rideID)) {
             throw new InvalidRideException();
         }
 
-        db.getRideDetails().put(rideID, new Ride(riderID, driverID));
-        db.getDriverDetails().get(driverID).updateAvailability();
+        db.getWriteAheadLog().checkWritable();
+
+        // Quoted before the claim, so the rider's own driver leaving the supply does not raise their fare
+        Rider rider = db.getRiderDetails().get(riderID);
+        float quotedSurge = rider != null ? surge.multiplier(rider.getCoordinates()[0], rider.getCoordinates()[1]) : 1;
+
+        // Claiming the driver and taking them out of the index happen together, so two riders can never both win them
+        synchronized (driver) {
+            if (driver.isRemoved() || !driver.isAvailable()) {
+                throw new InvalidRideException();
+            }
+
+            driver.setAvailable(false);
+            db.getDriverIndex().remove(driverID);
+            surge.driverUnavailable(driver.getX(), driver.getY());
+        }
+
+        // Holding the ride keeps its log records in order: stopRide cannot log before this start is logged
+        Ride ride = new Ride(riderID, driverID);
+        ride.setStartHour(tariffs.currentHour());
+        if (rider != null) {
+            ride.setStartCoordinates(rider.getCoordinates().clone());
+            ride.setSurge(quotedSurge);
+        }
+        synchronized (ride) {
+            if (db.getRideDetails().putIfAbsent(rideID, ride) != null) {
+                releaseDriver(driverID, driver);
+                throw new InvalidRideException();
+            }
+            db.getWriteAheadLog().startRide(rideID, ride);
+        }
 
         return "RIDE_STARTED " + rideID;
     }
@@ -111,45 +168,73 @@ public class RideServiceImpl implements RideService {
     @Override
     public String stopRide(String rideID, int dest_x_coordinate, int dest_y_coordinate, int timeTakenInMins) {
         Ride currentRide = db.getRideDetails().get(rideID);
-        if (currentRide == null || currentRide.isFinished()) {
+        if (currentRide == null) {
             throw new InvalidRideException();
         }
 
-        db.getDriverDetails().get(currentRide.getDriverID()).updateAvailability();
-        currentRide.finishRide(dest_x_coordinate, dest_y_coordinate, timeTakenInMins);
+        db.getWriteAheadLog().checkWritable();
+        synchronized (currentRide) {
+            if (!currentRide.finishRide(dest_x_coordinate, dest_y_coordinate, timeTakenInMins)) {
+                throw new InvalidRideException();
+            }
+            db.getWriteAheadLog().stopRide(rideID, dest_x_coordinate, dest_y_coordinate, timeTakenInMins);
+        }
+
+        Driver driver = db.getDriverDetails().get(currentRide.getDriverID());
+        if (driver != null) {
+            releaseDriver(currentRide.getDriverID(), driver);
+        }
 
         return "RIDE_STOPPED " + rideID;
     }
 
+    // Sets the driver free rather than flipping them, so a second release of the same driver changes nothing
+    private void releaseDriver(String driverID, Driver driver) {
+        synchronized (driver) {
+            if (driver.isAvailable()) {
+                return;
+            }
+            driver.setAvailable(true);
+            if (driver.isRemoved()) {
+                return;
+            }
+            db.getDriverIndex().insert(driverID, driver.getX(), driver.getY());
+            surge.driverAvailable(driver.getX(), driver.getY());
+        }
+    }
+
     @Override
     public double billRide(String rideID) {
+        return billedRide(rideID).getBill();
+    }
+
+    // The fare is worked out on the first bill and kept on the ride, so polling BILL, paying and admin reads
+    // are one volatile read; the tariff, surge and rider lookups happen once per ride
+    @Override
+    public Ride billedRide(String rideID) {
         Ride currentRide = db.getRideDetails().get(rideID);
         if (currentRide == null || !currentRide.isFinished()) {
             throw new InvalidRideException();
         }
+        if (currentRide.isBilled()) {
+            return currentRide;
+        }
 
-        final double BASE_FARE = 50.0;
-        final double PER_KM = 6.5;
-        final double PER_MIN = 2.0;
-        final double SERVICE_TAX = 1.2;      // 20 percent
-
-        double finalBill = BASE_FARE;
-
-        int[] startCoordinates = db.getRiderDetails().get(currentRide.getRiderID()).getCoordinates();
-        int[] destCoordinates = currentRide.getDestinationCoordinates();
-        double distanceTravelled = DistanceUtility.calculate(startCoordinates, destCoordinates);
-        finalBill += (distanceTravelled * PER_KM);
-
-        int timeTakenInMins = currentRide.getTimeTakenInMins();
-        finalBill += (timeTakenInMins * PER_MIN);
-
-        finalBill *= SERVICE_TAX;
-
-        currentRide.setBill((float) (Math.round(finalBill * 10.0) / 10.0));
+        db.getWriteAheadLog().checkWritable();
+        synchronized (currentRide) {
+            if (!currentRide.isBilled()) {
+                int[] startCoordinates = currentRide.getStartCoordinates();
+                if (startCoordinates == null) {
+                    startCoordinates = db.getRiderDetails().get(currentRide.getRiderID()).getCoordinates();
+                }
+                double distanceTravelled = DistanceUtility.calculate(startCoordinates, currentRide.getDestinationCoordinates());
 
-        return currentRide.getBill();
-    }
+                currentRide.setFare(tariffs.fare(currentRide.getStartHour(), distanceTravelled,
+                        currentRide.getTimeTakenInMins(), currentRide.getSurge()));
+                db.getWriteAheadLog().billRide(rideID, currentRide.getFare());
+            }
 
-    public record DriverDistancePair(String ID, double distance) {
+            return currentRide;
+        }
     }
 }
@@ -0,0 +1,172 @@
+package org.example.services.ride.surge;
+
+import org.example.models.Driver;
+import org.example.repository.Database;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Supply and demand per grid cell, kept up to date by the events that change them rather than by scanning
+// drivers. Demand is the match requests made in a cell over a sliding window. Supply is the drivers available
+// in it, moved by the same add, move, claim and release steps that move drivers in and out of the spatial index.
+// Both are atomics, so recording an event never blocks the dispatch path.
+@Service
+public class SurgeEngine {
+    // Tracks nothing and never surges; for services built outside Spring
+    public static final SurgeEngine NONE = new SurgeEngine();
+
+    private static final int BUCKETS = 10;
+
+    private final boolean enabled;
+    private final int cellSize;
+    private final long bucketMillis;
+    private final int minDemand;
+    private final int requestsPerDriver;
+    private final float maxSurge;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+
+    private SurgeEngine() {
+        this.enabled = false;
+        this.cellSize = 1;
+        this.bucketMillis = 1;
+        this.minDemand = Integer.MAX_VALUE;
+        this.requestsPerDriver = 1;
+        this.maxSurge = 1;
+        this.clock = System::currentTimeMillis;
+    }
+
+    @Autowired
+    public SurgeEngine(
+            Database db,
+            @Value("${riderapp.surge.cell-size:5}") int cellSize,
+            @Value("${riderapp.surge.window-s:300}") int windowSeconds,
+            @Value("${riderapp.surge.min-demand:10}") int minDemand,
+            @Value("${riderapp.surge.requests-per-driver:2}") int requestsPerDriver,
+            @Value("${riderapp.surge.max:3.0}") float maxSurge
+    ) {
+        this(db, cellSize, windowSeconds * 1_000L, minDemand, requestsPerDriver, maxSurge, System::currentTimeMillis);
+    }
+
+    // Counts the drivers already available, such as those replayed from the log, once at startup
+    public SurgeEngine(Database db, int cellSize, long windowMillis, int minDemand, int requestsPerDriver,
+                       float maxSurge, LongSupplier clock) {
+        this.enabled = true;
+        this.cellSize = Math.max(1, cellSize);
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        this.minDemand = Math.max(1, minDemand);
+        this.requestsPerDriver = Math.max(1, requestsPerDriver);
+        this.maxSurge = Math.max(1, maxSurge);
+        this.clock = clock;
+
+        for (Driver driver : db.getDriverDetails().values()) {
+            if (driver.isAvailable()) {
+                driverAvailable(driver.getX(), driver.getY());
+            }
+        }
+    }
+
+    public void recordDemand(int x_coordinate, int y_coordinate) {
+        if (enabled) {
+            cell(x_coordinate, y_coordinate).countDemand(epoch());
+        }
+    }
+
+    public void driverAvailable(int x_coordinate, int y_coordinate) {
+        if (enabled) {
+            cell(x_coordinate, y_coordinate).supply.incrementAndGet();
+        }
+    }
+
+    public void driverUnavailable(int x_coordinate, int y_coordinate) {
+        if (enabled) {
+            cell(x_coordinate, y_coordinate).supply.decrementAndGet();
+        }
+    }
+
+    public void driverMoved(int from_x_coordinate, int from_y_coordinate, int to_x_coordinate, int to_y_coordinate) {
+        if (enabled && cellOf(from_x_coordinate, from_y_coordinate) != cellOf(to_x_coordinate, to_y_coordinate)) {
+            driverUnavailable(from_x_coordinate, from_y_coordinate);
+            driverAvailable(to_x_coordinate, to_y_coordinate);
+        }
+    }
+
+    // Reads the 3x3 block of cells around the point, the same reach as matching with the default cell size.
+    // Below minDemand requests there is no surge; above it the fare grows with requests per available driver,
+    // in steps of 0.1 and up to maxSurge.
+    public float multiplier(int x_coordinate, int y_coordinate) {
+        if (!enabled) {
+            return 1;
+        }
+
+        int epoch = epoch();
+        int cellX = Math.floorDiv(x_coordinate, cellSize);
+        int cellY = Math.floorDiv(y_coordinate, cellSize);
+        long demand = 0;
+        long supply = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                Cell cell = cells.get(cellKey(cellX + dx, cellY + dy));
+                if (cell != null) {
+                    demand += cell.demand(epoch);
+                    supply += Math.max(0, cell.supply.get());
+                }
+            }
+        }
+
+        if (demand < minDemand) {
+            return 1;
+        }
+        double surge = (double) demand / (Math.max(1, supply) * requestsPerDriver);
+        return (float) (Math.floor(Math.min(maxSurge, Math.max(1, surge)) * 10) / 10);
+    }
+
+    private Cell cell(int x_coordinate, int y_coordinate) {
+        return cells.computeIfAbsent(cellOf(x_coordinate, y_coordinate), key -> new Cell());
+    }
+
+    private long cellOf(int x_coordinate, int y_coordinate) {
+        return cellKey(Math.floorDiv(x_coordinate, cellSize), Math.floorDiv(y_coordinate, cellSize));
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private int epoch() {
+        return (int) (clock.getAsLong() / bucketMillis);
+    }
+
+    private static final class Cell {
+        // Each bucket packs the epoch it counts for (high 32 bits) with its count (low 32 bits), so moving a
+        // stale bucket on to the current epoch and counting into it is one compare-and-set
+        private final AtomicLongArray demand = new AtomicLongArray(BUCKETS);
+        private final AtomicInteger supply = new AtomicInteger();
+
+        void countDemand(int epoch) {
+            int bucket = Math.floorMod(epoch, BUCKETS);
+            long current;
+            long next;
+            do {
+                current = demand.get(bucket);
+                next = (int) (current >>> 32) == epoch ? current + 1 : ((long) epoch << 32) | 1;
+            } while (!demand.compareAndSet(bucket, current, next));
+        }
+
+        long demand(int epoch) {
+            long total = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                long packed = demand.get(bucket);
+                if (epoch - (int) (packed >>> 32) < BUCKETS) {
+                    total += (int) packed;
+                }
+            }
+            return total;
+        }
+    }
+}
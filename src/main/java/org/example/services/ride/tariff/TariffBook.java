@@ -0,0 +1,188 @@
+package org.example.services.ride.tariff;
+
+import org.example.exceptions.InvalidTariffException;
+import org.example.models.Fare;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Fare rules for every city, vehicle class and hour of the day, resolved when the rules are loaded. Each
+// (city, vehicle class, hour) owns one slot in four parallel arrays, so a bill is a few array reads and flops
+// with no map lookups, boxing or allocation. A book never changes; TariffEngine swaps in a new one.
+public final class TariffBook {
+    public static final int HOURS = 24;
+
+    // The fare RiderApp has always charged, for when no tariff file is configured
+    public static final TariffBook STANDARD = parse(List.of("default standard 0-24 50.0 6.5 2.0 1.2"));
+
+    private final Map<String, Integer> firstSlots;
+    private final int rules;
+    private final double[] baseFares;
+    private final double[] perKm;
+    private final double[] perMin;
+    private final double[] serviceTax;
+
+    private TariffBook(Map<String, Integer> firstSlots, int rules, double[] baseFares, double[] perKm,
+                       double[] perMin, double[] serviceTax) {
+        this.firstSlots = firstSlots;
+        this.rules = rules;
+        this.baseFares = baseFares;
+        this.perKm = perKm;
+        this.perMin = perMin;
+        this.serviceTax = serviceTax;
+    }
+
+    public static TariffBook load(Path file) {
+        try {
+            return parse(Files.readAllLines(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // One rule per line: city, vehicle class, hours, base fare, per km, per minute and the service tax multiplier.
+    // Hours are a from-to range that may wrap past midnight, like 22-6. Every hour of each city and vehicle class
+    // must be covered exactly once. The first line's city and vehicle class are the default.
+    public static TariffBook parse(List<String> lines) {
+        Map<String, int[]> hourRules = new LinkedHashMap<>();
+        List<double[]> fares = new ArrayList<>();
+
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+            if (parts.length != 7) {
+                throw new InvalidTariffException("LINE " + lineNumber);
+            }
+
+            int from;
+            int to;
+            double[] fare = new double[4];
+            try {
+                String[] hours = parts[2].split("-");
+                from = Integer.parseInt(hours[0]);
+                to = Integer.parseInt(hours[1]);
+                for (int i = 0; i < 4; i++) {
+                    fare[i] = Double.parseDouble(parts[3 + i]);
+                }
+            } catch (RuntimeException e) {
+                throw new InvalidTariffException("LINE " + lineNumber);
+            }
+            if (from < 0 || from >= HOURS || to <= 0 || to > HOURS || from == to || !valid(fare)) {
+                throw new InvalidTariffException("LINE " + lineNumber);
+            }
+
+            int[] rulesByHour = hourRules.computeIfAbsent(key(parts[0], parts[1]), k -> {
+                int[] unset = new int[HOURS];
+                Arrays.fill(unset, -1);
+                return unset;
+            });
+            int span = to > from ? to - from : to + HOURS - from;
+            for (int i = 0; i < span; i++) {
+                int hour = (from + i) % HOURS;
+                if (rulesByHour[hour] != -1) {
+                    throw new InvalidTariffException("LINE " + lineNumber);
+                }
+                rulesByHour[hour] = fares.size();
+            }
+            fares.add(fare);
+        }
+
+        if (hourRules.isEmpty()) {
+            throw new InvalidTariffException("EMPTY");
+        }
+
+        int slots = hourRules.size() * HOURS;
+        double[] baseFares = new double[slots];
+        double[] perKm = new double[slots];
+        double[] perMin = new double[slots];
+        double[] serviceTax = new double[slots];
+        Map<String, Integer> firstSlots = new HashMap<>();
+
+        int slot = 0;
+        for (Map.Entry<String, int[]> route : hourRules.entrySet()) {
+            firstSlots.put(route.getKey(), slot);
+            for (int hour = 0; hour < HOURS; hour++, slot++) {
+                int rule = route.getValue()[hour];
+                if (rule == -1) {
+                    throw new InvalidTariffException("NO_RULE " + route.getKey() + " " + hour);
+                }
+
+                double[] fare = fares.get(rule);
+                baseFares[slot] = fare[0];
+                perKm[slot] = fare[1];
+                perMin[slot] = fare[2];
+                serviceTax[slot] = fare[3];
+            }
+        }
+
+        return new TariffBook(firstSlots, fares.size(), baseFares, perKm, perMin, serviceTax);
+    }
+
+    public int getRules() {
+        return rules;
+    }
+
+    // -1 when the book has no rules for the city and vehicle class
+    public int slot(String city, String vehicleClass, int hour) {
+        Integer first = firstSlots.get(key(city, vehicleClass));
+        return first == null ? -1 : first + hour;
+    }
+
+    public int defaultSlot(int hour) {
+        return hour;
+    }
+
+    public float bill(int slot, double distanceTravelled, int timeTakenInMins) {
+        double finalBill = baseFares[slot];
+        finalBill += distanceTravelled * perKm[slot];
+        finalBill += timeTakenInMins * perMin[slot];
+        finalBill *= serviceTax[slot];
+
+        return (float) (Math.round(finalBill * 10.0) / 10.0);
+    }
+
+    // The same total as bill, with its parts and the surge applied on top
+    public Fare fare(int slot, double distanceTravelled, int timeTakenInMins, float surge) {
+        double distanceFare = distanceTravelled * perKm[slot];
+        double timeFare = timeTakenInMins * perMin[slot];
+        double beforeTax = baseFares[slot] + distanceFare + timeFare;
+
+        float total = bill(slot, distanceTravelled, timeTakenInMins);
+        if (surge != 1) {
+            total = (float) (Math.round(total * surge * 10.0) / 10.0);
+        }
+        return new Fare(baseFares[slot], distanceFare, timeFare, beforeTax * (serviceTax[slot] - 1), surge, total);
+    }
+
+    // Bills many rides against this one book, so a reload part way through cannot mix two tariffs
+    public void billAll(int[] slots, double[] distances, int[] timesInMins, float[] bills) {
+        for (int i = 0; i < bills.length; i++) {
+            bills[i] = bill(slots[i], distances[i], timesInMins[i]);
+        }
+    }
+
+    private static boolean valid(double[] fare) {
+        for (double value : fare) {
+            if (!Double.isFinite(value) || value < 0) {
+                return false;
+            }
+        }
+        return fare[3] > 0;
+    }
+
+    private static String key(String city, String vehicleClass) {
+        return city + " " + vehicleClass;
+    }
+}
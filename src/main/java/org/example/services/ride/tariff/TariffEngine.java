@@ -0,0 +1,61 @@
+package org.example.services.ride.tariff;
+
+import org.example.models.Fare;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalTime;
+
+// Holds the current TariffBook. A reload parses the file into a new book and publishes it with one volatile
+// write, so bills never wait on a reload and each bill sees either the old book or the new one, never a mix.
+// A file that fails to parse leaves the current book in place.
+@Service
+public class TariffEngine {
+    private final String file;
+    private volatile TariffBook book;
+
+    public TariffEngine() {
+        this("");
+    }
+
+    @Autowired
+    public TariffEngine(@Value("${riderapp.tariff.file:}") String file) {
+        this.file = file;
+        this.book = file.isEmpty() ? TariffBook.STANDARD : TariffBook.load(Path.of(file));
+    }
+
+    public TariffBook getBook() {
+        return book;
+    }
+
+    public void setBook(TariffBook book) {
+        this.book = book;
+    }
+
+    // Rereads the configured file; returns the number of rules now in use
+    public int reload() {
+        TariffBook loaded = file.isEmpty() ? TariffBook.STANDARD : TariffBook.load(Path.of(file));
+        book = loaded;
+        return loaded.getRules();
+    }
+
+    // The hour of day that picks a ride's time band; rides record it when they start
+    public int currentHour() {
+        return LocalTime.now().getHour();
+    }
+
+    // Rides carry no city or vehicle class yet, so they are billed at the default route's rate for this hour
+    public float bill(double distanceTravelled, int timeTakenInMins) {
+        TariffBook current = book;
+        return current.bill(current.defaultSlot(currentHour()), distanceTravelled, timeTakenInMins);
+    }
+
+    // hour is the ride's start hour, or negative for a ride restored without one, which bills at the current hour
+    public Fare fare(int hour, double distanceTravelled, int timeTakenInMins, float surge) {
+        TariffBook current = book;
+        return current.fare(current.defaultSlot(hour < 0 ? currentHour() : hour), distanceTravelled, timeTakenInMins,
+                surge);
+    }
+}
@@ -4,13 +4,20 @@ import org.springframework.stereotype.Component;
 
 @Component
 public final class DistanceUtility {
+    public static final double MATCH_LIMIT = 5.0;
+
     private DistanceUtility() {
     }
 
     public static double calculate(int[] point_A, int[] point_B) {
-        double x_component = Math.pow(point_B[0] - point_A[0], 2);
-        double y_component = Math.pow(point_B[1] - point_A[1], 2);
+        return Math.sqrt(distanceSquared(point_A[0], point_A[1], point_B[0], point_B[1]));
+    }
+
+    // Exact for any int coordinates, and enough on its own when only the ordering of distances matters
+    public static long distanceSquared(int x1, int y1, int x2, int y2) {
+        long x_component = (long) x2 - x1;
+        long y_component = (long) y2 - y1;
 
-        return Math.sqrt(x_component + y_component);
+        return x_component * x_component + y_component * y_component;
     }
 }
@@ -0,0 +1,28 @@
+package org.example.utilities;
+
+import java.math.BigDecimal;
+
+// Balances and earnings are whole paise in a long, so sums are exact; rupee floats only appear
+// at the edges, where bills are computed and amounts are read from or shown to a user
+public final class Money {
+    public static final int PAISE_PER_RUPEE = 100;
+
+    private Money() {
+    }
+
+    public static long toPaise(double rupees) {
+        return Math.round(rupees * PAISE_PER_RUPEE);
+    }
+
+    public static float toRupees(long paise) {
+        return (float) ((double) paise / PAISE_PER_RUPEE);
+    }
+
+    public static BigDecimal toDecimal(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    public static long fromDecimal(BigDecimal rupees) {
+        return rupees.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.benchmark;
+
+import org.example.models.Driver;
+import org.example.repository.DriverStoreType;
+
+import java.util.Map;
+
+// Retained heap and full-scan time of every DriverStoreType. Driver IDs are created up front and shared,
+// so the numbers cover only what the store itself adds. 10M drivers needs about -Xmx6g.
+// Select the store for a deployment with -Driderapp.driver-store=OBJECTS|COLUMNS.
+public class DriverStoreFootprintBenchmark {
+    private static final int SCANS = 5;
+
+    public static void main(String[] args) {
+        int[] fleetSizes = args.length == 0 ? new int[]{1_000_000, 10_000_000} : new int[]{Integer.parseInt(args[0])};
+
+        for (int fleetSize : fleetSizes) {
+            String[] driverIDs = new String[fleetSize];
+            for (int i = 0; i < fleetSize; i++) {
+                driverIDs[i] = "D" + i;
+            }
+
+            for (DriverStoreType type : DriverStoreType.values()) {
+                run(type, driverIDs);
+            }
+        }
+    }
+
+    private static void run(DriverStoreType type, String[] driverIDs) {
+        long before = usedHeap();
+        Map<String, Driver> drivers = type.createDriverMap();
+        for (int i = 0; i < driverIDs.length; i++) {
+            drivers.put(driverIDs[i], new Driver(i % 10_000, i / 10_000));
+        }
+        long retained = usedHeap() - before;
+
+        double checksum = 0;
+        long start = System.nanoTime();
+        for (int scan = 0; scan < SCANS; scan++) {
+            for (Map.Entry<String, Driver> entry : drivers.entrySet()) {
+                Driver driver = entry.getValue();
+                checksum += driver.getCoordinates()[0] + driver.getRating();
+            }
+        }
+        long scanNanos = (System.nanoTime() - start) / SCANS;
+
+        System.out.printf("%-8s %,11d drivers  heap=%,7.1f MB (%.1f bytes/driver)  scan=%.1f ms  [%.0f]%n",
+                type, driverIDs.length, retained / 1e6, (double) retained / driverIDs.length, scanNanos / 1e6, checksum);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
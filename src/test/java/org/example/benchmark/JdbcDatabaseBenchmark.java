@@ -0,0 +1,75 @@
+package org.example.benchmark;
+
+import org.example.repository.Database;
+import org.example.repository.InMemoryDB;
+import org.example.repository.jdbc.JdbcDatabase;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.payment.impl.CashPayment;
+import org.example.services.ride.RideServiceImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+// Ride throughput of InMemoryDB against JdbcDatabase on an H2 file. Each ride is matched, started, stopped,
+// billed and paid. For JDBC the time until the write-behind queue is committed is reported separately.
+public class JdbcDatabaseBenchmark {
+    private static final int BURST_RIDES = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int rides = args.length == 0 ? 200_000 : Integer.parseInt(args[0]);
+
+        // A burst that fits in the write-behind queue, then a sustained run that is limited by the store
+        for (int round = 0; round < 2; round++) {
+            for (int count : new int[]{BURST_RIDES, rides}) {
+                long start = System.nanoTime();
+                populate(new InMemoryDB(), count);
+                report("IN_MEMORY", count, System.nanoTime() - start, 0);
+
+                Path directory = Files.createTempDirectory("jdbc-benchmark");
+                JdbcDatabase db = new JdbcDatabase("jdbc:h2:" + directory.resolve("riderapp").toAbsolutePath());
+                start = System.nanoTime();
+                populate(db, count);
+                long ridesNanos = System.nanoTime() - start;
+                db.flush();
+                report("JDBC", count, ridesNanos, System.nanoTime() - start);
+                db.destroy();
+
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : files.toList()) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    private static void populate(Database db, int rides) {
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        CashPayment cash = new CashPayment(db);
+        int people = Math.max(1, rides / 10);
+
+        for (int i = 0; i < people; i++) {
+            driverService.addDriver("D" + i, (i % 1_000) * 4, (i / 1_000) * 4);
+            rideService.addRider("R" + i, (i % 1_000) * 4, (i / 1_000) * 4);
+        }
+
+        for (int i = 0; i < rides; i++) {
+            String riderID = "R" + (i % people);
+            String rideID = "RIDE-" + i;
+            int[] coordinates = db.getRiderDetails().get(riderID).getCoordinates();
+
+            rideService.matchRider(riderID);
+            rideService.startRide(rideID, 1, riderID);
+            rideService.stopRide(rideID, coordinates[0], coordinates[1], 10);
+            cash.sendMoney(rideID, rideService.billedRide(rideID));
+        }
+    }
+
+    private static void report(String name, int rides, long ridesNanos, long committedNanos) {
+        System.out.printf("%-9s %,9d rides  %,9.0f rides/s  %,6.2f us/ride%s%n", name, rides, rides / (ridesNanos / 1e9),
+                ridesNanos / 1e3 / rides, committedNanos == 0 ? "" : String.format("  all committed after %,.0f ms", committedNanos / 1e6));
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.benchmark;
+
+import org.example.repository.InMemoryDB;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Run with: java -Xmx8g -cp target/classes:target/test-classes:<deps> org.example.benchmark.MatchBenchmark [fleet sizes...]
+// Drivers are spread with a constant density, so a rider sees roughly the same number of nearby drivers at every fleet size.
+public class MatchBenchmark {
+    private static final int DRIVERS_PER_CELL = 4;
+    private static final int RIDERS = 1_000;
+    private static final int MATCHES = 200_000;
+
+    public static void main(String[] args) {
+        int[] fleetSizes = args.length == 0
+                ? new int[]{1_000, 10_000, 100_000, 1_000_000, 10_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        for (int fleetSize : fleetSizes) {
+            run(fleetSize);
+        }
+    }
+
+    private static void run(int fleetSize) {
+        InMemoryDB db = new InMemoryDB();
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        Random random = new Random(42);
+
+        int side = (int) Math.sqrt((double) fleetSize / DRIVERS_PER_CELL) * 5 + 1;
+        for (int i = 0; i < fleetSize; i++) {
+            driverService.addDriver("D" + i, random.nextInt(side), random.nextInt(side));
+        }
+        for (int i = 0; i < RIDERS; i++) {
+            rideService.addRider("R" + i, random.nextInt(side), random.nextInt(side));
+        }
+
+        for (int i = 0; i < MATCHES; i++) {
+            rideService.matchRider("R" + (i % RIDERS));
+        }
+        db.getRiderDriverMapping().clear();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MATCHES; i++) {
+            rideService.matchRider("R" + (i % RIDERS));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("drivers=%,d avg_match=%.2f us%n", fleetSize, elapsed / 1_000.0 / MATCHES);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.benchmark;
+
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.payment.gateway.SimulatedGateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Card payments against a simulated gateway answering in 100-800 ms. BLOCKING is a pool of request threads that
+// each wait for their payment; ASYNC submits every payment from one thread and lets the bulkhead bound what is
+// outstanding. Configure a deployment with -Driderapp.gateway.*-latency-ms and -Driderapp.payment.*.
+public class PaymentPipelineBenchmark {
+    private static final int REQUEST_THREADS = 64;
+
+    public static void main(String[] args) throws Exception {
+        int payments = args.length == 0 ? 5_000 : Integer.parseInt(args[0]);
+
+        try (SimulatedGateway gateway = new SimulatedGateway(100, 800, 0.01)) {
+            PaymentService blocking = new PaymentService(populate(payments), gateway, 1_024, payments, 2_000);
+            long start = System.nanoTime();
+            ExecutorService requests = Executors.newFixedThreadPool(REQUEST_THREADS);
+            for (int i = 0; i < payments; i++) {
+                String rideID = "RIDE-" + i;
+                requests.execute(() -> blocking.processPayment(rideID, PaymentMethodType.CARD));
+            }
+            requests.shutdown();
+            requests.awaitTermination(1, TimeUnit.HOURS);
+            report("BLOCKING", payments, System.nanoTime() - start);
+
+            PaymentService async = new PaymentService(populate(payments), gateway, 1_024, payments, 2_000);
+            start = System.nanoTime();
+            List<CompletableFuture<String>> replies = new ArrayList<>(payments);
+            for (int i = 0; i < payments; i++) {
+                replies.add(async.processPaymentAsync("RIDE-" + i, PaymentMethodType.CARD));
+            }
+            CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).join();
+            report("ASYNC", payments, System.nanoTime() - start);
+        }
+    }
+
+    private static ConcurrentInMemoryDB populate(int payments) {
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+        for (int i = 0; i < payments; i++) {
+            db.getDriverDetails().put("D" + i % 100, new Driver(0, 0));
+            Ride ride = new Ride("R" + i, "D" + i % 100);
+            ride.setBill(150F);
+            db.getRideDetails().put("RIDE-" + i, ride);
+        }
+        return db;
+    }
+
+    private static void report(String mode, int payments, long nanos) {
+        System.out.printf("%-8s %,d payments in %.1f s, %,.0f payments/s%n",
+                mode, payments, nanos / 1e9, payments / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.benchmark;
+
+import org.example.repository.DriverStoreType;
+import org.example.repository.InMemoryDB;
+import org.example.repository.MatchSessions;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.wal.MappedWriteAheadLog;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.payment.impl.CashPayment;
+import org.example.services.ride.RideServiceImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+// Restart time against dataset size, replaying the whole log versus loading a snapshot and an empty log tail.
+// Every ride is matched, started, stopped, billed and paid, so the log holds four records per ride.
+public class RestartBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] rideCounts = args.length == 0 ? new int[]{100_000, 500_000, 1_000_000} : new int[]{Integer.parseInt(args[0])};
+
+        for (int rides : rideCounts) {
+            Path directory = Files.createTempDirectory("restart-benchmark");
+            Path logFile = directory.resolve("riderapp.wal");
+
+            InMemoryDB db = open(logFile);
+            populate(db, rides);
+            db.getWriteAheadLog().close();
+
+            long start = System.nanoTime();
+            db = open(logFile);
+            long replayNanos = System.nanoTime() - start;
+
+            db.getWriteAheadLog().snapshot(db);
+            db.getWriteAheadLog().close();
+
+            start = System.nanoTime();
+            db = open(logFile);
+            long snapshotNanos = System.nanoTime() - start;
+            db.getWriteAheadLog().close();
+
+            System.out.printf("%,9d rides  log=%,6.1f MB replay=%,7.0f ms | snapshot=%,6.1f MB load=%,7.0f ms%n",
+                    rides, Files.size(logFile) / 1e6, replayNanos / 1e6, snapshotBytes(directory) / 1e6, snapshotNanos / 1e6);
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static InMemoryDB open(Path logFile) {
+        return new InMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, DriverStoreType.OBJECTS,
+                MatchSessions.DEFAULT_TTL_SECONDS, new MappedWriteAheadLog(logFile, 1_024, 5), RideArchive.NONE);
+    }
+
+    private static void populate(InMemoryDB db, int rides) {
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        CashPayment cash = new CashPayment(db);
+        int people = Math.max(1, rides / 10);
+
+        for (int i = 0; i < people; i++) {
+            driverService.addDriver("D" + i, (i % 1_000) * 4, (i / 1_000) * 4);
+            rideService.addRider("R" + i, (i % 1_000) * 4, (i / 1_000) * 4);
+        }
+
+        for (int i = 0; i < rides; i++) {
+            String riderID = "R" + (i % people);
+            String rideID = "RIDE-" + i;
+            int[] coordinates = db.getRiderDetails().get(riderID).getCoordinates();
+
+            db.getRiderDriverMapping().remove(riderID);
+            rideService.matchRider(riderID);
+            rideService.startRide(rideID, 1, riderID);
+            rideService.stopRide(rideID, coordinates[0], coordinates[1], 10);
+            cash.sendMoney(rideID, rideService.billedRide(rideID));
+        }
+    }
+
+    private static long snapshotBytes(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".snapshot")).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
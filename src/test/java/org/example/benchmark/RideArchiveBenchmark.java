@@ -0,0 +1,71 @@
+package org.example.benchmark;
+
+import org.example.models.Ride;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.archive.TieredRideMap;
+
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Retained heap of settled rides kept in a plain map versus moved into the archive, and the cost of a
+// random lookup in each. Ride IDs and rides are created as they go, so the numbers include them.
+public class RideArchiveBenchmark {
+    private static final int LOOKUPS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        int rides = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+
+        // Kept reachable so the second run's baseline still includes it
+        Map<String, Ride> heapRides = run("HEAP", new HashMap<>(), rides);
+
+        Path directory = Files.createTempDirectory("ride-archive");
+        RideArchive archive = new RideArchive(directory, 4_096);
+        try {
+            run("ARCHIVE", new TieredRideMap(new HashMap<>(), archive), rides);
+        } finally {
+            archive.clear();
+            Files.deleteIfExists(directory);
+        }
+        Reference.reachabilityFence(heapRides);
+    }
+
+    private static Map<String, Ride> run(String name, Map<String, Ride> rideDetails, int rides) {
+        long before = usedHeap();
+        for (int i = 0; i < rides; i++) {
+            String rideID = "RIDE-" + i;
+            Ride ride = new Ride("R" + i, "D" + (i % 50_000));
+            ride.finishRide(i % 1_000, i / 1_000, 10 + i % 50);
+            ride.setBill(50 + i % 500);
+            rideDetails.put(rideID, ride);
+
+            if (rideDetails instanceof TieredRideMap tieredRides) {
+                tieredRides.archive(rideID);
+            }
+        }
+        long retained = usedHeap() - before;
+
+        double checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            checksum += rideDetails.get("RIDE-" + ThreadLocalRandom.current().nextInt(rides)).getBill();
+        }
+        long lookupNanos = (System.nanoTime() - start) / LOOKUPS;
+
+        System.out.printf("%-8s %,11d rides  heap=%,7.1f MB (%.1f bytes/ride)  lookup=%,d ns  [%.0f]%n",
+                name, rides, retained / 1e6, (double) retained / rides, lookupNanos, checksum);
+        return rideDetails;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.benchmark;
+
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
+import org.example.utilities.DistanceUtility;
+
+import java.util.Random;
+
+// Compares query and update cost of every SpatialIndexType on a uniform and a clustered fleet.
+// Select the backend for a deployment with -Driderapp.spatial-index=GRID|KD_TREE|R_TREE.
+public class SpatialIndexBenchmark {
+    private static final int QUERIES = 200_000;
+    private static final int MOVES = 200_000;
+
+    public static void main(String[] args) {
+        int fleetSize = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+
+        for (boolean clustered : new boolean[]{false, true}) {
+            for (SpatialIndexType type : SpatialIndexType.values()) {
+                run(type, fleetSize, clustered);
+            }
+        }
+    }
+
+    private static void run(SpatialIndexType type, int fleetSize, boolean clustered) {
+        SpatialIndex index = type.createIndex();
+        Random random = new Random(42);
+        int side = (int) Math.sqrt(fleetSize) * 5;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < fleetSize; i++) {
+            int[] point = point(random, side, clustered);
+            index.insert("D" + i, point[0], point[1]);
+        }
+        long loadNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MOVES; i++) {
+            String driverID = "D" + random.nextInt(fleetSize);
+            int[] point = point(random, side, clustered);
+            index.remove(driverID);
+            index.insert(driverID, point[0], point[1]);
+        }
+        long moveNanos = System.nanoTime() - start;
+
+        long matched = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            int[] point = point(random, side, clustered);
+            matched += index.nearest(point[0], point[1], 5, DistanceUtility.MATCH_LIMIT).size();
+        }
+        long queryNanos = System.nanoTime() - start;
+
+        System.out.printf("%-8s %-9s load=%.2fs move=%.2f us nearest=%.2f us (avg %.1f matched)%n",
+                type, clustered ? "clustered" : "uniform", loadNanos / 1e9,
+                moveNanos / 1_000.0 / MOVES, queryNanos / 1_000.0 / QUERIES, (double) matched / QUERIES);
+    }
+
+    // Clustered fleets put 80% of drivers into a handful of small hotspots
+    private static int[] point(Random random, int side, boolean clustered) {
+        if (clustered && random.nextInt(10) < 8) {
+            int hotspot = random.nextInt(4);
+            int centre = side / 5 * (hotspot + 1);
+            return new int[]{centre + (int) (random.nextGaussian() * 20), centre + (int) (random.nextGaussian() * 20)};
+        }
+        return new int[]{random.nextInt(side), random.nextInt(side)};
+    }
+}
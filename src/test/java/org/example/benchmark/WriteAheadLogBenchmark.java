@@ -0,0 +1,37 @@
+package org.example.benchmark;
+
+import org.example.models.Rider;
+import org.example.repository.wal.MappedWriteAheadLog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Cost of one logged operation for different group commit sizes. Pass a directory on the disk you deploy to;
+// the default temp directory may be tmpfs, where forcing pages is free.
+// Configure a deployment with -Driderapp.wal.path, -Driderapp.wal.sync-every and -Driderapp.wal.sync-interval-ms.
+public class WriteAheadLogBenchmark {
+    private static final int OPERATIONS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = args.length == 0 ? Files.createTempDirectory("wal-benchmark") : Path.of(args[0]);
+
+        Rider rider = new Rider(0, 0);
+        rider.credit(1_000);
+
+        for (int syncEvery : new int[]{1, 16, 64, 1_024}) {
+            Path logFile = directory.resolve("benchmark-" + syncEvery + ".wal");
+            int operations = syncEvery == 1 ? OPERATIONS / 20 : OPERATIONS;
+
+            try (MappedWriteAheadLog log = new MappedWriteAheadLog(logFile, syncEvery, 5)) {
+                long start = System.nanoTime();
+                for (int i = 0; i < operations; i++) {
+                    log.addMoney("R" + (i % 10_000), rider);
+                }
+                long nanos = System.nanoTime() - start;
+
+                System.out.printf("sync-every=%-5d %.2f us per operation%n", syncEvery, nanos / 1_000.0 / operations);
+            }
+            Files.delete(logFile);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.config;
 
 import org.example.repository.Database;
+import org.example.repository.DriverRanking;
+import org.example.repository.wal.WriteAheadLog;
 import org.example.services.admin.AdminService;
 import org.example.services.admin.AdminServiceImpl;
 import org.example.services.driver.DriverService;
@@ -12,12 +14,17 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @Configuration
 public class TestConfig {
     @Bean
     public Database mockDatabase() {
-        return mock(Database.class);
+        Database database = mock(Database.class);
+        when(database.getWriteAheadLog()).thenReturn(WriteAheadLog.NONE);
+        when(database.getDriverRanking()).thenReturn(new DriverRanking());
+
+        return database;
     }
 
     @Bean
@@ -36,7 +43,7 @@ public class TestConfig {
     }
 
     @Bean
-    public PaymentService paymentService(Database database) {
-        return new PaymentService(database);
+    public PaymentService paymentService(Database database, RideService rideService) {
+        return new PaymentService(database, rideService);
     }
 }
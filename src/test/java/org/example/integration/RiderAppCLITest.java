@@ -101,6 +101,49 @@ class RiderAppCLITest {
         runTest(input, expectedOutput);
     }
 
+    @Test
+    void MatchBatch() {
+        String input = """
+                ADD_DRIVER D1 1 1
+                ADD_DRIVER D2 4 5
+                ADD_DRIVER D3 2 2
+                ADD_RIDER R1 0 0
+                ADD_RIDER R2 1 2
+                ADD_RIDER R3 50 50
+                MATCH_BATCH R1 R2 R3
+                START_RIDE RIDE-001 1 R1
+                START_RIDE RIDE-002 1 R2
+                """;
+
+        String expectedOutput = """
+                DRIVER_ASSIGNED R1 D1
+                DRIVER_ASSIGNED R2 D3
+                NO_DRIVERS_AVAILABLE R3
+                RIDE_STARTED RIDE-001
+                RIDE_STARTED RIDE-002
+                """;
+
+        runTest(input, expectedOutput);
+    }
+
+    @Test
+    void UpdateDriverLocation() {
+        String input = """
+                ADD_DRIVER D1 1 1
+                ADD_DRIVER D2 40 40
+                ADD_RIDER R1 0 0
+                UPDATE_LOCATION D1 30 30
+                UPDATE_LOCATION D2 2 2
+                MATCH R1
+                """;
+
+        String expectedOutput = """
+                DRIVERS_MATCHED D2
+                """;
+
+        runTest(input, expectedOutput);
+    }
+
     @Test
     void RateDriver() {
         String input = """
@@ -443,8 +486,8 @@ class RiderAppCLITest {
                 BILL RIDE-001 D3 186.7
                 CURRENT_RATING D3 4.5
                 REMOVED_DRIVER D2
-                DRIVER_D1 (X=1, Y=1) RATING 0.0
                 DRIVER_D3 (X=2, Y=2) RATING 4.5
+                DRIVER_D1 (X=1, Y=1) RATING 0.0
                 """;
 
         runTest(input, expectedOutput);
@@ -2,7 +2,11 @@ package org.example.unit;
 
 
 import org.example.config.TestConfig;
+import org.example.dto.DriverDTO;
 import org.example.repository.Database;
+import org.example.repository.DriverRanking;
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
 import org.example.models.Driver;
 import org.junit.jupiter.api.Test;
 import org.example.services.admin.AdminService;
@@ -39,11 +43,16 @@ class AdminServiceTest {
         drivers.put("D2", new Driver(2, 7));
         drivers.put("D3", new Driver(9, 3));
 
+        SpatialIndex driverIndex = SpatialIndexType.GRID.createIndex();
+        driverIndex.insert("D2", 2, 7);
+
         when(mockDB.getDriverDetails()).thenReturn(drivers);
+        when(mockDB.getDriverIndex()).thenReturn(driverIndex);
 
         adminService.removeDriver(driverID);
 
         assertFalse(mockDB.getDriverDetails().containsKey(driverID));
+        assertEquals(0, driverIndex.size(), "D2 is still indexed");
     }
 
     @Test
@@ -55,13 +64,17 @@ class AdminServiceTest {
         drivers.put("D2", new Driver(2, 7));
         drivers.put("D3", new Driver(9, 3));
 
+        DriverRanking ranking = new DriverRanking();
+        ranking.load(drivers);
+
         when(mockDB.getDriverDetails()).thenReturn(drivers);
+        when(mockDB.getDriverRanking()).thenReturn(ranking);
 
-        List<String> output = adminService.listNDriverDetails(N);
+        List<DriverDTO> output = adminService.listNDriverDetails(N);
 
-        assertTrue(output.contains("DRIVER_D1 (X=5, Y=5) RATING 0.0"), "D1 should be in output");
-        assertTrue(output.contains("DRIVER_D2 (X=2, Y=7) RATING 0.0"), "D2 should be in output");
-        assertTrue(output.contains("DRIVER_D3 (X=9, Y=3) RATING 0.0"), "D3 should be in output");
+        assertTrue(output.contains(new DriverDTO("D1", 5, 5, 0.0)), "D1 should be in output");
+        assertTrue(output.contains(new DriverDTO("D2", 2, 7, 0.0)), "D2 should be in output");
+        assertTrue(output.contains(new DriverDTO("D3", 9, 3, 0.0)), "D3 should be in output");
     }
 
     @Test
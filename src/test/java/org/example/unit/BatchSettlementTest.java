@@ -0,0 +1,146 @@
+package org.example.unit;
+
+import org.example.dto.SettlementResultDTO;
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.payment.gateway.PaymentGateway;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSettlementTest {
+    private final ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+    private final PaymentService paymentService = new PaymentService(db);
+
+    @Test
+    void creditsEachDriverOncePerBatch() {
+        CountingDriver d1 = new CountingDriver();
+        CountingDriver d2 = new CountingDriver();
+        db.getDriverDetails().put("D1", d1);
+        db.getDriverDetails().put("D2", d2);
+        addRide("RIDE-1", "R1", "D1", 10F);
+        addRide("RIDE-2", "R2", "D2", 20F);
+        addRide("RIDE-3", "R3", "D1", 30F);
+
+        List<SettlementResultDTO> results = paymentService.settleBatch(
+                List.of("RIDE-1", "RIDE-2", "RIDE-3"), PaymentMethodType.CARD);
+
+        assertEquals(List.of(
+                new SettlementResultDTO("RIDE-1", "PAID", "D1", 10F),
+                new SettlementResultDTO("RIDE-2", "PAID", "D2", 20F),
+                new SettlementResultDTO("RIDE-3", "PAID", "D1", 30F)), results);
+        assertEquals(4_000, d1.getEarningsPaise());
+        assertEquals(2_000, d2.getEarningsPaise());
+        assertEquals(1, d1.credits.get(), "D1 should be credited once for both rides");
+        assertEquals(3, db.getPaymentLedger().getEntries().size());
+        assertTrue(db.getPaymentLedger().findMismatchedDrivers(db).isEmpty());
+    }
+
+    @Test
+    void driverRemovedDuringTheChargesIsNotPaid() {
+        db.getDriverDetails().put("D1", new Driver(0, 0));
+        db.getDriverDetails().put("D2", new Driver(1, 1));
+        addRide("RIDE-1", "R1", "D1", 10F);
+        addRide("RIDE-2", "R2", "D2", 20F);
+        PaymentGateway removesD2 = (rideID, paise) -> {
+            db.getDriverDetails().remove("D2");
+            return CompletableFuture.completedFuture(null);
+        };
+        PaymentService paymentService = new PaymentService(db, removesD2, 4, 4, 1_000);
+
+        List<SettlementResultDTO> results = paymentService.settleBatch(List.of("RIDE-1", "RIDE-2"), PaymentMethodType.CARD);
+
+        assertEquals("PAID", results.get(0).status());
+        assertEquals(new SettlementResultDTO("RIDE-2", "INVALID_DRIVER_ID", "D2", 20F), results.get(1));
+        assertEquals(1_000, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-2"));
+        assertNotNull(db.getPaymentLedger().claim("RIDE-2"), "Claim of the unpaid ride was not released");
+    }
+
+    @Test
+    void badRidesGetTheirOwnStatus() {
+        db.getDriverDetails().put("D1", new Driver(0, 0));
+        addRide("RIDE-1", "R1", "D1", 10F);
+        addRide("RIDE-2", "R1", "D9", 10F);
+        paymentService.processPayment("RIDE-1", PaymentMethodType.CASH);
+        addRide("RIDE-3", "R1", "D1", 15F);
+
+        List<SettlementResultDTO> results = paymentService.settleBatch(
+                List.of("RIDE-1", "RIDE-2", "RIDE-3", "RIDE-3", "RIDE-404"), PaymentMethodType.CASH);
+
+        assertEquals("RIDE_ALREADY_PAID", results.get(0).status());
+        assertEquals("INVALID_DRIVER_ID", results.get(1).status());
+        assertEquals("PAID", results.get(2).status());
+        assertEquals("RIDE_ALREADY_PAID", results.get(3).status(), "A ride repeated in the batch is paid once");
+        assertEquals(new SettlementResultDTO("RIDE-404", "INVALID_RIDE", null, 0), results.get(4));
+        assertEquals(2_500, db.getDriverDetails().get("D1").getEarningsPaise());
+    }
+
+    @Test
+    void walletBatchDebitsEachRider() {
+        db.getDriverDetails().put("D1", new Driver(0, 0));
+        Rider rich = new Rider(0, 0);
+        rich.addMoney(100);
+        db.getRiderDetails().put("R1", rich);
+        db.getRiderDetails().put("R2", new Rider(0, 0));
+        addRide("RIDE-1", "R1", "D1", 40F);
+        addRide("RIDE-2", "R2", "D1", 40F);
+
+        List<SettlementResultDTO> results = paymentService.settleBatch(
+                List.of("RIDE-1", "RIDE-2"), PaymentMethodType.WALLET);
+
+        assertEquals("PAID", results.get(0).status());
+        assertEquals("LOW_BALANCE", results.get(1).status());
+        assertEquals(6_000, rich.getWalletPaise());
+        assertEquals(4_000, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-2"), "The declined ride can be paid later");
+    }
+
+    @Test
+    void declinedChargesAreLeftUnpaid() {
+        db.getDriverDetails().put("D1", new Driver(0, 0));
+        addRide("RIDE-1", "R1", "D1", 10F);
+        addRide("RIDE-2", "R1", "D1", 20F);
+        PaymentGateway declinesRide2 = (rideID, paise) -> rideID.equals("RIDE-2")
+                ? CompletableFuture.failedFuture(new IllegalStateException("DECLINED"))
+                : CompletableFuture.completedFuture(null);
+        PaymentService paymentService = new PaymentService(db, declinesRide2, 4, 4, 1_000);
+
+        List<SettlementResultDTO> results = paymentService.settleBatch(
+                List.of("RIDE-1", "RIDE-2"), PaymentMethodType.UPI);
+
+        assertEquals("PAID", results.get(0).status());
+        assertEquals("PAYMENT_DECLINED", results.get(1).status());
+        assertEquals(1_000, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-2"));
+    }
+
+    private void addRide(String rideID, String riderID, String driverID, float bill) {
+        Ride ride = new Ride(riderID, driverID);
+        ride.finishRide(4, 5, 20);
+        ride.setBill(bill);
+        db.getRideDetails().put(rideID, ride);
+    }
+
+    private static class CountingDriver extends Driver {
+        private final AtomicInteger credits = new AtomicInteger();
+
+        CountingDriver() {
+            super(0, 0);
+        }
+
+        @Override
+        public void addEarnings(long paise) {
+            credits.incrementAndGet();
+            super.addEarnings(paise);
+        }
+    }
+}
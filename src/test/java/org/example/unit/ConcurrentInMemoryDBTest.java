@@ -0,0 +1,110 @@
+package org.example.unit;
+
+import org.example.exceptions.InvalidRideException;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentInMemoryDBTest {
+    private static final int THREADS = 8;
+
+    private ConcurrentInMemoryDB db;
+    private DriverServiceImpl driverService;
+    private RideServiceImpl rideService;
+
+    @BeforeEach
+    void setUp() {
+        db = new ConcurrentInMemoryDB();
+        driverService = new DriverServiceImpl(db);
+        rideService = new RideServiceImpl(db);
+    }
+
+    @Test
+    void onlyOneRideCanClaimADriver() throws Exception {
+        driverService.addDriver("D1", 1, 1);
+        for (int i = 0; i < THREADS; i++) {
+            rideService.addRider("R" + i, 0, 0);
+            rideService.matchRider("R" + i);
+        }
+
+        AtomicInteger started = new AtomicInteger();
+        runConcurrently(thread -> {
+            try {
+                rideService.startRide("RIDE-" + thread, 1, "R" + thread);
+                started.incrementAndGet();
+            } catch (InvalidRideException e) {
+                // Another rider got the driver first
+            }
+        });
+
+        assertEquals(1, started.get(), "The same driver was given to more than one ride");
+        assertEquals(1, db.getRideDetails().size());
+        assertEquals("NO_DRIVERS_AVAILABLE", rideService.matchRider("R0"), "Busy driver is still matchable");
+    }
+
+    @Test
+    void concurrentWalletTopUpsAreNotLost() throws Exception {
+        rideService.addRider("R1", 0, 0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 10_000; i++) {
+                db.getRiderDetails().get("R1").addMoney(1);
+            }
+        });
+
+        assertEquals(THREADS * 10_000, db.getRiderDetails().get("R1").getWalletAmount(), 0.0);
+    }
+
+    @Test
+    void matchingWhileDriversJoinAndMove() throws Exception {
+        rideService.addRider("R1", 0, 0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 2_000; i++) {
+                String driverID = "D" + thread + "-" + i;
+                driverService.addDriver(driverID, i % 5, thread % 5);
+                driverService.updateLocation(driverID, (i + 1) % 5, thread % 5);
+                rideService.matchRider("R1");
+            }
+        });
+
+        assertEquals(THREADS * 2_000, db.getDriverIndex().size(), "Index lost drivers");
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadID = thread;
+                Callable<Void> callable = () -> {
+                    task.run(threadID);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
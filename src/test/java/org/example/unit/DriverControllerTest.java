@@ -0,0 +1,38 @@
+package org.example.unit;
+
+import org.example.controllers.DriverController;
+import org.example.dto.LocationPingDTO;
+import org.example.exceptions.InvalidLocationPingException;
+import org.example.services.driver.DriverService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DriverControllerTest {
+    private final DriverService driverService = mock(DriverService.class);
+    private final DriverController controller = new DriverController();
+
+    DriverControllerTest() {
+        ReflectionTestUtils.setField(controller, "driverService", driverService);
+    }
+
+    @Test
+    void batchPingsAreParsedLineByLine() {
+        when(driverService.updateLocations(anyList())).thenReturn(2);
+
+        assertEquals("LOCATIONS_UPDATED 2", controller.updateLocations("D1 5 5\n\n  D2  -3 4 \n"));
+        verify(driverService).updateLocations(List.of(new LocationPingDTO("D1", 5, 5), new LocationPingDTO("D2", -3, 4)));
+    }
+
+    @Test
+    void malformedPingRejectsTheWholeBatch() {
+        for (String body : List.of("D1 5 5\nD1 six 6", "D1 5", "D1 5 5 5", "D1 99999999999 5")) {
+            assertThrows(InvalidLocationPingException.class, () -> controller.updateLocations(body), body);
+        }
+        verifyNoInteractions(driverService);
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.unit;
+
+import org.example.dto.DriverDTO;
+import org.example.dto.DriverPageDTO;
+import org.example.exceptions.InvalidCursorException;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.repository.DriverRanking;
+import org.example.repository.DriverStoreType;
+import org.example.repository.InMemoryDB;
+import org.example.repository.MatchSessions;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.wal.MappedWriteAheadLog;
+import org.example.services.admin.AdminServiceImpl;
+import org.example.services.driver.DriverServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverRankingTest {
+    private final ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+    private final DriverServiceImpl driverService = new DriverServiceImpl(db);
+    private final AdminServiceImpl adminService = new AdminServiceImpl(db);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pagesWalkTheRatingOrderOnce() {
+        for (int i = 0; i < 25; i++) {
+            driverService.addDriver(String.format("D%02d", i), i, i);
+            driverService.rateDriver(String.format("D%02d", i), i % 5);
+        }
+
+        List<DriverDTO> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DriverPageDTO page = adminService.listDrivers(DriverRanking.Order.RATING, cursor, 10);
+            seen.addAll(page.drivers());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, seen.size());
+        assertEquals(List.of("D04", "D09", "D14", "D19", "D24"),
+                seen.subList(0, 5).stream().map(DriverDTO::driverId).toList(), "Best rated first, ties by ID");
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).rating() >= seen.get(i).rating(), "Out of order at " + i);
+        }
+    }
+
+    @Test
+    void ratingMovesADriverAndRemovalDropsThem() {
+        driverService.addDriver("D1", 0, 0);
+        driverService.addDriver("D2", 0, 0);
+        driverService.addDriver("D3", 0, 0);
+        driverService.rateDriver("D1", 3);
+        driverService.rateDriver("D2", 4);
+        assertEquals(List.of("D2", "D1", "D3"), ids(adminService.listNDriverDetails(5)));
+
+        driverService.rateDriver("D3", 5);
+        assertEquals(List.of("D3", "D2", "D1"), ids(adminService.listNDriverDetails(5)));
+
+        adminService.removeDriver("D2");
+        db.getDriverDetails().remove("D3");
+        assertEquals(List.of("D1"), ids(adminService.listNDriverDetails(5)), "Drivers gone from the store are skipped");
+        assertEquals(List.of("D1"), ids(adminService.listDrivers(DriverRanking.Order.ID, null, 5).drivers()));
+        assertEquals(List.of("D1", "D3"), db.getDriverRanking().page(DriverRanking.Order.ID, null, 5).stream()
+                .map(DriverRanking.Ranked::driverID).toList(), "Listing should not change the ranking");
+    }
+
+    @Test
+    void idOrderResumesAfterTheCursor() {
+        for (String driverID : List.of("D5", "D1", "D4", "D2", "D3")) {
+            driverService.addDriver(driverID, 0, 0);
+        }
+
+        DriverPageDTO first = adminService.listDrivers(DriverRanking.Order.ID, null, 2);
+        assertEquals(List.of("D1", "D2"), ids(first.drivers()));
+        assertEquals("D2", first.nextCursor());
+
+        DriverPageDTO last = adminService.listDrivers(DriverRanking.Order.ID, "D3", 5);
+        assertEquals(List.of("D4", "D5"), ids(last.drivers()));
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void driversGoneFromTheStoreDoNotEndThePageEarly() {
+        for (String driverID : List.of("D1", "D2", "D3", "D4")) {
+            driverService.addDriver(driverID, 0, 0);
+        }
+        db.getDriverDetails().remove("D2");
+        db.getDriverDetails().remove("D3");
+
+        DriverPageDTO page = adminService.listDrivers(DriverRanking.Order.ID, "D1", 1);
+        assertEquals(List.of("D4"), ids(page.drivers()));
+        assertNull(page.nextCursor());
+
+        DriverPageDTO first = adminService.listDrivers(DriverRanking.Order.ID, null, 1);
+        assertEquals(List.of("D1"), ids(first.drivers()));
+        assertEquals("D1", first.nextCursor(), "D4 follows the removed drivers");
+    }
+
+    @Test
+    void emptyPageForNoDrivers() {
+        driverService.addDriver("D1", 0, 0);
+
+        DriverPageDTO page = adminService.listDrivers(DriverRanking.Order.RATING, null, 0);
+        assertTrue(page.drivers().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void driversReplayedFromTheLogAreListed() {
+        Path logFile = directory.resolve("riderapp.wal");
+        InMemoryDB logged = open(logFile);
+        new DriverServiceImpl(logged).addDriver("D1", 0, 0);
+        new DriverServiceImpl(logged).addDriver("D2", 0, 0);
+        new DriverServiceImpl(logged).rateDriver("D2", 4);
+        logged.getWriteAheadLog().close();
+
+        InMemoryDB restarted = open(logFile);
+        assertEquals(List.of("D2", "D1"), ids(new AdminServiceImpl(restarted).listNDriverDetails(5)));
+        restarted.getWriteAheadLog().close();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        driverService.addDriver("D1", 0, 0);
+
+        assertThrows(InvalidCursorException.class,
+                () -> adminService.listDrivers(DriverRanking.Order.RATING, "not-a-cursor", 5));
+        assertThrows(InvalidCursorException.class,
+                () -> adminService.listDrivers(DriverRanking.Order.RATING, "high:D1", 5));
+    }
+
+    private static InMemoryDB open(Path logFile) {
+        return new InMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, DriverStoreType.OBJECTS,
+                MatchSessions.DEFAULT_TTL_SECONDS, new MappedWriteAheadLog(logFile, 1, 1), RideArchive.NONE);
+    }
+
+    private static List<String> ids(List<DriverDTO> drivers) {
+        return drivers.stream().map(DriverDTO::driverId).toList();
+    }
+}
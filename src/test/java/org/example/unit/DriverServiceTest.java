@@ -1,11 +1,17 @@
 package org.example.unit;
 
 import org.example.config.TestConfig;
+import org.example.dto.LocationPingDTO;
 import org.example.repository.Database;
+import org.example.repository.InMemoryDB;
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
 import org.example.models.Driver;
 import org.junit.jupiter.api.Test;
 import org.example.exceptions.InvalidDriverIDException;
 import org.example.services.driver.DriverService;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +19,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.HashMap;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -31,11 +38,74 @@ class DriverServiceTest {
     @Test
     void addDriver() {
         HashMap<String, Driver> drivers = new HashMap<>();
+        SpatialIndex driverIndex = SpatialIndexType.GRID.createIndex();
         when(mockDB.getDriverDetails()).thenReturn(drivers);
+        when(mockDB.getDriverIndex()).thenReturn(driverIndex);
 
         driverService.addDriver("D1", 5, 8);
 
         assertTrue(mockDB.getDriverDetails().containsKey("D1"), "D1 is not present");
+        assertTrue(driverIndex.withinRadius(5, 8, 0).contains("D1"), "D1 is not indexed");
+    }
+
+    @Test
+    void updateLocationsKeepsLatestPingPerDriver() {
+        HashMap<String, Driver> drivers = new HashMap<>();
+        SpatialIndex driverIndex = SpatialIndexType.GRID.createIndex();
+        when(mockDB.getDriverDetails()).thenReturn(drivers);
+        when(mockDB.getDriverIndex()).thenReturn(driverIndex);
+
+        driverService.addDriver("D1", 0, 0);
+        driverService.addDriver("D2", 0, 0);
+
+        int updated = driverService.updateLocations(List.of(
+                new LocationPingDTO("D1", 3, 3),
+                new LocationPingDTO("D1", 40, 40),
+                new LocationPingDTO("D2", 1, 1),
+                new LocationPingDTO("D9", 1, 1)
+        ));
+
+        assertEquals(2, updated, "Unknown drivers should be skipped");
+        assertArrayEquals(new int[]{40, 40}, drivers.get("D1").getCoordinates(), "D1 did not move to its latest ping");
+        assertEquals(List.of("D1"), driverIndex.withinRadius(40, 40, 0), "D1 was not moved in the index");
+        assertEquals(List.of("D2"), driverIndex.withinRadius(0, 0, 2), "D2 was not moved in the index");
+    }
+
+    @Test
+    void moveOfRemovedDriverDoesNotIndexThem() {
+        HashMap<String, Driver> drivers = new HashMap<>();
+        SpatialIndex driverIndex = SpatialIndexType.GRID.createIndex();
+        when(mockDB.getDriverDetails()).thenReturn(drivers);
+        when(mockDB.getDriverIndex()).thenReturn(driverIndex);
+
+        // A move that looked the driver up just before an admin removed them
+        Driver driver = new Driver(0, 0);
+        drivers.put("D1", driver);
+        driver.markRemoved();
+
+        assertThrows(InvalidDriverIDException.class, () -> driverService.updateLocation("D1", 3, 3));
+        assertEquals(0, driverService.updateLocations(List.of(new LocationPingDTO("D1", 4, 4))));
+        assertEquals(0, driverIndex.size(), "Removed driver was indexed again");
+    }
+
+    @Test
+    void driverAddedAgainMidRideKeepsTheirNewPlace() {
+        InMemoryDB db = new InMemoryDB();
+        DriverServiceImpl drivers = new DriverServiceImpl(db);
+        RideServiceImpl rides = new RideServiceImpl(db);
+        drivers.addDriver("D1", 1, 1);
+        rides.addRider("R1", 0, 0);
+        rides.matchRider("R1");
+        rides.startRide("RIDE-001", 1, "R1");
+        Driver onRide = db.getDriverDetails().get("D1");
+
+        drivers.addDriver("D1", 50, 50);
+        rides.stopRide("RIDE-001", 4, 5, 20);
+
+        assertTrue(onRide.isRemoved(), "The replaced driver was not retired");
+        assertEquals(List.of("D1"), db.getDriverIndex().withinRadius(50, 50, 0));
+        assertTrue(db.getDriverIndex().withinRadius(1, 1, 2).isEmpty(), "The ride put the old driver back");
+        assertTrue(db.getDriverDetails().get("D1").isAvailable());
     }
 
     @Test
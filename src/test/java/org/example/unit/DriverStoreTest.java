@@ -0,0 +1,88 @@
+package org.example.unit;
+
+import org.example.dto.DriverDTO;
+import org.example.models.Driver;
+import org.example.repository.DriverStoreType;
+import org.example.repository.InMemoryDB;
+import org.example.services.admin.AdminServiceImpl;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverStoreTest {
+
+    @Test
+    void columnStoreBehavesLikeAHashMap() {
+        Random random = new Random(3);
+        Map<String, Driver> columns = DriverStoreType.COLUMNS.createDriverMap();
+        Map<String, Driver> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            String driverID = "D" + random.nextInt(5_000);
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.remove(driverID) != null, columns.remove(driverID) != null);
+                case 1 -> {
+                    float rate = random.nextInt(5) + 1;
+                    for (Driver driver : new Driver[]{columns.get(driverID), expected.get(driverID)}) {
+                        if (driver != null) {
+                            driver.updateDriverRating(rate);
+                            driver.updateEarnings(10);
+                            driver.updateAvailability();
+                        }
+                    }
+                }
+                default -> {
+                    int x = random.nextInt(100);
+                    int y = random.nextInt(100);
+                    columns.put(driverID, new Driver(x, y));
+                    expected.put(driverID, new Driver(x, y));
+                }
+            }
+        }
+
+        assertEquals(expected.size(), columns.size());
+        for (Map.Entry<String, Driver> entry : columns.entrySet()) {
+            Driver driver = expected.get(entry.getKey());
+            assertNotNull(driver, entry.getKey() + " should have been removed");
+            assertArrayEquals(driver.getCoordinates(), entry.getValue().getCoordinates());
+            assertEquals(driver.isAvailable(), entry.getValue().isAvailable());
+            assertEquals(driver.getRating(), entry.getValue().getRating());
+            assertEquals(driver.getRidesDone(), entry.getValue().getRidesDone());
+            assertEquals(driver.getEarnings(), entry.getValue().getEarnings());
+        }
+    }
+
+    @Test
+    void servicesRunOnTheColumnStore() {
+        InMemoryDB db = new InMemoryDB(DriverStoreType.COLUMNS);
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        AdminServiceImpl adminService = new AdminServiceImpl(db);
+
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 4, 5);
+        driverService.addDriver("D3", 2, 2);
+        rideService.addRider("R1", 0, 0);
+
+        assertEquals("DRIVERS_MATCHED D1 D3", rideService.matchRider("R1"));
+        rideService.startRide("RIDE-001", 2, "R1");
+        assertFalse(db.getDriverDetails().get("D3").isAvailable(), "D3 should be on a ride");
+
+        driverService.updateLocation("D3", 3, 3);
+        rideService.stopRide("RIDE-001", 4, 5, 32);
+        driverService.rateDriver("D3", 4.5F);
+        adminService.removeDriver("D2");
+
+        List<DriverDTO> drivers = adminService.listNDriverDetails(5);
+        assertEquals(2, drivers.size());
+        assertEquals(new DriverDTO("D3", 3, 3, 4.5F), drivers.get(0), "Best rated first");
+        assertEquals(List.of("D1", "D3"), db.getDriverIndex().nearest(0, 0, 5, 5.0));
+    }
+}
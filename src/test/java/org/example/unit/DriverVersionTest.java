@@ -0,0 +1,65 @@
+package org.example.unit;
+
+import org.example.dto.DriverDTO;
+import org.example.models.Driver;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.admin.AdminServiceImpl;
+import org.example.services.driver.DriverServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverVersionTest {
+
+    @Test
+    void readersNeverSeeAHalfAppliedRating() throws Exception {
+        Driver driver = new Driver(0, 0);
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                driver.updateDriverRating(1 + i % 5);
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        while (!done.get()) {
+            Driver.Version version = driver.getVersion();
+            if (version.ridesDone() > 0) {
+                assertEquals(version.ratingSum() / version.ridesDone(), version.rating(), 0.0, "Torn driver record");
+            }
+        }
+        writer.join();
+
+        assertEquals(200_000, driver.getRidesDone());
+    }
+
+    @Test
+    void adminQueriesDoNotWaitForRideThreads() throws Exception {
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        AdminServiceImpl adminService = new AdminServiceImpl(db);
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 4, 5);
+        driverService.rateDriver("D1", 4);
+
+        // Holding D1's monitor is what startRide, stopRide and rateDriver do
+        Driver driver = db.getDriverDetails().get("D1");
+        synchronized (driver) {
+            List<DriverDTO> drivers = CompletableFuture.supplyAsync(() -> adminService.listNDriverDetails(2))
+                    .get(5, TimeUnit.SECONDS);
+            BigDecimal earnings = CompletableFuture.supplyAsync(() -> adminService.getDriverEarnings("D1").earnings())
+                    .get(5, TimeUnit.SECONDS);
+
+            assertEquals(2, drivers.size());
+            assertEquals(new BigDecimal("0.00"), earnings);
+        }
+    }
+}
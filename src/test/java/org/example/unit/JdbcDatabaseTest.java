@@ -0,0 +1,142 @@
+package org.example.unit;
+
+import org.example.dto.RejectedWriteDTO;
+import org.example.repository.jdbc.JdbcDatabase;
+import org.example.services.admin.AdminServiceImpl;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.ride.RideServiceImpl;
+import org.example.utilities.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcDatabaseTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesReachTheTablesAndSurviveRestart() throws Exception {
+        String url = "jdbc:h2:" + directory.resolve("riderapp").toAbsolutePath();
+        JdbcDatabase db = new JdbcDatabase(url);
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        PaymentService paymentService = new PaymentService(db);
+
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 4, 5);
+        driverService.addDriver("D3", 2, 2);
+        rideService.addRider("R1", 0, 0);
+        rideService.addRider("R2", 3, 4);
+        new AdminServiceImpl(db).removeDriver("D3");
+
+        paymentService.getWallet().addMoney("R1", 500);
+        rideService.matchRider("R1");
+        rideService.startRide("RIDE-001", 1, "R1");
+        rideService.stopRide("RIDE-001", 4, 5, 32);
+        rideService.billRide("RIDE-001");
+        paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET);
+        driverService.rateDriver("D1", 4.5F);
+
+        rideService.matchRider("R2");
+        rideService.startRide("RIDE-002", 1, "R2");
+        db.flush();
+
+        float bill = db.getRideDetails().get("RIDE-001").getBill();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            ResultSet payment = statement.executeQuery("SELECT ride_id, driver_earnings, from_wallet, wallet_amount FROM payments");
+            assertTrue(payment.next());
+            assertEquals("RIDE-001", payment.getString(1));
+            assertEquals(Money.toDecimal(Money.toPaise(bill)), payment.getBigDecimal(2));
+            assertTrue(payment.getBoolean(3));
+            assertEquals(500 - bill, payment.getFloat(4), 0.01);
+            assertFalse(payment.next());
+
+            ResultSet open = statement.executeQuery("SELECT COUNT(*) FROM rides WHERE NOT finished");
+            open.next();
+            assertEquals(1, open.getInt(1));
+        }
+        db.destroy();
+
+        JdbcDatabase recovered = new JdbcDatabase(url);
+        assertEquals(Set.of("D1", "D2"), recovered.getDriverDetails().keySet());
+        assertEquals(500 - bill, recovered.getRiderDetails().get("R1").getWalletAmount(), 0.01);
+        assertEquals(bill, recovered.getDriverDetails().get("D1").getEarnings());
+        assertEquals(4.5F, recovered.getDriverDetails().get("D1").getRating());
+        assertEquals(bill, recovered.getRideDetails().get("RIDE-001").getBill());
+        assertEquals(db.getRideDetails().get("RIDE-001").getFare(), recovered.getRideDetails().get("RIDE-001").getFare());
+        assertFalse(recovered.getRideDetails().get("RIDE-002").isFinished());
+        assertArrayEquals(new int[]{3, 4}, recovered.getRideDetails().get("RIDE-002").getStartCoordinates());
+        assertEquals(db.getRideDetails().get("RIDE-002").getStartHour(), recovered.getRideDetails().get("RIDE-002").getStartHour());
+        assertTrue(recovered.getPaymentLedger().isPaid("RIDE-001"), "Payment audit rows should refill the ledger");
+        assertFalse(recovered.getDriverDetails().get("D2").isAvailable(), "Driver on an open ride came back available");
+        assertTrue(recovered.getDriverDetails().get("D1").isAvailable());
+
+        recovered.reset();
+        recovered.destroy();
+        JdbcDatabase empty = new JdbcDatabase(url);
+        assertTrue(empty.getDriverDetails().isEmpty());
+        empty.destroy();
+    }
+
+    @Test
+    void rejectedChangeDoesNotStopTheStore() throws Exception {
+        String url = "jdbc:h2:" + directory.resolve("rejected").toAbsolutePath();
+        JdbcDatabase db = new JdbcDatabase(url);
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+
+        driverService.addDriver("D1", 1, 1);
+        rideService.addRider("R1", 0, 0);
+        db.flush();
+
+        // A row the cache does not know about makes the store's insert for this ride fail
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO rides (id, rider_id, driver_id, finished, bill) VALUES ('RIDE-001', 'R9', 'D9', TRUE, 0)");
+        }
+
+        rideService.matchRider("R1");
+        rideService.startRide("RIDE-001", 1, "R1");
+        driverService.addDriver("D2", 4, 5);
+        driverService.rateDriver("D1", 4.0F);
+        db.flush();
+
+        driverService.addDriver("D3", 7, 7);
+        db.flush();
+
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            ResultSet drivers = statement.executeQuery("SELECT id, rating FROM drivers ORDER BY id");
+            assertTrue(drivers.next());
+            assertEquals("D1", drivers.getString(1));
+            assertEquals(4.0F, drivers.getFloat(2));
+            assertTrue(drivers.next());
+            assertEquals("D2", drivers.getString(1));
+            assertTrue(drivers.next());
+            assertEquals("D3", drivers.getString(1));
+        }
+
+        List<RejectedWriteDTO> rejected = new AdminServiceImpl(db).getRejectedWrites();
+        assertEquals(1, rejected.size());
+        assertEquals("START_RIDE", rejected.get(0).operation());
+        assertEquals("RIDE-001", rejected.get(0).id());
+        assertTrue(rejected.get(0).parameters().contains("R1"), rejected.get(0).parameters());
+        db.destroy();
+
+        JdbcDatabase reopened = new JdbcDatabase(url);
+        assertEquals(1, reopened.getWriteAheadLog().rejectedWrites().size(), "Rejected writes were not kept");
+        reopened.destroy();
+    }
+}
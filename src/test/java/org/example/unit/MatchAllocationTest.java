@@ -0,0 +1,50 @@
+package org.example.unit;
+
+import org.example.repository.InMemoryDB;
+import org.example.repository.SpatialIndexType;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchAllocationTest {
+    private static final int WARMUP_MATCHES = 20_000;
+    private static final int MEASURED_MATCHES = 10_000;
+
+    // The old path allocated a pair per in-range driver, roughly 30 KB per match with this fleet
+    private static final long MAX_BYTES_PER_MATCH = 1_024;
+
+    @Test
+    void matchAllocationDoesNotGrowWithCandidates() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            InMemoryDB db = new InMemoryDB(type);
+            DriverServiceImpl driverService = new DriverServiceImpl(db);
+            RideServiceImpl rideService = new RideServiceImpl(db);
+
+            for (int i = 0; i < 1_000; i++) {
+                driverService.addDriver("D" + i, i % 4, (i / 4) % 4);
+            }
+            rideService.addRider("R1", 0, 0);
+
+            for (int i = 0; i < WARMUP_MATCHES; i++) {
+                rideService.matchRider("R1");
+            }
+            db.getRiderDriverMapping().clear();
+
+            long threadID = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadID);
+            for (int i = 0; i < MEASURED_MATCHES; i++) {
+                rideService.matchRider("R1");
+            }
+            long bytesPerMatch = (threads.getThreadAllocatedBytes(threadID) - before) / MEASURED_MATCHES;
+
+            assertTrue(bytesPerMatch < MAX_BYTES_PER_MATCH,
+                    type + " allocated " + bytesPerMatch + " bytes per match with 1000 drivers in range");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.unit;
+
+import org.example.exceptions.InvalidRideException;
+import org.example.repository.InMemoryDB;
+import org.example.repository.MatchSessions;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchSessionsTest {
+    private static final long TTL_MILLIS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final MatchSessions sessions = new MatchSessions(TTL_MILLIS, now::get);
+
+    @Test
+    void rematchReplacesTheCandidates() {
+        InMemoryDB db = new InMemoryDB();
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 2, 2);
+        rideService.addRider("R1", 0, 0);
+
+        for (int i = 0; i < 10; i++) {
+            rideService.matchRider("R1");
+        }
+
+        assertEquals(2, db.getRiderDriverMapping().get("R1").size(), "Old candidates were kept");
+        assertThrows(InvalidRideException.class, () -> rideService.startRide("RIDE-001", 3, "R1"));
+        assertEquals("RIDE_STARTED RIDE-001", rideService.startRide("RIDE-001", 2, "R1"));
+    }
+
+    @Test
+    void startRideWithoutMatchIsInvalid() {
+        InMemoryDB db = new InMemoryDB();
+        new RideServiceImpl(db).addRider("R1", 0, 0);
+
+        assertThrows(InvalidRideException.class, () -> new RideServiceImpl(db).startRide("RIDE-001", 1, "R1"));
+    }
+
+    @Test
+    void sessionsExpireAfterTheirTtl() {
+        sessions.put("R1", List.of("D1", "D2"));
+        now.addAndGet(TTL_MILLIS / 2);
+        sessions.put("R2", List.of("D3"));
+
+        now.addAndGet(TTL_MILLIS / 2);
+        assertNull(sessions.get("R1"));
+        assertEquals(1, sessions.get("R2").size());
+
+        now.addAndGet(TTL_MILLIS / 2);
+        assertNull(sessions.get("R2"));
+        assertTrue(sessions.isEmpty());
+    }
+
+    @Test
+    void rematchRestartsTheTtl() {
+        sessions.put("R1", List.of("D1"));
+        now.addAndGet(TTL_MILLIS - 1);
+        sessions.put("R1", List.of("D2"));
+
+        now.addAndGet(TTL_MILLIS - 1);
+        assertEquals("D2", sessions.get("R1").get(0));
+    }
+
+    @Test
+    void wheelPurgesRidersThatAreNeverLookedUpAgain() {
+        for (int i = 0; i < 10_000; i++) {
+            sessions.put("R" + i, List.of("D" + i));
+        }
+        assertEquals(10_000, sessions.size());
+
+        // Any later call turns the wheel, even after an idle spell far longer than one turn
+        now.addAndGet(TTL_MILLIS * 10);
+        sessions.put("R-NEW", List.of("D0"));
+
+        assertEquals(1, sessions.size());
+    }
+}
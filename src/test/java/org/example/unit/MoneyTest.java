@@ -0,0 +1,87 @@
+package org.example.unit;
+
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.models.Rider;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.ride.RideServiceImpl;
+import org.example.utilities.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void smallAmountsAddUpExactly() {
+        Rider rider = new Rider(0, 0);
+        Driver driver = new Driver(0, 0);
+        for (int i = 0; i < 100_000; i++) {
+            rider.addMoney(0.1F);
+            driver.updateEarnings(0.1F);
+        }
+
+        assertEquals(1_000_000, rider.getWalletPaise());
+        assertEquals(1_000_000, driver.getEarningsPaise());
+        assertEquals(10_000F, driver.getEarnings());
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        Rider rider = new Rider(0, 0);
+        rider.credit(Money.toPaise(1_000));
+        AtomicInteger accepted = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < 10_000; i++) {
+            pool.execute(() -> {
+                if (rider.debit(Money.toPaise(0.3)) != Rider.DECLINED) {
+                    accepted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        // The balance has to stay above zero, so the last 0.3 of 1000 is never spent
+        assertEquals(3_333, accepted.get());
+        assertEquals(10, rider.getWalletPaise());
+    }
+
+    @Test
+    void concurrentPaymentsToOneDriverAreExact() throws Exception {
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+        PaymentService paymentService = new PaymentService(db);
+        new RideServiceImpl(db).addRider("R1", 0, 0);
+        db.getDriverDetails().put("D1", new Driver(0, 0));
+        paymentService.getWallet().addMoney("R1", 100_000);
+
+        int rides = 20_000;
+        for (int i = 0; i < rides; i++) {
+            Ride ride = new Ride("R1", "D1");
+            ride.finishRide(4, 5, 20);
+            ride.setBill(1.1F);
+            db.getRideDetails().put("RIDE-" + i, ride);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < rides; i++) {
+            String rideID = "RIDE-" + i;
+            PaymentMethodType type = i % 2 == 0 ? PaymentMethodType.WALLET : PaymentMethodType.CASH;
+            pool.execute(() -> paymentService.processPayment(rideID, type));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(rides * 110L, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertEquals(Money.toPaise(100_000) - rides / 2 * 110L, db.getRiderDetails().get("R1").getWalletPaise());
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.unit;
+
+import org.example.exceptions.DuplicatePaymentException;
+import org.example.exceptions.InvalidRideException;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.repository.Database;
+import org.example.repository.DriverStoreType;
+import org.example.repository.InMemoryDB;
+import org.example.repository.MatchSessions;
+import org.example.repository.PaymentLedger;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.wal.MappedWriteAheadLog;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.ride.RideServiceImpl;
+import org.example.utilities.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentLedgerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void retriedPaymentIsRejected() {
+        InMemoryDB db = new InMemoryDB();
+        PaymentService paymentService = new PaymentService(db);
+        float bill = runRide(db, "RIDE-001", "D1", "R1");
+
+        paymentService.processPayment("RIDE-001", PaymentMethodType.CASH);
+
+        assertThrows(DuplicatePaymentException.class, () -> paymentService.processPayment("RIDE-001", PaymentMethodType.CARD));
+        assertEquals(bill, db.getDriverDetails().get("D1").getEarnings());
+        assertEquals(1, db.getPaymentLedger().getEntries().size());
+    }
+
+    @Test
+    void onlyTheHolderReleasesAClaim() {
+        PaymentLedger ledger = new PaymentLedger();
+        PaymentLedger.Claim first = ledger.claim("RIDE-001");
+        assertNotNull(first);
+        assertNull(ledger.claim("RIDE-001"), "A second payment in flight was let through");
+
+        ledger.release(first);
+        PaymentLedger.Claim second = ledger.claim("RIDE-001");
+        assertNotNull(second);
+
+        ledger.release(first);
+        assertNull(ledger.claim("RIDE-001"), "A stale release dropped the next payer's claim");
+
+        ledger.record("RIDE-001", "R1", "D1", false, 100);
+        ledger.release(second);
+        assertTrue(ledger.isPaid("RIDE-001"));
+        assertNull(ledger.claim("RIDE-001"));
+    }
+
+    @Test
+    void paymentBeforeBillPaysTheFare() {
+        InMemoryDB db = new InMemoryDB();
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        PaymentService paymentService = new PaymentService(db, rideService);
+        new DriverServiceImpl(db).addDriver("D1", 1, 1);
+        rideService.addRider("R1", 0, 0);
+        rideService.matchRider("R1");
+        rideService.startRide("RIDE-001", 1, "R1");
+
+        assertThrows(InvalidRideException.class, () -> paymentService.processPayment("RIDE-001", PaymentMethodType.CASH));
+
+        rideService.stopRide("RIDE-001", 4, 5, 20);
+        paymentService.processPayment("RIDE-001", PaymentMethodType.CASH);
+
+        float bill = (float) rideService.billRide("RIDE-001");
+        assertTrue(bill > 0);
+        assertEquals(bill, db.getDriverDetails().get("D1").getEarnings());
+    }
+
+    @Test
+    void concurrentPaymentsForOneRidePayOnce() throws Exception {
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+        PaymentService paymentService = new PaymentService(db);
+        float bill = runRide(db, "RIDE-001", "D1", "R1");
+        paymentService.getWallet().addMoney("R1", 10_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Callable<String>> attempts = IntStream.range(0, 64)
+                .<Callable<String>>mapToObj(i -> () -> paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET))
+                .toList();
+        int paid = 0;
+        for (Future<String> attempt : pool.invokeAll(attempts)) {
+            try {
+                attempt.get();
+                paid++;
+            } catch (Exception e) {
+                assertInstanceOf(DuplicatePaymentException.class, e.getCause());
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, paid);
+        assertEquals(bill, db.getDriverDetails().get("D1").getEarnings());
+        assertEquals(Money.toPaise(10_000 - bill), db.getRiderDetails().get("R1").getWalletPaise());
+    }
+
+    @Test
+    void declinedPaymentCanBeRetried() {
+        InMemoryDB db = new InMemoryDB();
+        PaymentService paymentService = new PaymentService(db);
+        runRide(db, "RIDE-001", "D1", "R1");
+
+        assertEquals("LOW_BALANCE", paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET));
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-001"));
+
+        paymentService.getWallet().addMoney("R1", 1_000);
+        assertTrue(paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET).startsWith("PAID"));
+        assertTrue(db.getPaymentLedger().isPaid("RIDE-001"));
+    }
+
+    @Test
+    void walletIsNotDebitedForARemovedDriver() {
+        InMemoryDB db = new InMemoryDB();
+        PaymentService paymentService = new PaymentService(db);
+        runRide(db, "RIDE-001", "D1", "R1");
+        paymentService.getWallet().addMoney("R1", 1_000);
+        db.getDriverDetails().remove("D1");
+
+        assertEquals("INVALID_DRIVER_ID", paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET));
+        assertEquals(Money.toPaise(1_000), db.getRiderDetails().get("R1").getWalletPaise());
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-001"));
+        assertNotNull(db.getPaymentLedger().claim("RIDE-001"), "Claim of the unpaid ride was not released");
+    }
+
+    @Test
+    void totalsAreDerivedFromTheLedger() {
+        InMemoryDB db = new InMemoryDB();
+        PaymentService paymentService = new PaymentService(db);
+        float first = runRide(db, "RIDE-001", "D1", "R1");
+        new DriverServiceImpl(db).updateLocation("D1", 50, 50);
+        float second = runRide(db, "RIDE-002", "D2", "R1");
+        paymentService.getWallet().addMoney("R1", 1_000);
+
+        paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET);
+        paymentService.processPayment("RIDE-002", PaymentMethodType.UPI);
+
+        PaymentLedger ledger = db.getPaymentLedger();
+        assertEquals(Money.toPaise(first), ledger.earningsOf("D1"));
+        assertEquals(Money.toPaise(second), ledger.earningsOf("D2"));
+        assertEquals(Money.toPaise(first), ledger.walletSpendOf("R1"));
+        assertTrue(ledger.findMismatchedDrivers(db).isEmpty());
+
+        // Money that reached a driver outside a recorded payment shows up
+        db.getDriverDetails().get("D2").addEarnings(1);
+        assertEquals(List.of("D2"), ledger.findMismatchedDrivers(db));
+    }
+
+    @Test
+    void ledgerSurvivesRestartFromSnapshotAndLog() {
+        Path logFile = directory.resolve("riderapp.wal");
+        InMemoryDB db = open(logFile);
+        PaymentService paymentService = new PaymentService(db);
+        runRide(db, "RIDE-001", "D1", "R1");
+        new DriverServiceImpl(db).updateLocation("D1", 50, 50);
+        runRide(db, "RIDE-002", "D2", "R2");
+
+        paymentService.processPayment("RIDE-001", PaymentMethodType.CASH);
+        db.getWriteAheadLog().snapshot(db);
+        paymentService.processPayment("RIDE-002", PaymentMethodType.CARD);
+        db.getWriteAheadLog().close();
+
+        InMemoryDB recovered = open(logFile);
+        PaymentService recoveredPayments = new PaymentService(recovered);
+
+        assertEquals(2, recovered.getPaymentLedger().getEntries().size());
+        assertThrows(DuplicatePaymentException.class, () -> recoveredPayments.processPayment("RIDE-001", PaymentMethodType.CASH));
+        assertThrows(DuplicatePaymentException.class, () -> recoveredPayments.processPayment("RIDE-002", PaymentMethodType.CASH));
+        assertTrue(recovered.getPaymentLedger().findMismatchedDrivers(recovered).isEmpty());
+        recovered.getWriteAheadLog().close();
+    }
+
+    // Matches, starts, stops and bills one ride for a new driver and rider
+    private static float runRide(Database db, String rideID, String driverID, String riderID) {
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        new DriverServiceImpl(db).addDriver(driverID, 1, 1);
+        if (!db.getRiderDetails().containsKey(riderID)) {
+            rideService.addRider(riderID, 0, 0);
+        }
+
+        rideService.matchRider(riderID);
+        rideService.startRide(rideID, 1, riderID);
+        rideService.stopRide(rideID, 4, 5, 20);
+        return (float) rideService.billRide(rideID);
+    }
+
+    private static InMemoryDB open(Path logFile) {
+        return new InMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, DriverStoreType.OBJECTS,
+                MatchSessions.DEFAULT_TTL_SECONDS, new MappedWriteAheadLog(logFile, 1, 1), RideArchive.NONE);
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.unit;
+
+import org.example.exceptions.DuplicatePaymentException;
+import org.example.models.Driver;
+import org.example.models.Ride;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.payment.gateway.PaymentGateway;
+import org.example.services.payment.gateway.SimulatedGateway;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentPipelineTest {
+    private final ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+
+    @Test
+    void unansweredChargeTimesOutAndCanBeRetried() {
+        addRides(1);
+        PaymentGateway silent = (rideID, paise) -> new CompletableFuture<>();
+        PaymentService paymentService = new PaymentService(db, silent, 4, 4, 50);
+
+        assertEquals("PAYMENT_TIMED_OUT", paymentService.processPayment("RIDE-0", PaymentMethodType.CARD));
+        assertEquals(0, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-0"));
+
+        PaymentService retry = new PaymentService(db, PaymentGateway.INSTANT, 4, 4, 50);
+        assertEquals("PAID D1 10.0 VIA CARD", retry.processPayment("RIDE-0", PaymentMethodType.CARD));
+    }
+
+    @Test
+    void chargeAnsweredAfterTheTimeoutStillSettlesTheRide() {
+        addRides(1);
+        CompletableFuture<Void> late = new CompletableFuture<>();
+        PaymentService paymentService = new PaymentService(db, (rideID, paise) -> late, 4, 4, 50);
+
+        assertEquals("PAYMENT_TIMED_OUT", paymentService.processPayment("RIDE-0", PaymentMethodType.CARD));
+        assertFalse(db.getPaymentLedger().isPaid("RIDE-0"));
+
+        late.complete(null);
+        assertTrue(db.getPaymentLedger().isPaid("RIDE-0"));
+        assertEquals(1_000, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertThrows(DuplicatePaymentException.class, () -> paymentService.processPayment("RIDE-0", PaymentMethodType.CARD));
+    }
+
+    @Test
+    void retriedChargeMovesTheMoneyOnce() {
+        try (SimulatedGateway gateway = new SimulatedGateway(0, 0, 0)) {
+            gateway.charge("RIDE-0", 1_000).join();
+            gateway.charge("RIDE-0", 1_000).join();
+
+            assertEquals(1_000, gateway.chargedPaise());
+        }
+    }
+
+    @Test
+    void declinedChargeSettlesNothing() {
+        addRides(1);
+        PaymentService paymentService = new PaymentService(db, new SimulatedGateway(0, 0, 1.0), 4, 4, 1_000);
+
+        assertEquals("PAYMENT_DECLINED", paymentService.processPayment("RIDE-0", PaymentMethodType.UPI));
+        assertEquals(0, db.getDriverDetails().get("D1").getEarningsPaise());
+        assertTrue(db.getPaymentLedger().getEntries().isEmpty());
+    }
+
+    @Test
+    void fullBulkheadPushesBack() {
+        addRides(4);
+        Queue<CompletableFuture<Void>> charges = new ConcurrentLinkedQueue<>();
+        PaymentGateway manual = (rideID, paise) -> {
+            CompletableFuture<Void> charge = new CompletableFuture<>();
+            charges.add(charge);
+            return charge;
+        };
+        PaymentService paymentService = new PaymentService(db, manual, 2, 1, 10_000);
+
+        List<CompletableFuture<String>> payments = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            payments.add(paymentService.processPaymentAsync("RIDE-" + i, PaymentMethodType.CARD));
+        }
+
+        assertEquals(2, charges.size(), "Only two charges should reach the gateway");
+        assertEquals("PAYMENT_BUSY", payments.get(3).join());
+        CompletableFuture<String> upi = paymentService.processPaymentAsync("RIDE-3", PaymentMethodType.UPI);
+        assertEquals(3, charges.size(), "UPI has its own bulkhead");
+
+        // Finishing a charge starts the queued one
+        charges.poll().complete(null);
+        assertEquals(3, charges.size());
+        charges.forEach(charge -> charge.complete(null));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(payments.get(i).join().startsWith("PAID"));
+        }
+        assertEquals("PAID D1 10.0 VIA UPI", upi.join());
+        assertEquals(4_000, db.getDriverDetails().get("D1").getEarningsPaise());
+    }
+
+    @Test
+    void slowGatewayDoesNotHoldTheCaller() {
+        int rides = 200;
+        addRides(rides);
+        try (SimulatedGateway gateway = new SimulatedGateway(100, 200, 0)) {
+            PaymentService paymentService = new PaymentService(db, gateway, rides, 0, 5_000);
+
+            long start = System.nanoTime();
+            List<CompletableFuture<String>> payments = new ArrayList<>();
+            for (int i = 0; i < rides; i++) {
+                payments.add(paymentService.processPaymentAsync("RIDE-" + i, PaymentMethodType.CARD));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100), "Submitting waited on the gateway");
+
+            CompletableFuture.allOf(payments.toArray(CompletableFuture[]::new)).join();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "Charges did not overlap");
+            assertEquals(rides * 1_000L, db.getDriverDetails().get("D1").getEarningsPaise());
+        }
+    }
+
+    private void addRides(int count) {
+        db.getDriverDetails().put("D1", new Driver(0, 0));
+        for (int i = 0; i < count; i++) {
+            Ride ride = new Ride("R1", "D1");
+            ride.finishRide(4, 5, 20);
+            ride.setBill(10F);
+            db.getRideDetails().put("RIDE-" + i, ride);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.example.unit;
 
 import org.example.config.TestConfig;
 import org.example.repository.Database;
+import org.example.repository.PaymentLedger;
 
 import org.example.models.Driver;
 import org.example.models.Ride;
@@ -16,7 +17,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,6 +48,7 @@ class PaymentServiceTest {
         when(mockDB.getRideDetails()).thenReturn(rides);
         when(mockDB.getDriverDetails()).thenReturn(drivers);
         when(mockDB.getRiderDetails()).thenReturn(riders);
+        when(mockDB.getPaymentLedger()).thenReturn(new PaymentLedger());
 
         drivers.put("D3", new Driver(2, 2));
 
@@ -52,9 +60,7 @@ class PaymentServiceTest {
 
     @Test
     void processCardPayment() {
-        paymentService.setPaymentMethod(PaymentMethodType.CARD);
-
-        String output = paymentService.processPayment("RIDE-001");
+        String output = paymentService.processPayment("RIDE-001", PaymentMethodType.CARD);
 
         assertTrue(output.contains("PAID D3 201.3 VIA CARD"), "Card payment went wrong");
         assertEquals(201.3F, mockDB.getDriverDetails().get("D3").getEarnings(), 0.1, "Earnings not updated at DB");
@@ -62,9 +68,7 @@ class PaymentServiceTest {
 
     @Test
     void processUPIPayment() {
-        paymentService.setPaymentMethod(PaymentMethodType.UPI);
-
-        String output = paymentService.processPayment("RIDE-001");
+        String output = paymentService.processPayment("RIDE-001", PaymentMethodType.UPI);
 
         assertTrue(output.contains("PAID D3 201.3 VIA UPI"), "UPI payment went wrong");
         assertEquals(201.3F, mockDB.getDriverDetails().get("D3").getEarnings(), 0.1, "Earnings not updated at DB");
@@ -72,9 +76,7 @@ class PaymentServiceTest {
 
     @Test
     void processCashPayment() {
-        paymentService.setPaymentMethod(PaymentMethodType.CASH);
-
-        String output = paymentService.processPayment("RIDE-001");
+        String output = paymentService.processPayment("RIDE-001", PaymentMethodType.CASH);
 
         assertTrue(output.contains("PAID D3 201.3 VIA CASH"), "Cash payment went wrong");
         assertEquals(201.3F, mockDB.getDriverDetails().get("D3").getEarnings(), 0.1, "Earnings not updated at DB");
@@ -82,15 +84,39 @@ class PaymentServiceTest {
 
     @Test
     void processWalletPayment() {
-        paymentService.setPaymentMethod(PaymentMethodType.WALLET);
-
         Rider rider = new Rider(0, 0);
         rider.addMoney(500);
         mockDB.getRiderDetails().put("R1", rider);
 
-        paymentService.processPayment("RIDE-001");
+        paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET);
 
         assertEquals(201.3, mockDB.getDriverDetails().get("D3").getEarnings(), 0.1, "Earnings not updated at DB");
         assertEquals(298.7, rider.getWalletAmount(), 0.1, "Wallet amount has a mismatch");
     }
-}
\ No newline at end of file
+
+    @Test
+    void concurrentPaymentsKeepTheirOwnMethod() throws Exception {
+        PaymentMethodType[] types = {PaymentMethodType.CASH, PaymentMethodType.CARD, PaymentMethodType.UPI};
+        for (int i = 0; i < 300; i++) {
+            mockDB.getDriverDetails().put("DX" + i, new Driver(0, 0));
+            Ride ride = new Ride("R1", "DX" + i);
+            ride.finishRide(4, 5, 20);
+            ride.setBill(10F);
+            mockDB.getRideDetails().put("RIDE-X" + i, ride);
+        }
+
+        // Before the registry, one thread's setPaymentMethod could switch the method under another
+        List<Callable<String>> payments = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int ride = i;
+            payments.add(() -> paymentService.processPayment("RIDE-X" + ride, types[ride % 3]));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> outputs = pool.invokeAll(payments);
+        pool.shutdown();
+
+        for (int i = 0; i < 300; i++) {
+            assertTrue(outputs.get(i).get().endsWith("VIA " + types[i % 3]), outputs.get(i).get());
+        }
+    }
+}
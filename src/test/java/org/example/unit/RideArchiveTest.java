@@ -0,0 +1,136 @@
+package org.example.unit;
+
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.repository.Database;
+import org.example.repository.DriverStoreType;
+import org.example.repository.InMemoryDB;
+import org.example.repository.MatchSessions;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.archive.TieredRideMap;
+import org.example.repository.wal.MappedWriteAheadLog;
+import org.example.repository.wal.WriteAheadLog;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.ride.RideServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RideArchiveTest {
+    private static final int SEGMENT_RIDES = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void paidRidesLeaveTheHotMapButStayReadable() {
+        RideArchive archive = new RideArchive(directory.resolve("rides"), SEGMENT_RIDES);
+        InMemoryDB db = open(WriteAheadLog.NONE, archive);
+        runRides(db, 20);
+
+        TieredRideMap rides = (TieredRideMap) db.getRideDetails();
+        assertEquals(1, rides.hotSize(), "Only the unpaid ride should stay on the heap");
+        assertEquals(2, archive.getSegmentCount());
+        assertEquals(19 - 2 * SEGMENT_RIDES, archive.getUnsealed().size());
+
+        for (int i = 0; i < 19; i++) {
+            Ride ride = rides.get(rideID(i));
+            assertNotNull(ride, rideID(i));
+            assertTrue(ride.isFinished());
+            assertEquals("D" + i, ride.getDriverID());
+            assertEquals("R" + i, ride.getRiderID());
+            assertTrue(ride.getBill() > 0);
+        }
+        assertFalse(rides.get(rideID(19)).isFinished());
+        assertNull(rides.get("RIDE-MISSING"));
+        assertFalse(rides.containsKey("RIDE-MISSING"));
+
+        // BILL and the ride ID check in startRide both see archived rides
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        assertEquals(rides.get(rideID(3)).getBill(), rideService.billRide(rideID(3)), 0.0);
+        assertTrue(rides.containsKey(rideID(3)));
+    }
+
+    @Test
+    void segmentsSurviveRestartAndReplayDoesNotDuplicateThem() {
+        Path logFile = directory.resolve("riderapp.wal");
+        RideArchive archive = new RideArchive(directory.resolve("rides"), SEGMENT_RIDES);
+        InMemoryDB db = open(new MappedWriteAheadLog(logFile, 64, 1), archive);
+        runRides(db, 20);
+        float bill = db.getRideDetails().get(rideID(5)).getBill();
+        Fare fare = db.getRideDetails().get(rideID(5)).getFare();
+
+        db.getWriteAheadLog().close();
+        archive.close();
+        assertEquals(3, archive.getSegmentCount(), "Close should seal the partial segment");
+
+        RideArchive reopenedArchive = new RideArchive(directory.resolve("rides"), SEGMENT_RIDES);
+        InMemoryDB recovered = open(new MappedWriteAheadLog(logFile, 64, 1), reopenedArchive);
+
+        TieredRideMap rides = (TieredRideMap) recovered.getRideDetails();
+        assertEquals(1, rides.hotSize());
+        assertEquals(3, reopenedArchive.getSegmentCount());
+        assertTrue(reopenedArchive.getUnsealed().isEmpty());
+        assertEquals(bill, rides.get(rideID(5)).getBill(), 0.0);
+        assertEquals(fare, rides.get(rideID(5)).getFare(), "Segments should keep the whole fare");
+        assertArrayEquals(new int[]{500, 1}, rides.get(rideID(5)).getStartCoordinates());
+        assertFalse(rides.get(rideID(19)).isFinished());
+        assertTrue(recovered.getDriverDetails().get("D5").isAvailable(), "Driver of an archived ride stayed busy");
+        assertEquals(List.of("D5"), recovered.getDriverIndex().nearest(500, 0, 1, 1.0));
+        assertFalse(recovered.getDriverDetails().get("D19").isAvailable(), "D19 should still be on its ride");
+        recovered.getWriteAheadLog().close();
+    }
+
+    @Test
+    void resetDeletesSegments() {
+        RideArchive archive = new RideArchive(directory.resolve("rides"), SEGMENT_RIDES);
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE,
+                MatchSessions.DEFAULT_TTL_SECONDS, WriteAheadLog.NONE, archive);
+        runRides(db, 10);
+        assertEquals(1, archive.getSegmentCount());
+
+        db.reset();
+
+        assertEquals(0, archive.getSegmentCount());
+        assertNull(db.getRideDetails().get(rideID(0)));
+        assertEquals(0, new RideArchive(directory.resolve("rides"), SEGMENT_RIDES).getSegmentCount());
+    }
+
+    // Every ride but the last one is finished, billed and paid
+    private static void runRides(Database db, int count) {
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        PaymentService paymentService = new PaymentService(db);
+
+        for (int i = 0; i < count; i++) {
+            driverService.addDriver("D" + i, i * 100, 0);
+            rideService.addRider("R" + i, i * 100, 1);
+            rideService.matchRider("R" + i);
+            rideService.startRide(rideID(i), 1, "R" + i);
+            if (i == count - 1) {
+                break;
+            }
+
+            rideService.stopRide(rideID(i), i * 100 + 3, 4, 10 + i);
+            rideService.billRide(rideID(i));
+            paymentService.processPayment(rideID(i), PaymentMethodType.CASH);
+        }
+    }
+
+    private static String rideID(int i) {
+        return String.format("RIDE-%03d", i);
+    }
+
+    private static InMemoryDB open(WriteAheadLog writeAheadLog, RideArchive archive) {
+        return new InMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, DriverStoreType.OBJECTS,
+                MatchSessions.DEFAULT_TTL_SECONDS, writeAheadLog, archive);
+    }
+}
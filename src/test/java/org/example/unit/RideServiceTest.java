@@ -2,7 +2,10 @@ package org.example.unit;
 
 import org.example.config.TestConfig;
 import org.example.repository.Database;
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
 import org.example.models.Driver;
+import org.example.models.Fare;
 import org.example.models.Ride;
 import org.example.models.Rider;
 
@@ -19,6 +22,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -40,15 +44,21 @@ class RideServiceTest {
         HashMap<String, Driver> driverDetails = new HashMap<>();
         HashMap<String, Ride> rideDetails = new HashMap<>();
         HashMap<String, List<String>> riderDriverMapping = new HashMap<>();
+        SpatialIndex driverIndex = SpatialIndexType.GRID.createIndex();
 
         when(mockDB.getRiderDetails()).thenReturn(riderDetails);
         when(mockDB.getDriverDetails()).thenReturn(driverDetails);
         when(mockDB.getRideDetails()).thenReturn(rideDetails);
         when(mockDB.getRiderDriverMapping()).thenReturn(riderDriverMapping);
+        when(mockDB.getDriverIndex()).thenReturn(driverIndex);
 
         driverDetails.put("D1", new Driver(1, 1));
         driverDetails.put("D2", new Driver(4, 5));
         driverDetails.put("D3", new Driver(2, 2));
+
+        driverIndex.insert("D1", 1, 1);
+        driverIndex.insert("D2", 4, 5);
+        driverIndex.insert("D3", 2, 2);
     }
 
     @Test
@@ -69,6 +79,30 @@ class RideServiceTest {
         assertTrue(output.contains("DRIVERS_MATCHED D1 D3"), "Wrong drivers were matched");
     }
 
+    @Test
+    void laterMatchLeavesTheStoredListAlone() {
+        mockDB.getRiderDetails().put("R1", new Rider(0, 0));
+        rideService.matchRider("R1");
+        List<String> first = mockDB.getRiderDriverMapping().get("R1");
+
+        rideService.matchRider("R1");
+
+        assertEquals(List.of("D1", "D3"), first, "A later MATCH changed the list START_RIDE reads");
+        assertNotSame(first, mockDB.getRiderDriverMapping().get("R1"));
+    }
+
+    @Test
+    void matchRidersMinimisesTotalPickupDistance() {
+        mockDB.getRiderDetails().put("R1", new Rider(0, 0));
+        mockDB.getRiderDetails().put("R2", new Rider(1, 2));
+        mockDB.getRiderDetails().put("R3", new Rider(50, 50));
+
+        Map<String, String> assignment = rideService.matchRiders(List.of("R1", "R2", "R3"));
+
+        assertEquals(Map.of("R1", "D1", "R2", "D3"), assignment, "Batch did not minimise total pickup distance");
+        assertEquals("RIDE_STARTED RIDE-002", rideService.startRide("RIDE-002", 1, "R2"));
+    }
+
     @Test
     void startRide() {
         String riderID = "R1";
@@ -84,6 +118,22 @@ class RideServiceTest {
         assertTrue(output.contains("RIDE_STARTED RIDE-001"), "Ride did not start");
     }
 
+    @Test
+    void matchRiderSkipsDriversOnRide() {
+        mockDB.getRiderDetails().put("R1", new Rider(0, 0));
+        mockDB.getRiderDetails().put("R2", new Rider(0, 0));
+        rideService.matchRider("R1");
+        rideService.startRide("RIDE-001", 1, "R1");
+
+        String output = rideService.matchRider("R2");
+
+        assertEquals("DRIVERS_MATCHED D3", output, "Driver on a ride was matched");
+
+        rideService.stopRide("RIDE-001", 4, 5, 32);
+
+        assertEquals("DRIVERS_MATCHED D1 D3", rideService.matchRider("R2"), "Driver was not matched after the ride");
+    }
+
     @Test
     void stopRide() {
         Ride ride = new Ride("R1", "D3");
@@ -109,6 +159,28 @@ class RideServiceTest {
         assertEquals(186.7, bill, 0.1);
     }
 
+    @Test
+    void billIsWorkedOutOnce() {
+        Rider rider = new Rider(0, 0);
+        mockDB.getRiderDetails().put("R1", rider);
+
+        Ride ride = new Ride("R1", "D3");
+        ride.finishRide(4, 5, 32);
+        mockDB.getRideDetails().put("RIDE-001", ride);
+
+        Fare fare = rideService.billedRide("RIDE-001").getFare();
+        assertEquals(50.0, fare.baseFare());
+        assertEquals(Math.sqrt(41) * 6.5, fare.distanceFare(), 1e-9);
+        assertEquals(64.0, fare.timeFare());
+        assertEquals(0.2 * (50 + Math.sqrt(41) * 6.5 + 64), fare.serviceTax(), 1e-9);
+        assertEquals(186.7F, fare.total());
+
+        // Polling again neither looks the rider up nor recomputes
+        rider.setCoordinates(new int[]{100, 100});
+        assertEquals(186.7, rideService.billRide("RIDE-001"), 0.01);
+        assertSame(fare, rideService.billedRide("RIDE-001").getFare());
+    }
+
     @Test
     void matchRiderWhenNoDriversAvailable_ThrowsException() {
         String riderID = "R1";
@@ -0,0 +1,162 @@
+package org.example.unit;
+
+import org.example.cluster.ClusterNode;
+import org.example.cluster.RegionMap;
+import org.example.cluster.ShardRouter;
+import org.example.exceptions.InvalidRideException;
+import org.example.models.Driver;
+import org.example.services.payment.PaymentMethodType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Three nodes on loopback sockets behind one router
+class ShardedClusterTest {
+    private static final int NODES = 3;
+    private static final int REGION_SIZE = 10;
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+    private ShardRouter router;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new ClusterNode(0));
+        }
+        router = new ShardRouter(nodes.stream().map(ClusterNode::getAddress).toList(), REGION_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        nodes.forEach(ClusterNode::close);
+    }
+
+    @Test
+    void regionsSpreadOverEveryNode() {
+        RegionMap regions = router.getRegions();
+        Set<Integer> owners = new HashSet<>();
+        for (int x = 0; x < 100; x++) {
+            owners.add(regions.ownerOf(x * REGION_SIZE, 0));
+        }
+
+        assertEquals(NODES, owners.size());
+    }
+
+    @Test
+    void rideAcrossARegionBorder() {
+        int border = findBorder();
+        int riderNode = router.getRegions().ownerOf(border - 1, 5);
+        int driverNode = router.getRegions().ownerOf(border, 5);
+
+        router.addRider("R1", border - 1, 5);
+        router.addRider("R2", border - 1, 6);
+        router.addDriver("D1", border + 1, 5);
+        router.addDriver("D2", border - 40, 5);
+
+        assertEquals("DRIVERS_MATCHED D1", router.matchRider("R1"), "Driver across the border was not matched");
+        assertTrue(nodes.get(riderNode).getDatabase().getDriverDetails().isEmpty());
+
+        assertEquals("RIDE_STARTED RIDE-001", router.startRide("RIDE-001", 1, "R1"));
+        router.matchRider("R2");
+        assertEquals("NO_DRIVERS_AVAILABLE", router.matchRider("R2"), "Claimed driver is still matchable");
+        assertThrows(InvalidRideException.class, () -> router.startRide("RIDE-001", 1, "R1"));
+
+        assertEquals("RIDE_STOPPED RIDE-001", router.stopRide("RIDE-001", border + 3, 9, 12));
+        double bill = router.billRide("RIDE-001");
+        router.addMoney("R1", 500);
+
+        assertEquals("PAID " + (float) bill + " SUCCESSFULLY | CURRENT_BALANCE " + (float) (500 - bill),
+                router.processPayment("RIDE-001", PaymentMethodType.WALLET));
+        Driver driver = nodes.get(driverNode).getDatabase().getDriverDetails().get("D1");
+        assertEquals((float) bill, driver.getEarnings());
+        assertTrue(driver.isAvailable());
+        assertTrue(nodes.get(riderNode).getDatabase().getRideDetails().containsKey("RIDE-001"));
+    }
+
+    @Test
+    void driverMovesToTheNodeOwningTheirNewRegion() {
+        int border = findBorder();
+        int from = router.getRegions().ownerOf(border - 1, 5);
+        int to = router.getRegions().ownerOf(border, 5);
+
+        router.addDriver("D1", border - 1, 5);
+        router.rateDriver("D1", 4);
+        router.updateLocation("D1", border + 2, 5);
+
+        assertFalse(nodes.get(from).getDatabase().getDriverDetails().containsKey("D1"));
+        Driver driver = nodes.get(to).getDatabase().getDriverDetails().get("D1");
+        assertEquals(4, driver.getRating());
+        assertArrayEquals(new int[]{border + 2, 5}, driver.getCoordinates());
+        assertEquals(1, nodes.get(to).getDatabase().getDriverIndex().size());
+    }
+
+    @Test
+    void driverWhoMovedMidRideIsReleasedAndPaidOnTheirNewNode() {
+        int border = findBorder();
+        int to = router.getRegions().ownerOf(border, 5);
+
+        router.addRider("R1", border - 1, 5);
+        router.addDriver("D1", border - 2, 5);
+        router.matchRider("R1");
+        router.startRide("RIDE-001", 1, "R1");
+        router.updateLocation("D1", border + 2, 5);
+
+        router.stopRide("RIDE-001", border + 2, 5, 10);
+        double bill = router.billRide("RIDE-001");
+        router.processPayment("RIDE-001", PaymentMethodType.CASH);
+
+        Driver driver = nodes.get(to).getDatabase().getDriverDetails().get("D1");
+        assertTrue(driver.isAvailable());
+        assertEquals((float) bill, driver.getEarnings());
+    }
+
+    @Test
+    void concurrentMovesKeepEachDriverOnOneNode() throws Exception {
+        int border = findBorder();
+        router.addDriver("D1", border - 1, 5);
+        router.addDriver("D2", border - 1, 6);
+
+        List<Thread> threads = new ArrayList<>();
+        for (String driverID : List.of("D1", "D2")) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    router.updateLocation(driverID, i % 2 == 0 ? border + 1 : border - 1, 5);
+                }
+            }));
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    router.rateDriver(driverID, 5);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int home = router.getRegions().ownerOf(border - 1, 5);
+        for (String driverID : List.of("D1", "D2")) {
+            assertEquals(1, nodes.stream().filter(node -> node.getDatabase().getDriverDetails().containsKey(driverID)).count());
+            Driver driver = nodes.get(home).getDatabase().getDriverDetails().get(driverID);
+            assertEquals(200, driver.getRidesDone(), driverID + " lost a rating while moving");
+        }
+    }
+
+    // First x where the region to the left and the region to the right belong to different nodes
+    private int findBorder() {
+        RegionMap regions = router.getRegions();
+        for (int x = REGION_SIZE; ; x += REGION_SIZE) {
+            if (regions.ownerOf(x - 1, 5) != regions.ownerOf(x, 5)) {
+                return x;
+            }
+        }
+    }
+}
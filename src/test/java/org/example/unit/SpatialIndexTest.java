@@ -0,0 +1,157 @@
+package org.example.unit;
+
+import org.example.repository.SpatialIndex;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.index.ShardedSpatialIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+
+    @Test
+    void nearestOrdersByDistanceThenDriverID() {
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            SpatialIndex index = type.createIndex();
+            index.insert("D1", 1, 1);
+            index.insert("D2", 4, 5);
+            index.insert("D3", 2, 2);
+            index.insert("D0", -1, -1);
+
+            assertEquals(List.of("D0", "D1", "D3"), index.nearest(0, 0, 5, 5.0), type + " returned wrong drivers");
+            assertEquals(List.of("D0", "D1"), index.nearest(0, 0, 2, 5.0), type + " did not cap at k");
+        }
+    }
+
+    @Test
+    void removedDriversAreNotReturned() {
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            SpatialIndex index = type.createIndex();
+            index.insert("D1", 1, 1);
+            index.insert("D2", 2, 2);
+            index.remove("D1");
+            index.insert("D2", 40, 40);
+
+            assertEquals(1, index.size(), type + " has the wrong size");
+            assertTrue(index.nearest(0, 0, 5, 5.0).isEmpty(), type + " returned a removed driver");
+            assertEquals(List.of("D2"), index.withinRadius(41, 41, 5.0), type + " did not move the driver");
+        }
+    }
+
+    @Test
+    void matchesBruteForceOnClusteredFleet() {
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            Random random = new Random(7);
+            SpatialIndex index = type.createIndex();
+            Map<String, int[]> positions = new HashMap<>();
+
+            for (int i = 0; i < 5_000; i++) {
+                String driverID = "D" + random.nextInt(2_000);
+                if (random.nextInt(4) == 0) {
+                    index.remove(driverID);
+                    positions.remove(driverID);
+                } else {
+                    int[] point = clusteredPoint(random);
+                    index.insert(driverID, point[0], point[1]);
+                    positions.put(driverID, point);
+                }
+            }
+
+            assertEquals(positions.size(), index.size(), type + " has the wrong size");
+
+            for (int i = 0; i < 500; i++) {
+                int[] rider = clusteredPoint(random);
+                assertEquals(bruteForce(positions, rider, 5, 5.0), index.nearest(rider[0], rider[1], 5, 5.0),
+                        type + " disagrees with brute force");
+            }
+        }
+    }
+
+    @Test
+    void parallelShardedSearchMatchesSequentialSearch() {
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            Random random = new Random(11);
+            SpatialIndex sequential = type.createIndex();
+            SpatialIndex parallel = new ShardedSpatialIndex(type, 8, 0);
+
+            for (int i = 0; i < 3_000; i++) {
+                int[] point = clusteredPoint(random);
+                sequential.insert("D" + i, point[0], point[1]);
+                parallel.insert("D" + i, point[0], point[1]);
+            }
+
+            for (int i = 0; i < 500; i++) {
+                int[] rider = clusteredPoint(random);
+                assertEquals(sequential.nearest(rider[0], rider[1], 5, 5.0), parallel.nearest(rider[0], rider[1], 5, 5.0),
+                        type + " shards disagree with a single index");
+            }
+        }
+    }
+
+    @Test
+    void shardedIndexSplitsAtThresholdAndMergesBelowHalf() {
+        ShardedSpatialIndex index = new ShardedSpatialIndex(SpatialIndexType.GRID, 4, 100);
+        for (int i = 0; i < 99; i++) {
+            index.insert("D" + i, i % 10, i / 10);
+        }
+        assertEquals(1, index.shardCount(), "Split below the threshold");
+
+        index.insert("D99", 9, 9);
+        assertEquals(4, index.shardCount(), "Did not split at the threshold");
+        assertEquals(100, index.size());
+        assertEquals(List.of("D0", "D1", "D10"), index.nearest(0, 0, 3, 5.0));
+
+        for (int i = 0; i < 51; i++) {
+            index.remove("D" + i);
+        }
+        assertEquals(1, index.shardCount(), "Did not merge below half the threshold");
+        assertEquals(49, index.size());
+        assertEquals(List.of("D60", "D61"), index.nearest(0, 6, 2, 5.0));
+    }
+
+    @Test
+    void kdTreeSearchesLongChainOfSortedInserts() {
+        SpatialIndex index = SpatialIndexType.KD_TREE.createIndex();
+
+        // Points sorted on both axes hang off one side of the tree until it is rebuilt
+        for (int i = 0; i < 60_000; i++) {
+            index.insert("D" + i, i, i);
+        }
+
+        assertEquals(List.of("D59999", "D59998"), index.nearest(60_000, 60_000, 2, 5.0));
+        assertEquals(List.of("D0"), index.nearest(0, 0, 1, 5.0));
+    }
+
+    private static int[] clusteredPoint(Random random) {
+        if (random.nextBoolean()) {
+            return new int[]{100 + random.nextInt(6), 100 + random.nextInt(6)};
+        }
+        return new int[]{random.nextInt(300), random.nextInt(300)};
+    }
+
+    private static List<String> bruteForce(Map<String, int[]> positions, int[] rider, int k, double radius) {
+        List<String> inRange = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+            if (distanceSquared(entry.getValue(), rider) <= radius * radius) {
+                inRange.add(entry.getKey());
+            }
+        }
+
+        inRange.sort(Comparator.<String>comparingLong(id -> distanceSquared(positions.get(id), rider))
+                .thenComparing(Comparator.naturalOrder()));
+        return inRange.subList(0, Math.min(k, inRange.size()));
+    }
+
+    private static long distanceSquared(int[] a, int[] b) {
+        long dx = a[0] - b[0];
+        long dy = a[1] - b[1];
+        return dx * dx + dy * dy;
+    }
+}
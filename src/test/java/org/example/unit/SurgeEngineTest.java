@@ -0,0 +1,111 @@
+package org.example.unit;
+
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.example.services.ride.surge.SurgeEngine;
+import org.example.services.ride.tariff.TariffEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SurgeEngineTest {
+    private final ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SurgeEngine surge = new SurgeEngine(db, 5, 60_000, 4, 2, 3.0F, now::get);
+    private final DriverServiceImpl driverService = new DriverServiceImpl(db, surge);
+    private final RideServiceImpl rideService = new RideServiceImpl(db, new TariffEngine(), surge);
+
+    @Test
+    void demandAboveSupplyRaisesTheFare() {
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 2, 2);
+        rideService.addRider("R1", 0, 0);
+
+        for (int i = 0; i < 3; i++) {
+            rideService.matchRider("R1");
+        }
+        assertEquals(1.0F, surge.multiplier(0, 0), "Below the minimum demand there is no surge");
+
+        for (int i = 0; i < 3; i++) {
+            rideService.matchRider("R1");
+        }
+        assertEquals(1.5F, surge.multiplier(0, 0), "6 requests over 2 drivers");
+        assertEquals(1.0F, surge.multiplier(100, 100), "Far away cells are untouched");
+
+        rideService.startRide("RIDE-001", 1, "R1");
+        assertEquals(3.0F, surge.multiplier(0, 0), "The claimed driver left the supply");
+
+        rideService.stopRide("RIDE-001", 0, 3, 10);
+        assertEquals(1.5F, surge.multiplier(0, 0), "Stopping the ride returned the driver");
+
+        // Base bill: (50 + 3 * 6.5 + 10 * 2) * 1.2 = 107.4, quoted at 1.5x when the ride started
+        assertEquals(161.1, rideService.billRide("RIDE-001"), 0.01);
+    }
+
+    @Test
+    void demandSlidesOutOfTheWindow() {
+        driverService.addDriver("D1", 1, 1);
+        rideService.addRider("R1", 0, 0);
+        for (int i = 0; i < 6; i++) {
+            rideService.matchRider("R1");
+        }
+        assertEquals(3.0F, surge.multiplier(0, 0), "Capped at the maximum");
+
+        now.addAndGet(30_000);
+        for (int i = 0; i < 2; i++) {
+            rideService.matchRider("R1");
+        }
+        now.addAndGet(31_000);
+        assertEquals(1.0F, surge.multiplier(0, 0), "Only the 2 recent requests remain");
+    }
+
+    @Test
+    void movingDriversCarryTheirSupply() {
+        driverService.addDriver("D1", 1, 1);
+        rideService.addRider("R1", 0, 0);
+        for (int i = 0; i < 4; i++) {
+            rideService.matchRider("R1");
+        }
+        assertEquals(2.0F, surge.multiplier(0, 0));
+
+        driverService.updateLocation("D1", 50, 50);
+        assertEquals(2.0F, surge.multiplier(0, 0), "With no drivers left the cell counts as one");
+        driverService.addDriver("D2", 3, 3);
+        driverService.addDriver("D3", 4, 4);
+        assertEquals(1.0F, surge.multiplier(0, 0));
+
+        // Drivers already in the database when the engine starts are counted once
+        SurgeEngine restarted = new SurgeEngine(db, 5, 60_000, 1, 1, 3.0F, now::get);
+        restarted.recordDemand(0, 0);
+        restarted.recordDemand(0, 0);
+        restarted.recordDemand(0, 0);
+        assertEquals(1.5F, restarted.multiplier(0, 0));
+    }
+
+    @Test
+    void concurrentDemandIsNeverLost() throws Exception {
+        SurgeEngine counting = new SurgeEngine(db, 5, 60_000, 1, 40_000, 3.0F, now::get);
+        List<Callable<Void>> requests = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            requests.add(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counting.recordDemand(i % 5, i % 3);
+                }
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        pool.invokeAll(requests);
+        pool.shutdown();
+
+        assertEquals(2.0F, counting.multiplier(0, 0), "80,000 requests over 1 driver slot of 40,000");
+    }
+}
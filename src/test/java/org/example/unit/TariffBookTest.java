@@ -0,0 +1,120 @@
+package org.example.unit;
+
+import org.example.exceptions.InvalidTariffException;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.ride.RideServiceImpl;
+import org.example.services.ride.surge.SurgeEngine;
+import org.example.services.ride.tariff.TariffBook;
+import org.example.services.ride.tariff.TariffEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TariffBookTest {
+
+    @Test
+    void standardBookMatchesTheOldFormula() {
+        for (int distance = 0; distance < 200; distance++) {
+            for (int mins = 0; mins < 120; mins += 7) {
+                double finalBill = 50.0;
+                finalBill += Math.sqrt(distance) * 6.5;
+                finalBill += mins * 2.0;
+                finalBill *= 1.2;
+                float expected = (float) (Math.round(finalBill * 10.0) / 10.0);
+
+                for (int hour = 0; hour < TariffBook.HOURS; hour++) {
+                    assertEquals(expected, TariffBook.STANDARD.bill(TariffBook.STANDARD.defaultSlot(hour), Math.sqrt(distance), mins));
+                }
+            }
+        }
+    }
+
+    @Test
+    void bandsMayWrapPastMidnight() {
+        TariffBook book = TariffBook.parse(List.of(
+                "# city vehicle hours base per-km per-min tax",
+                "pune standard 6-22 50.0 6.5 2.0 1.2",
+                "pune standard 22-6 100.0 6.5 2.0 1.0",
+                "pune premium 0-24 80.0 10.0 3.0 1.0"));
+
+        assertEquals(3, book.getRules());
+        assertEquals(100.0F, book.bill(book.slot("pune", "standard", 23), 0, 0));
+        assertEquals(100.0F, book.bill(book.slot("pune", "standard", 5), 0, 0));
+        assertEquals(60.0F, book.bill(book.slot("pune", "standard", 6), 0, 0));
+        assertEquals(113.0F, book.bill(book.slot("pune", "premium", 12), 3, 1));
+        assertEquals(-1, book.slot("goa", "standard", 12));
+        assertEquals(60.0F, book.bill(book.defaultSlot(12), 0, 0), "The first line's city and class are the default");
+
+        int[] slots = {book.slot("pune", "standard", 23), book.slot("pune", "premium", 0)};
+        float[] bills = new float[2];
+        book.billAll(slots, new double[]{1, 2}, new int[]{0, 0}, bills);
+        assertArrayEquals(new float[]{106.5F, 100.0F}, bills);
+    }
+
+    @Test
+    void gapsAndOverlapsAreRejected() {
+        InvalidTariffException gap = assertThrows(InvalidTariffException.class,
+                () -> TariffBook.parse(List.of("pune standard 0-23 50.0 6.5 2.0 1.2")));
+        assertEquals("INVALID_TARIFF NO_RULE pune standard 23", gap.getMessage());
+
+        InvalidTariffException overlap = assertThrows(InvalidTariffException.class, () -> TariffBook.parse(List.of(
+                "pune standard 0-24 50.0 6.5 2.0 1.2",
+                "pune standard 8-10 70.0 6.5 2.0 1.2")));
+        assertEquals("INVALID_TARIFF LINE 2", overlap.getMessage());
+
+        assertThrows(InvalidTariffException.class, () -> TariffBook.parse(List.of("pune standard 0-24 fifty 6.5 2.0 1.2")));
+        assertThrows(InvalidTariffException.class, () -> TariffBook.parse(List.of("pune standard 0-24 50.0 -6.5 2.0 1.2")));
+        assertThrows(InvalidTariffException.class, () -> TariffBook.parse(List.of("# nothing but a comment")));
+    }
+
+    @Test
+    void reloadSwapsTheBookAndKeepsItOnBadFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tariffs.txt");
+        Files.writeString(file, "default standard 0-24 50.0 6.5 2.0 1.2\n");
+        TariffEngine engine = new TariffEngine(file.toString());
+        TariffBook before = engine.getBook();
+        assertEquals(60.0F, engine.bill(0, 0));
+
+        Files.writeString(file, "default standard 0-24 100.0 6.5 2.0 1.0\nother standard 0-24 1.0 1.0 1.0 1.0\n");
+        assertEquals(2, engine.reload());
+        assertEquals(100.0F, engine.bill(0, 0));
+        assertEquals(60.0F, before.bill(before.defaultSlot(0), 0, 0), "An old book is never changed");
+
+        Files.writeString(file, "default standard 0-12 1.0 1.0 1.0 1.0\n");
+        assertThrows(InvalidTariffException.class, engine::reload);
+        assertEquals(100.0F, engine.bill(0, 0));
+    }
+
+    @Test
+    void rideIsBilledAtTheHourItStarted() {
+        int[] hour = {21};
+        TariffEngine engine = new TariffEngine() {
+            @Override
+            public int currentHour() {
+                return hour[0];
+            }
+        };
+        engine.setBook(TariffBook.parse(List.of(
+                "pune standard 6-22 50.0 0.0 0.0 1.0",
+                "pune standard 22-6 80.0 0.0 0.0 1.0")));
+
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB();
+        RideServiceImpl rideService = new RideServiceImpl(db, engine, SurgeEngine.NONE);
+        new DriverServiceImpl(db).addDriver("D1", 0, 0);
+        rideService.addRider("R1", 0, 0);
+        rideService.matchRider("R1");
+        rideService.startRide("RIDE-001", 1, "R1");
+
+        hour[0] = 23;
+        rideService.stopRide("RIDE-001", 0, 0, 90);
+
+        assertEquals(50.0, rideService.billRide("RIDE-001"), "Billed at the band the ride ended in");
+    }
+}
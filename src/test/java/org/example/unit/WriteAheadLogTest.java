@@ -0,0 +1,238 @@
+package org.example.unit;
+
+import org.example.models.Fare;
+import org.example.models.Ride;
+import org.example.repository.ConcurrentInMemoryDB;
+import org.example.repository.DriverStoreType;
+import org.example.repository.InMemoryDB;
+import org.example.repository.MatchSessions;
+import org.example.repository.SpatialIndexType;
+import org.example.repository.archive.RideArchive;
+import org.example.repository.wal.MappedWriteAheadLog;
+import org.example.services.admin.AdminServiceImpl;
+import org.example.services.driver.DriverServiceImpl;
+import org.example.services.payment.PaymentMethodType;
+import org.example.services.payment.PaymentService;
+import org.example.services.payment.impl.WalletPayment;
+import org.example.services.ride.RideServiceImpl;
+import org.example.services.ride.surge.SurgeEngine;
+import org.example.services.ride.tariff.TariffEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void restartRecoversEveryLoggedChange() {
+        Path logFile = directory.resolve("riderapp.wal");
+
+        InMemoryDB db = open(logFile, 64);
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        PaymentService paymentService = new PaymentService(db);
+
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 4, 5);
+        driverService.addDriver("D3", 2, 2);
+        driverService.addDriver("D4", 9, 9);
+        rideService.addRider("R1", 0, 0);
+        rideService.addRider("R2", 3, 4);
+        new AdminServiceImpl(db).removeDriver("D4");
+
+        paymentService.getWallet().addMoney("R1", 500);
+        rideService.matchRider("R1");
+        rideService.startRide("RIDE-001", 2, "R1");
+        rideService.stopRide("RIDE-001", 4, 5, 32);
+        rideService.billRide("RIDE-001");
+        paymentService.processPayment("RIDE-001", PaymentMethodType.WALLET);
+
+        rideService.matchRider("R2");
+        rideService.startRide("RIDE-002", 1, "R2");
+        driverService.updateLocation("D1", 5, 5);
+        driverService.rateDriver("D3", 4.5F);
+        db.getWriteAheadLog().close();
+
+        InMemoryDB recovered = open(logFile, 64);
+
+        assertEquals(Set.of("D1", "D2", "D3"), recovered.getDriverDetails().keySet());
+        assertEquals(List.of(5, 5), List.of(recovered.getDriverDetails().get("D1").getCoordinates()[0],
+                recovered.getDriverDetails().get("D1").getCoordinates()[1]));
+        assertFalse(recovered.getDriverDetails().get("D2").isAvailable(), "D2 should still be on RIDE-002");
+        assertEquals(4.5F, recovered.getDriverDetails().get("D3").getRating());
+        assertEquals(db.getRideDetails().get("RIDE-001").getBill(), recovered.getDriverDetails().get("D3").getEarnings());
+        assertEquals(db.getRiderDetails().get("R1").getWalletAmount(), recovered.getRiderDetails().get("R1").getWalletAmount());
+        assertTrue(recovered.getRideDetails().get("RIDE-001").isFinished());
+        Fare fare = recovered.getRideDetails().get("RIDE-001").getFare();
+        assertEquals(db.getRideDetails().get("RIDE-001").getFare(), fare);
+        assertSame(fare, new RideServiceImpl(recovered).billedRide("RIDE-001").getFare(), "A restored bill is final");
+        assertFalse(recovered.getRideDetails().get("RIDE-002").isFinished());
+        assertEquals(List.of("D3", "D1"), recovered.getDriverIndex().nearest(3, 3, 5, 5.0), "Index not rebuilt");
+
+        // New changes append after the recovered ones
+        new RideServiceImpl(recovered).stopRide("RIDE-002", 6, 6, 10);
+        recovered.getWriteAheadLog().close();
+
+        InMemoryDB reopened = open(logFile, 1);
+        assertTrue(reopened.getRideDetails().get("RIDE-002").isFinished());
+        assertTrue(reopened.getDriverDetails().get("D2").isAvailable());
+        reopened.getWriteAheadLog().close();
+    }
+
+    @Test
+    void tornTailIsDiscarded() throws Exception {
+        Path logFile = directory.resolve("torn.wal");
+
+        InMemoryDB db = open(logFile, 1);
+        new RideServiceImpl(db).addRider("R1", 0, 0);
+        new RideServiceImpl(db).addRider("R2", 1, 1);
+        db.getWriteAheadLog().close();
+
+        // Corrupt one byte inside the second record, as if the crash hit mid-write
+        try (RandomAccessFile file = new RandomAccessFile(region(logFile, 0).toFile(), "rw")) {
+            int firstRecord = 8 + readInt(file, 0);
+            file.seek(firstRecord + 10);
+            file.write(0x7F);
+        }
+
+        InMemoryDB recovered = open(logFile, 1);
+        assertEquals(Set.of("R1"), recovered.getRiderDetails().keySet());
+
+        new RideServiceImpl(recovered).addRider("R3", 2, 2);
+        recovered.getWriteAheadLog().close();
+
+        InMemoryDB reopened = open(logFile, 1);
+        assertEquals(Set.of("R1", "R3"), reopened.getRiderDetails().keySet());
+        reopened.getWriteAheadLog().close();
+    }
+
+    @Test
+    void snapshotTakenDuringWritesPlusLogTailRestoresState() throws Exception {
+        Path logFile = directory.resolve("snapshot.wal");
+
+        ConcurrentInMemoryDB db = new ConcurrentInMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE,
+                MatchSessions.DEFAULT_TTL_SECONDS, new MappedWriteAheadLog(logFile, 64, 1), RideArchive.NONE);
+        DriverServiceImpl driverService = new DriverServiceImpl(db);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+        WalletPayment wallet = new WalletPayment(db);
+
+        for (int i = 0; i < 1_000; i++) {
+            driverService.addDriver("D" + i, i % 50, i / 50);
+            rideService.addRider("R" + i, i % 50, i / 50);
+        }
+
+        rideService.matchRider("R0");
+
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 1_000; i++) {
+                    wallet.addMoney("R" + i, 1);
+                    driverService.updateLocation("D" + i, (i + round) % 50, i / 50);
+                }
+            }
+        });
+        writer.start();
+        db.getWriteAheadLog().snapshot(db);
+        writer.join();
+
+        rideService.startRide("RIDE-001", 1, "R0");
+        db.getWriteAheadLog().close();
+
+        ConcurrentInMemoryDB recovered = new ConcurrentInMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE,
+                MatchSessions.DEFAULT_TTL_SECONDS, new MappedWriteAheadLog(logFile, 64, 1), RideArchive.NONE);
+
+        assertEquals(1, Files.list(directory).filter(file -> file.toString().endsWith(".snapshot")).count());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(20, recovered.getRiderDetails().get("R" + i).getWalletAmount(), 0.0, "R" + i + " wallet");
+            assertArrayEquals(db.getDriverDetails().get("D" + i).getCoordinates(),
+                    recovered.getDriverDetails().get("D" + i).getCoordinates(), "D" + i + " location");
+        }
+        assertEquals(999, recovered.getDriverIndex().size(), "Driver on RIDE-001 should not be indexed");
+        assertEquals(db.getRiderDriverMapping().get("R0").size(), recovered.getRiderDriverMapping().get("R0").size());
+        recovered.getWriteAheadLog().close();
+    }
+
+    @Test
+    void snapshotDeletesTheRegionsBeforeIt() {
+        Path logFile = directory.resolve("compacted.wal");
+        InMemoryDB db = open(logFile, 1_024);
+        RideServiceImpl rideService = new RideServiceImpl(db);
+
+        // About 2 KB a record, so the log runs into its second region and the snapshot outgrows one read
+        String padding = "R".repeat(2_000);
+        for (int i = 0; i < 10_000; i++) {
+            rideService.addRider(padding + i % 1_000, i % 1_000, 0);
+        }
+        assertTrue(Files.exists(region(logFile, 0)));
+        db.getWriteAheadLog().snapshot(db);
+        rideService.addRider("R1", 0, 0);
+        db.getWriteAheadLog().close();
+
+        assertFalse(Files.exists(region(logFile, 0)), "The region before the snapshot was kept");
+        InMemoryDB recovered = open(logFile, 1_024);
+        assertEquals(1_001, recovered.getRiderDetails().size());
+        assertArrayEquals(new int[]{999, 0}, recovered.getRiderDetails().get(padding + 999).getCoordinates());
+        recovered.getWriteAheadLog().close();
+    }
+
+    @Test
+    void ridesKeepTheirQuoteAndFareThroughTheSnapshotAndTheLog() {
+        Path logFile = directory.resolve("quotes.wal");
+        InMemoryDB db = open(logFile, 1);
+        SurgeEngine surge = new SurgeEngine(db, 5, 60_000, 1, 1, 3.0F, System::currentTimeMillis);
+        DriverServiceImpl driverService = new DriverServiceImpl(db, surge);
+        RideServiceImpl rideService = new RideServiceImpl(db, new TariffEngine(), surge);
+
+        driverService.addDriver("D1", 1, 1);
+        driverService.addDriver("D2", 2, 2);
+        rideService.addRider("R1", 0, 0);
+        rideService.addRider("R2", 1, 0);
+        for (int i = 0; i < 4; i++) {
+            rideService.matchRider("R1");
+        }
+        rideService.startRide("RIDE-001", 1, "R1");
+        rideService.stopRide("RIDE-001", 4, 5, 20);
+        rideService.billRide("RIDE-001");
+        db.getWriteAheadLog().snapshot(db);
+        rideService.matchRider("R2");
+        rideService.startRide("RIDE-002", 1, "R2");
+        rideService.stopRide("RIDE-002", 6, 6, 15);
+        rideService.billRide("RIDE-002");
+        db.getWriteAheadLog().close();
+
+        InMemoryDB recovered = open(logFile, 1);
+        for (String rideID : List.of("RIDE-001", "RIDE-002")) {
+            Ride logged = db.getRideDetails().get(rideID);
+            Ride restored = recovered.getRideDetails().get(rideID);
+            assertTrue(logged.getSurge() > 1, rideID + " was not quoted a surge");
+            assertEquals(logged.getSurge(), restored.getSurge(), rideID + " surge");
+            assertEquals(logged.getStartHour(), restored.getStartHour(), rideID + " start hour");
+            assertArrayEquals(logged.getStartCoordinates(), restored.getStartCoordinates(), rideID + " start");
+            assertEquals(logged.getFare(), restored.getFare(), rideID + " fare");
+        }
+        recovered.getWriteAheadLog().close();
+    }
+
+    private static InMemoryDB open(Path logFile, int syncEvery) {
+        return new InMemoryDB(SpatialIndexType.GRID, 1, Integer.MAX_VALUE, DriverStoreType.OBJECTS,
+                MatchSessions.DEFAULT_TTL_SECONDS, new MappedWriteAheadLog(logFile, syncEvery, 1), RideArchive.NONE);
+    }
+
+    private static Path region(Path logFile, long start) {
+        return logFile.resolveSibling(String.format("%s.%016x.region", logFile.getFileName(), start));
+    }
+
+    private static int readInt(RandomAccessFile file, long position) throws Exception {
+        file.seek(position);
+        return file.readInt();
+    }
+}